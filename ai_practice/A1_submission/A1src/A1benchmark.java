@@ -0,0 +1,966 @@
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+public class A1benchmark {
+    /**
+     * Micro-benchmarks for the search code, run from the command line:
+     *  java A1benchmark path [explored states] [path length]
+     *  java A1benchmark parallel [queries] [N]
+     *  java A1benchmark oracle [queries] [N]
+     *  java A1benchmark trace [N...]
+     *  java A1benchmark suite [N...]
+     *  java A1benchmark bounded [queries] [N] [node budget...]
+     *  java A1benchmark replan [changes] [N]
+     *  java A1benchmark cache [queries] [N] [distinct pairs] [capacity]
+     *  java A1benchmark symmetry [queries] [N]
+     *  java A1benchmark stream [N...]
+     *  java A1benchmark resolution [N] [meridians...]
+     *  java A1benchmark anytime [queries] [N] [meridians] [deadline ms..., 0 for none]
+     *  java A1benchmark bitbfs [N] [meridians...]
+     *  java A1benchmark dfs [N] [meridians...]
+     * The dfs mode first checks that DFS on State objects and on the packed grid find the same paths.
+     * Each mode prints the median wall time of its variants over a few repetitions, after a warm-up run, except for
+     * the suite which measures throughput over fixed time windows.
+     */
+    static final int REPETITIONS = 5;
+    // time windows of the suite, per benchmark
+    static final long WARMUP_NANOS = 200_000_000L;
+    static final long MEASUREMENT_NANOS = 500_000_000L;
+    // start/goal distances of the suite, as fractions of the grid radius
+    static final double[] DISTANCES = {0.1, 0.5, 1.0};
+    // largest grid on which the dfs benchmark runs iterative deepening
+    static final int ITERATIVE_DEEPENING_NODES = 10000;
+    static final List<String> SUITE_ALGORITHMS = Arrays.asList("BFS", "DFS", "BestF", "AStar", "Bidirec/BFS",
+            "Bidirec/BestF", "Bidirec/AStar");
+
+    interface Task {
+        Object run();
+    }
+
+    public static double timeMillis(Task task) {
+        /**
+         * Median wall time of REPETITIONS runs of the task, after one warm-up run.
+         */
+        task.run();
+        double[] times = new double[REPETITIONS];
+        for (int i = 0; i < REPETITIONS; i++) {
+            long start = System.nanoTime();
+            task.run();
+            times[i] = (System.nanoTime() - start) / 1e6;
+        }
+        Arrays.sort(times);
+        return times[REPETITIONS / 2];
+    }
+
+    public static List<State> legacyGetPath(List<State> all_states, State goal) {
+        /**
+         * Path tracing as done before State.tracePath(): every hop looks its state up in the explored list.
+         */
+        List<State> path = new ArrayList<>();
+        for (State state = goal; state != null; ) {
+            State goal_state = State.findState(all_states, state);
+            path.add(goal_state);
+            state = goal_state == null ? null : goal_state.parent;
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    public static void benchmarkPath(int exploredStates, int pathLength) {
+        /**
+         * Compare the legacy and current path tracing on an explored list of "exploredStates" states, where the
+         * "pathLength" states of the path are stored at the end of the list (the worst case for lookups).
+         */
+        int noOfCircles = exploredStates / 8 + pathLength + 1;
+        List<State> all_explored_states = new ArrayList<>(exploredStates);
+        for (int i = 0; i < exploredStates - pathLength; i++) {
+            all_explored_states.add(new State(i / 8 + 1, (i % 8) * 45, noOfCircles));
+        }
+        // the path climbs radially along meridian 0 outside the circles of the filler states
+        State previous = null;
+        for (int circle = 1; circle <= pathLength; circle++) {
+            State state = new State(noOfCircles - pathLength + circle, 0, noOfCircles);
+            state.parent = previous;
+            all_explored_states.add(state);
+            previous = state;
+        }
+        State goal = new State(previous.getCircle(), previous.getMeridian(), noOfCircles);
+
+        List<State> expected = legacyGetPath(all_explored_states, goal);
+        if (!expected.equals(State.getPath(all_explored_states, goal))) {
+            throw new IllegalStateException("Legacy and current path tracing disagree");
+        }
+        double legacy = timeMillis(() -> legacyGetPath(all_explored_states, goal));
+        double current = timeMillis(() -> State.getPath(all_explored_states, goal));
+        System.out.println("Path tracing over " + exploredStates + " explored states, path of " + pathLength +
+                " states:");
+        System.out.println(String.format("  legacy (findState per hop): %10.3f ms", legacy));
+        System.out.println(String.format("  parent links (tracePath):   %10.3f ms", current));
+        System.out.println(String.format("  speed-up: %.1fx", legacy / current));
+    }
+
+    public static List<Query> randomQueries(int count, int noOfCircles, String algorithm, long seed) {
+        /**
+         * Reproducible random queries between valid positions of a grid with "noOfCircles" circles.
+         */
+        Random random = new Random(seed);
+        List<Query> queries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            queries.add(new Query(i, algorithm, noOfCircles, random.nextInt(noOfCircles) + 1, random.nextInt(8) * 45,
+                    random.nextInt(noOfCircles) + 1, random.nextInt(8) * 45, algorithm.equals("Bidirec") ? "BFS" : null));
+        }
+        return queries;
+    }
+
+    public static void benchmarkParallel(int count, int noOfCircles) {
+        /**
+         * Throughput of SearchExecutor on random AStar queries for 1, 2, 4, ... threads up to the number of cores.
+         */
+        List<Query> queries = randomQueries(count, noOfCircles, "AStar", 42);
+        int cores = Runtime.getRuntime().availableProcessors();
+        System.out.println("SearchExecutor throughput, " + count + " AStar queries on N = " + noOfCircles + ":");
+        double single = 0;
+        for (int threads = 1; ; threads = Math.min(threads * 2, cores)) {
+            try (SearchExecutor executor = new SearchExecutor(threads)) {
+                double millis = timeMillis(() -> executor.solveAll(queries));
+                double throughput = count / (millis / 1000);
+                if (threads == 1) {
+                    single = throughput;
+                }
+                System.out.println(String.format("  %3d threads: %12.1f queries/s  (%.2fx)", threads, throughput,
+                        throughput / single));
+            }
+            if (threads == cores) {
+                break;
+            }
+        }
+    }
+
+    public static void benchmarkOracle(int count, int noOfCircles) {
+        /**
+         * Check DistanceOracle against AStar on random queries, then compare AStar with the polar distance
+         * heuristic, AStar with the oracle as heuristic and the oracle alone.
+         */
+        List<Query> queries = randomQueries(count, noOfCircles, "AStar", 7);
+        PolarGrid grid = PolarGrid.forCircles(noOfCircles);
+        SearchScratch scratch = new SearchScratch(grid);
+        DistanceOracle oracle = new DistanceOracle(grid);
+        AStarSearch polarAStar = new AStarSearch();
+        AStarSearch oracleAStar = new AStarSearch(oracle);
+        int[] sources = new int[count];
+        int[] goals = new int[count];
+        long polarExpanded = 0;
+        long oracleExpanded = 0;
+        for (int i = 0; i < count; i++) {
+            Query query = queries.get(i);
+            sources[i] = grid.getId(query.sourceCircle, query.sourceMeridian);
+            goals[i] = grid.getId(query.goalCircle, query.goalMeridian);
+            double searched = grid.getPathCost(polarAStar.search(grid, sources[i], goals[i], scratch));
+            polarExpanded += scratch.expanded;
+            double guided = grid.getPathCost(oracleAStar.search(grid, sources[i], goals[i], scratch));
+            oracleExpanded += scratch.expanded;
+            double exact = grid.getPathCost(oracle.getPath(sources[i], goals[i]));
+            if (Math.abs(searched - exact) > 1e-9 || Math.abs(guided - exact) > 1e-9 ||
+                    Math.abs(oracle.getCost(sources[i], goals[i]) - exact) > 1e-9) {
+                throw new IllegalStateException("Oracle disagrees with AStar on " + query);
+            }
+        }
+        double polar = timeMillis(() -> {
+            for (int i = 0; i < count; i++) {
+                polarAStar.search(grid, sources[i], goals[i], scratch);
+            }
+            return null;
+        });
+        double guided = timeMillis(() -> {
+            for (int i = 0; i < count; i++) {
+                oracleAStar.search(grid, sources[i], goals[i], scratch);
+            }
+            return null;
+        });
+        double direct = timeMillis(() -> {
+            double total = 0;
+            for (int i = 0; i < count; i++) {
+                total += oracle.getCost(sources[i], goals[i]);
+            }
+            return total;
+        });
+        System.out.println(count + " random queries on N = " + (noOfCircles + 1) + ", costs verified against AStar:");
+        System.out.println(String.format("  AStar, polar distance heuristic: %10.3f ms, %.1f expansions/query", polar,
+                (double) polarExpanded / count));
+        System.out.println(String.format("  AStar, oracle heuristic:         %10.3f ms, %.1f expansions/query", guided,
+                (double) oracleExpanded / count));
+        System.out.println(String.format("  oracle cost only:                %10.3f ms", direct));
+    }
+
+    public static void benchmarkTrace(int[] sizes) {
+        /**
+         * Compare the object-mode searches with their step-by-step trace and without a listener, on the longest
+         * query across grids with N circles, from the innermost circle to the opposite side of the outermost one. The trace is printed to a stream that discards it, so the difference is the
+         * cost of building the trace rather than of the terminal.
+         */
+        PrintStream discard = new PrintStream(OutputStream.nullOutputStream());
+        SearchListener console = new ConsoleTraceListener(discard);
+        for (int n : sizes) {
+            int noOfCircles = n - 1;
+            System.out.println("Object-mode searches from (1,0) to (" + noOfCircles + ",180) on N = " + n + ":");
+            for (String algorithm : Arrays.asList("BFS", "DFS", "BestF", "AStar")) {
+                Search search = State.getSearch(algorithm);
+                Task task = () -> search.search(new State(1, 0, noOfCircles),
+                        new State(noOfCircles, 180, noOfCircles));
+                search.setListener(console);
+                double traced = timeMillis(task);
+                search.setListener(null);
+                double quiet = timeMillis(task);
+                System.out.println(String.format("  %-5s traced: %10.3f ms   quiet: %10.3f ms   (%.1fx)", algorithm,
+                        traced, quiet, traced / quiet));
+            }
+        }
+    }
+
+    static class Measurement {
+        /**
+         * Result of one benchmark of the suite, averaged over all operations of the measurement window.
+         */
+        double opsPerSecond;
+        double microsPerOp;
+        // -1 if the JVM can't measure per-thread allocation
+        double bytesPerOp;
+        double nodesPerOp;
+    }
+
+    public static Measurement measure(Task task) {
+        /**
+         * Run the task repeatedly for WARMUP_NANOS to let the JIT settle, then for MEASUREMENT_NANOS.
+         * The task returns the number of nodes it expanded, as a Number.
+         */
+        for (long start = System.nanoTime(); System.nanoTime() - start < WARMUP_NANOS; ) {
+            task.run();
+        }
+        long ops = 0;
+        double nodes = 0;
+        long startBytes = SearchMetrics.allocatedBytes();
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            nodes += ((Number) task.run()).doubleValue();
+            ops += 1;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < MEASUREMENT_NANOS);
+        long endBytes = SearchMetrics.allocatedBytes();
+
+        Measurement measurement = new Measurement();
+        measurement.opsPerSecond = ops * 1e9 / elapsed;
+        measurement.microsPerOp = elapsed / 1e3 / ops;
+        measurement.bytesPerOp = startBytes < 0 ? -1 : (double) (endBytes - startBytes) / ops;
+        measurement.nodesPerOp = nodes / ops;
+        return measurement;
+    }
+
+    public static Task packedTask(String algorithm, PolarGrid grid, int source, int goal) {
+        /**
+         * One query of the packed search mode, with its scratch arrays allocated once up front.
+         */
+        SearchScratch scratch = new SearchScratch(grid);
+        if (algorithm.startsWith("Bidirec/")) {
+            String bidirec_algo = algorithm.substring("Bidirec/".length());
+            SearchScratch goalScratch = new SearchScratch(grid);
+            return () -> {
+                new BidirectionalSearch().search(grid, source, goal, bidirec_algo, scratch, goalScratch);
+                return scratch.expanded + goalScratch.expanded;
+            };
+        }
+        Search search = State.getSearch(algorithm);
+        return () -> {
+            search.search(grid, source, goal, scratch);
+            return scratch.expanded;
+        };
+    }
+
+    public static Task objectTask(String algorithm, int noOfCircles, int[] source, int[] goal) {
+        /**
+         * One query of the object mode without tracing, or null for bidirectional search, which always traces.
+         * Every query gets a new search instance as in A1main, since some keep their explored states in a field.
+         * Object-mode searches don't count expansions, so the nodes reported are the explored states returned.
+         */
+        if (algorithm.startsWith("Bidirec/")) {
+            return null;
+        }
+        return () -> {
+            Search search = State.getSearch(algorithm);
+            search.setListener(null);
+            return search.search(new State(source[0], source[1], noOfCircles),
+                    new State(goal[0], goal[1], noOfCircles)).size();
+        };
+    }
+
+    public static void benchmarkSuite(int[] sizes) {
+        /**
+         * Sweep grid size, start/goal distance and algorithm, in both search modes, and print throughput, average
+         * latency, allocation and nodes expanded per query. Queries start at (1,0); a goal at distance d lies on
+         * circle d * (N - 1) and meridian d * 180, but at least one circle and one meridian away from the start, so
+         * d = 1.0 is the opposite side of the outermost circle.
+         */
+        System.out.println(String.format("%-14s %-6s %6s %5s %14s %12s %14s %12s", "algorithm", "mode", "N",
+                "dist", "ops/s", "us/op", "bytes/op", "nodes/op"));
+        for (int n : sizes) {
+            int noOfCircles = n - 1;
+            PolarGrid grid = PolarGrid.forCircles(noOfCircles);
+            for (double distance : DISTANCES) {
+                int[] source = {1, 0};
+                int[] goal = {Math.max(1, (int) Math.round(distance * noOfCircles)),
+                        Math.max(1, (int) Math.round(distance * 4)) * 45};
+                for (String algorithm : SUITE_ALGORITHMS) {
+                    Task packed = packedTask(algorithm, grid, grid.getId(source[0], source[1]),
+                            grid.getId(goal[0], goal[1]));
+                    printMeasurement(algorithm, "packed", n, distance, measure(packed));
+                    Task object = objectTask(algorithm, noOfCircles, source, goal);
+                    if (object != null) {
+                        printMeasurement(algorithm, "object", n, distance, measure(object));
+                    }
+                }
+            }
+        }
+    }
+
+    private static void printMeasurement(String algorithm, String mode, int n, double distance, Measurement m) {
+        System.out.println(String.format("%-14s %-6s %6d %5.1f %14.1f %12.3f %14s %12.1f", algorithm, mode, n,
+                distance, m.opsPerSecond, m.microsPerOp, m.bytesPerOp < 0 ? "n/a" : String.format("%.0f", m.bytesPerOp),
+                m.nodesPerOp));
+    }
+
+    public static void benchmarkBounded(int count, int noOfCircles, int[] budgets) {
+        /**
+         * Compare AStar with IDA* and SMA* under each node budget on random queries: wall time, expansions,
+         * re-expansions and peak nodes in memory per query, and how many paths were costlier than AStar's or missing.
+         */
+        List<Query> queries = randomQueries(count, noOfCircles, "AStar", 11);
+        PolarGrid grid = PolarGrid.forCircles(noOfCircles);
+        SearchScratch scratch = new SearchScratch(grid);
+        int[] sources = new int[count];
+        int[] goals = new int[count];
+        double[] costs = new double[count];
+        AStarSearch aStar = new AStarSearch();
+        long aStarExpanded = 0;
+        for (int i = 0; i < count; i++) {
+            Query query = queries.get(i);
+            sources[i] = grid.getId(query.sourceCircle, query.sourceMeridian);
+            goals[i] = grid.getId(query.goalCircle, query.goalMeridian);
+            costs[i] = grid.getPathCost(aStar.search(grid, sources[i], goals[i], scratch));
+            aStarExpanded += scratch.expanded;
+        }
+        double aStarMillis = timeMillis(() -> {
+            for (int i = 0; i < count; i++) {
+                aStar.search(grid, sources[i], goals[i], scratch);
+            }
+            return null;
+        });
+        System.out.println(count + " random queries on N = " + (noOfCircles + 1) + ", per query:");
+        System.out.println(String.format("  %-8s %8s %12s %12s %14s %10s %10s", "search", "budget", "ms",
+                "expansions", "re-expansions", "peak nodes", "worse/none"));
+        System.out.println(String.format("  %-8s %8s %12.3f %12.1f %14s %10s %10s", "AStar", "-",
+                aStarMillis / count, (double) aStarExpanded / count, "-", "-", "-"));
+        for (int budget : budgets) {
+            for (MemoryBoundedSearch search : Arrays.asList(new IDAStarSearch(budget), new SMAStarSearch(budget))) {
+                long expansions = 0;
+                long reExpansions = 0;
+                long peakNodes = 0;
+                int worse = 0;
+                for (int i = 0; i < count; i++) {
+                    int[] path = search.search(grid, sources[i], goals[i], scratch);
+                    expansions += search.getExpansions();
+                    reExpansions += search.getReExpansions();
+                    peakNodes += search.getPeakNodes();
+                    if (path.length == 0 || grid.getPathCost(path) > costs[i] + 1e-9) {
+                        worse += 1;
+                    }
+                }
+                double millis = timeMillis(() -> {
+                    for (int i = 0; i < count; i++) {
+                        search.search(grid, sources[i], goals[i], scratch);
+                    }
+                    return null;
+                });
+                System.out.println(String.format("  %-8s %8d %12.3f %12.1f %14.1f %10.1f %10d",
+                        search instanceof IDAStarSearch ? "IDAStar" : "SMAStar", budget, millis / count,
+                        (double) expansions / count, (double) reExpansions / count, (double) peakNodes / count, worse));
+            }
+        }
+    }
+
+    public static void benchmarkReplan(int changes, int noOfCircles, boolean onPath) {
+        /**
+         * Replan the longest query, from (1,0) to the opposite side of the outermost circle, after each of "changes"
+         * random cost changes (raised, closed, or reset) to a transition of the current path, or to any transition
+         * of the grid, once with LPAStarPlanner and once with a new AStar search on the cost map. Both must agree on
+         * the cost every time.
+         */
+        PolarGrid grid = PolarGrid.forCircles(noOfCircles);
+        CostMap costMap = new CostMap(grid);
+        int source = grid.getId(1, 0);
+        int goal = grid.getId(noOfCircles, 180);
+        LPAStarPlanner planner = new LPAStarPlanner(costMap, source, goal);
+        AStarSearch aStar = new AStarSearch(costMap);
+        SearchScratch scratch = new SearchScratch(grid);
+        Random random = new Random(5);
+
+        long start = System.nanoTime();
+        int[] path = planner.plan();
+        double initialMillis = (System.nanoTime() - start) / 1e6;
+        long initialExpansions = planner.getExpansions();
+        long replanNanos = 0;
+        long searchNanos = 0;
+        long replanExpansions = 0;
+        long searchExpansions = 0;
+        for (int i = 0; i < changes; i++) {
+            if (path.length < 2) {
+                // the goal got cut off, so reopen everything and carry on
+                costMap = new CostMap(grid);
+                planner = new LPAStarPlanner(costMap, source, goal);
+                aStar = new AStarSearch(costMap);
+                path = planner.plan();
+            }
+            int from;
+            int to;
+            if (onPath) {
+                int hop = random.nextInt(path.length - 1);
+                from = path[hop];
+                to = path[hop + 1];
+            } else {
+                from = grid.getId(random.nextInt(noOfCircles) + 1, random.nextInt(8) * 45);
+                to = grid.getNeighbour(from, random.nextInt(2));
+            }
+            int kind = random.nextInt(4);
+            if (kind == 0) {
+                costMap.close(from, to);
+            } else if (kind == 1) {
+                costMap.reset(from, to);
+            } else {
+                costMap.setCost(from, to, grid.getDistance(from, to) * (1 + 4 * random.nextDouble()));
+            }
+            start = System.nanoTime();
+            path = planner.plan();
+            replanNanos += System.nanoTime() - start;
+            replanExpansions += planner.getExpansions();
+            start = System.nanoTime();
+            int[] searched = aStar.search(grid, source, goal, scratch);
+            searchNanos += System.nanoTime() - start;
+            searchExpansions += scratch.expanded;
+            double searchedCost = searched.length == 0 ? Double.POSITIVE_INFINITY : costMap.getPathCost(searched);
+            if (Math.abs(planner.getPathCost() - searchedCost) > 1e-9 && planner.getPathCost() != searchedCost) {
+                throw new IllegalStateException("LPA* and AStar disagree after change " + i);
+            }
+        }
+        System.out.println("Replanning (1,0) -> (" + noOfCircles + ",180) on N = " + (noOfCircles + 1) + " after " +
+                changes + " cost changes " + (onPath ? "on the path:" : "anywhere:"));
+        System.out.println(String.format("  initial LPA* plan:   %10.3f ms, %d expansions", initialMillis,
+                initialExpansions));
+        System.out.println(String.format("  LPA* replan:         %10.3f ms, %.1f expansions per change",
+                replanNanos / 1e6 / changes, (double) replanExpansions / changes));
+        System.out.println(String.format("  AStar from scratch:  %10.3f ms, %.1f expansions per change",
+                searchNanos / 1e6 / changes, (double) searchExpansions / changes));
+    }
+
+    public static void benchmarkCache(int count, int noOfCircles, int pairs, int capacity) {
+        /**
+         * Answer a skewed stream of AStar queries, drawn from "pairs" origin/destination pairs with the most popular
+         * pairs asked most often and each query flown either way, with and without a RouteCache.
+         */
+        List<Query> distinct = randomQueries(pairs, noOfCircles, "AStar", 13);
+        Random random = new Random(17);
+        List<Query> queries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            // cubing a uniform number favours the first pairs heavily
+            double u = random.nextDouble();
+            Query pair = distinct.get((int) (u * u * u * pairs));
+            queries.add(random.nextBoolean() ? pair : new Query(i, "AStar", noOfCircles, pair.goalCircle,
+                    pair.goalMeridian, pair.sourceCircle, pair.sourceMeridian, null));
+        }
+        List<Route> expected;
+        try (SearchExecutor executor = new SearchExecutor(1)) {
+            expected = executor.solveAll(queries);
+        }
+        RouteCache cache = new RouteCache(capacity);
+        try (SearchExecutor executor = new SearchExecutor(1, cache)) {
+            List<Route> cached = executor.solveAll(queries);
+            for (int i = 0; i < count; i++) {
+                if (Math.abs(cached.get(i).totalPathCost - expected.get(i).totalPathCost) > 1e-9) {
+                    throw new IllegalStateException("Cached route is costlier for " + queries.get(i));
+                }
+            }
+        }
+        System.out.println(count + " AStar queries over " + pairs + " pairs on N = " + (noOfCircles + 1) + ":");
+        try (SearchExecutor executor = new SearchExecutor(1)) {
+            System.out.println(String.format("  no cache:          %10.3f ms", timeMillis(() ->
+                    executor.solveAll(queries))));
+        }
+        // every timed run starts from an empty cache, so the hit rate isn't inflated by earlier runs
+        double millis = timeMillis(() -> {
+            try (SearchExecutor executor = new SearchExecutor(1, new RouteCache(capacity))) {
+                return executor.solveAll(queries);
+            }
+        });
+        System.out.println(String.format("  cache of %6d:    %10.3f ms", capacity, millis));
+        System.out.println("  " + cache);
+    }
+
+    public static void benchmarkSymmetry(int count, int noOfCircles) {
+        /**
+         * For random BFS, AStar and DFS queries, compare the number of distinct queries with the number of routes
+         * the RouteCache stores once equivalent queries share their canonical form, and time the queries with and
+         * without an unbounded cache.
+         */
+        System.out.println(count + " random queries on N = " + (noOfCircles + 1) + ":");
+        for (String algorithm : Arrays.asList("BFS", "AStar", "DFS")) {
+            List<Query> queries = randomQueries(count, noOfCircles, algorithm, 19);
+            Set<String> distinct = new HashSet<>();
+            for (Query query : queries) {
+                distinct.add(query.toString());
+            }
+            RouteCache cache = new RouteCache(count);
+            try (SearchExecutor executor = new SearchExecutor(1, cache)) {
+                executor.solveAll(queries);
+            }
+            double uncached;
+            try (SearchExecutor executor = new SearchExecutor(1)) {
+                uncached = timeMillis(() -> executor.solveAll(queries));
+            }
+            double cached = timeMillis(() -> {
+                try (SearchExecutor executor = new SearchExecutor(1, new RouteCache(count))) {
+                    return executor.solveAll(queries);
+                }
+            });
+            System.out.println(String.format("  %-5s %7d distinct queries, %7d cached routes (%.1fx fewer), " +
+                    "%8.3f ms uncached, %8.3f ms cached", algorithm, distinct.size(), cache.size(),
+                    (double) distinct.size() / cache.size(), uncached, cached));
+        }
+    }
+
+    public static void benchmarkStream(int[] sizes) {
+        /**
+         * Compare the memory allocated by object-mode searches, which return every explored state, with the packed
+         * searches streaming their expansions to a sink that only counts them, on the longest query of every grid.
+         * The streaming searches reuse their scratch, so they allocate only the path whatever the number of states
+         * they explore.
+         */
+        for (int n : sizes) {
+            int noOfCircles = n - 1;
+            PolarGrid grid = PolarGrid.forCircles(noOfCircles);
+            int source = grid.getId(1, 0);
+            int goal = grid.getId(noOfCircles, 180);
+            System.out.println("Searches from (1,0) to (" + noOfCircles + ",180) on N = " + n + ":");
+            for (String algorithm : Arrays.asList("BFS", "DFS", "AStar")) {
+                long[] streamed = new long[1];
+                ExplorationSink counter = new ExplorationSink() {
+                    @Override
+                    public void onExpand(int id) {
+                        streamed[0] += 1;
+                    }
+
+                    @Override
+                    public void onPathNode(int id) {
+                    }
+
+                    @Override
+                    public void onFinished(boolean found, long expanded) {
+                    }
+                };
+                SearchScratch scratch = new SearchScratch(grid);
+                scratch.setSink(counter);
+                Search search = State.getSearch(algorithm);
+                Measurement streaming = measure(() -> {
+                    streamed[0] = 0;
+                    int[] path = search.search(grid, source, goal, scratch);
+                    for (int id : path) {
+                        counter.onPathNode(id);
+                    }
+                    counter.onFinished(path.length > 0, scratch.expanded);
+                    return streamed[0];
+                });
+                Measurement object = measure(objectTask(algorithm, noOfCircles, new int[]{1, 0},
+                        new int[]{noOfCircles, 180}));
+                System.out.println(String.format("  %-5s object: %10.0f explored %12.0f B/query   " +
+                        "streaming: %10.0f expanded %10.0f B/query", algorithm, object.nodesPerOp,
+                        object.bytesPerOp, streaming.nodesPerOp, streaming.bytesPerOp));
+            }
+        }
+    }
+
+    public static void benchmarkResolution(int n, int[] resolutions) {
+        /**
+         * Scale the angular resolution of a world of N circles, and time the packed searches on a query across the
+         * pole, from (1, 0) to the opposite meridian of the outermost circle, and on a quarter turn along the middle
+         * circle. AStar's costs are checked against DistanceOracle on every grid.
+         */
+        int noOfCircles = n - 1;
+        for (int meridians : resolutions) {
+            long startTime = System.nanoTime();
+            PolarGrid grid = PolarGrid.withResolution(noOfCircles, meridians);
+            double buildMillis = (System.nanoTime() - startTime) / 1e6;
+            DistanceOracle oracle = new DistanceOracle(grid);
+            System.out.println(String.format("%d meridians on N = %d: %d nodes, built in %.3f ms", meridians, n,
+                    grid.getNodeCount(), buildMillis));
+            int[][] queries = {{grid.getIdOfIndex(1, 0), grid.getIdOfIndex(noOfCircles, meridians / 2)},
+                    {grid.getIdOfIndex(n / 2, 0), grid.getIdOfIndex(n / 2, meridians / 4)}};
+            String[] names = {"across", "quarter"};
+            for (int q = 0; q < queries.length; q++) {
+                int source = queries[q][0];
+                int goal = queries[q][1];
+                for (String algorithm : Arrays.asList("BFS", "BestF", "AStar", "AStar/Oracle")) {
+                    Search search = algorithm.equals("AStar/Oracle") ? new AStarSearch(oracle) :
+                            State.getSearch(algorithm);
+                    SearchScratch scratch = new SearchScratch(grid);
+                    int[] path = search.search(grid, source, goal, scratch);
+                    double cost = grid.getPathCost(path);
+                    if (algorithm.startsWith("AStar") && Math.abs(cost - oracle.getCost(source, goal)) > 1e-9) {
+                        throw new IllegalStateException(algorithm + " found a path of cost " + cost +
+                                " but the cheapest costs " + oracle.getCost(source, goal));
+                    }
+                    Measurement m = measure(() -> {
+                        search.search(grid, source, goal, scratch);
+                        return scratch.expanded;
+                    });
+                    System.out.println(String.format("  %-7s %-12s %10.0f expanded %12.1f us/query   cost %.3f",
+                            names[q], algorithm, m.nodesPerOp, m.microsPerOp, cost));
+                }
+            }
+        }
+    }
+
+    public static void benchmarkAnytime(int count, int n, int meridians, double[] deadlines) {
+        /**
+         * Run ARA* on random queries of a fine-grained world under several deadlines, and compare the routes it
+         * returns with the cheapest ones from DistanceOracle. Every solution reported must be within its bound.
+         */
+        int noOfCircles = n - 1;
+        PolarGrid grid = PolarGrid.withResolution(noOfCircles, meridians);
+        DistanceOracle oracle = new DistanceOracle(grid);
+        SearchScratch scratch = new SearchScratch(grid);
+        Random random = new Random(23);
+        int[] sources = new int[count];
+        int[] goals = new int[count];
+        for (int i = 0; i < count; i++) {
+            sources[i] = grid.getIdOfIndex(random.nextInt(noOfCircles) + 1, random.nextInt(meridians));
+            goals[i] = grid.getIdOfIndex(random.nextInt(noOfCircles) + 1, random.nextInt(meridians));
+        }
+        // warm up ARA* without a deadline, so the first deadlines aren't spent compiling
+        ARAStarSearch warmUp = new ARAStarSearch();
+        for (int i = 0; i < count; i++) {
+            warmUp.search(grid, sources[i], goals[i], scratch);
+        }
+        AStarSearch aStar = new AStarSearch();
+        double aStarMillis = timeMillis(() -> {
+            for (int i = 0; i < count; i++) {
+                aStar.search(grid, sources[i], goals[i], scratch);
+            }
+            return null;
+        });
+        System.out.println(String.format("%d random queries on N = %d with %d meridians; AStar: %.3f ms/query",
+                count, n, meridians, aStarMillis / count));
+        for (double deadline : deadlines) {
+            ARAStarSearch ara = new ARAStarSearch(deadline == 0 ? Long.MAX_VALUE : (long) (deadline * 1e6),
+                    Long.MAX_VALUE);
+            int solved = 0;
+            double ratios = 0;
+            double bounds = 0;
+            double firstMillis = 0;
+            long startTime = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                ara.search(grid, sources[i], goals[i], scratch);
+                double cheapest = oracle.getCost(sources[i], goals[i]);
+                for (ARAStarSearch.Solution solution : ara.getSolutions()) {
+                    if (solution.cost > solution.bound * cheapest + 1e-9) {
+                        throw new IllegalStateException("ARA* route of cost " + solution.cost + " beyond its bound " +
+                                solution.bound + " of the cheapest " + cheapest);
+                    }
+                }
+                if (!ara.getSolutions().isEmpty()) {
+                    ARAStarSearch.Solution best = ara.getSolutions().get(ara.getSolutions().size() - 1);
+                    solved += 1;
+                    ratios += cheapest == 0 ? 1 : best.cost / cheapest;
+                    bounds += best.bound;
+                    firstMillis += ara.getSolutions().get(0).nanos / 1e6;
+                }
+            }
+            double millis = (System.nanoTime() - startTime) / 1e6;
+            System.out.println(String.format("  deadline %-9s %5.1f%% solved, cost/cheapest %.4f, bound %.4f, " +
+                    "first route after %.3f ms, %.3f ms/query", deadline == 0 ? "none" : deadline + " ms",
+                    100.0 * solved / count, ratios / Math.max(solved, 1), bounds / Math.max(solved, 1),
+                    firstMillis / Math.max(solved, 1), millis / count));
+        }
+    }
+
+    public static int[] queueDistances(PolarGrid grid, SearchScratch scratch, int[] sources) {
+        /**
+         * Multi-source BFS with the int queue of the packed mode, as a reference for BitParallelBFS.getDistances().
+         */
+        int[] distances = new int[grid.getNodeCount()];
+        Arrays.fill(distances, -1);
+        scratch.reset();
+        for (int source : sources) {
+            scratch.visit(source, PolarGrid.NO_NODE);
+            distances[source] = 0;
+            scratch.addLast(source);
+        }
+        while (!scratch.isDequeEmpty()) {
+            int state = scratch.pollFirst();
+            for (int k = 0; k < PolarGrid.MAX_NEIGHBOURS; k++) {
+                int child = grid.getNeighbour(state, k);
+                if (child == PolarGrid.NO_NODE) {
+                    break;
+                }
+                if (!scratch.isVisited(child)) {
+                    scratch.visit(child, state);
+                    distances[child] = distances[state] + 1;
+                    scratch.addLast(child);
+                }
+            }
+        }
+        return distances;
+    }
+
+    public static void benchmarkBitParallel(int n, int[] resolutions) {
+        /**
+         * Compare the packed BFS with BitParallelBFS on the query across the pole, and the int-queue multi-source
+         * BFS with BitParallelBFS.getDistances() on the distance field of 1 and of 64 random sources, on worlds of
+         * N circles and increasing angular resolution. The distance fields of both are checked to be equal.
+         */
+        int noOfCircles = n - 1;
+        for (int meridians : resolutions) {
+            PolarGrid grid = meridians == PolarGrid.MERIDIANS ? PolarGrid.forCircles(noOfCircles) :
+                    PolarGrid.withResolution(noOfCircles, meridians);
+            SearchScratch scratch = new SearchScratch(grid);
+            BitParallelBFS bitBfs = new BitParallelBFS(grid);
+            BreadthFirstSearch bfs = new BreadthFirstSearch();
+            int source = grid.getIdOfIndex(1, 0);
+            int goal = grid.getIdOfIndex(noOfCircles, meridians / 2);
+            System.out.println(String.format("%d meridians on N = %d (%d nodes):", meridians, n, grid.getNodeCount()));
+            Measurement queue = measure(() -> {
+                bfs.search(grid, source, goal, scratch);
+                return scratch.expanded;
+            });
+            Measurement bits = measure(() -> {
+                bitBfs.search(grid, source, goal, scratch);
+                return scratch.expanded;
+            });
+            System.out.println(String.format("  across the pole:   BFS %10.1f us   BitBFS %10.1f us   (%.1fx)",
+                    queue.microsPerOp, bits.microsPerOp, queue.microsPerOp / bits.microsPerOp));
+            Random random = new Random(29);
+            for (int count : new int[]{1, 64}) {
+                int[] sources = new int[count];
+                for (int i = 0; i < count; i++) {
+                    sources[i] = grid.getIdOfIndex(random.nextInt(noOfCircles) + 1, random.nextInt(meridians));
+                }
+                if (!Arrays.equals(queueDistances(grid, scratch, sources), bitBfs.getDistances(grid, sources))) {
+                    throw new IllegalStateException("BitParallelBFS distances differ from BFS");
+                }
+                Measurement queueField = measure(() -> queueDistances(grid, scratch, sources).length);
+                Measurement bitField = measure(() -> bitBfs.getDistances(grid, sources).length);
+                System.out.println(String.format("  field, %2d sources: BFS %10.1f us   BitBFS %10.1f us   (%.1fx)",
+                        count, queueField.microsPerOp, bitField.microsPerOp,
+                        queueField.microsPerOp / bitField.microsPerOp));
+            }
+        }
+    }
+
+    public static void checkSmallBudgets(int n, int meridians) {
+        /**
+         * Check that SMA* gives up within a handful of expansions, instead of trying every path the budget can hold,
+         * on every query of a world of N circles whose fewest hops don't fit in the node budget.
+         */
+        int noOfCircles = n - 1;
+        PolarGrid grid = PolarGrid.withResolution(noOfCircles, meridians);
+        SearchScratch scratch = new SearchScratch(grid);
+        long expansions = 0;
+        for (int source = meridians; source < grid.getNodeCount(); source++) {
+            for (int goal = meridians; goal < grid.getNodeCount(); goal++) {
+                for (int budget = 2; budget <= grid.getHops(source, goal); budget++) {
+                    SMAStarSearch search = new SMAStarSearch(budget);
+                    int[] path = search.search(grid, source, goal, scratch);
+                    if (path.length > 0 || search.getExpansions() > budget) {
+                        throw new IllegalStateException("SMA* with a budget of " + budget + " took " +
+                                search.getExpansions() + " expansions from " + source + " to " + goal);
+                    }
+                    expansions += search.getExpansions();
+                }
+            }
+        }
+        System.out.println("SMA* gives up on budgets below the fewest hops of N = " + n + " with " + meridians +
+                " meridians after " + expansions + " expansions in all");
+    }
+
+    public static void checkDepthFirstPaths(int n) {
+        /**
+         * Check that DFS on State objects and the packed DFS return the same path for every pair of positions of a
+         * world of N circles, since both follow the parent of the last push of a position.
+         */
+        int noOfCircles = n - 1;
+        PolarGrid grid = PolarGrid.forCircles(noOfCircles);
+        SearchScratch scratch = new SearchScratch(grid);
+        DepthFirstSearch dfs = new DepthFirstSearch();
+        dfs.setListener(null);
+        for (int source = 0; source < grid.getNodeCount(); source++) {
+            State start = grid.toState(source);
+            if (!grid.contains(start.getCircle(), start.getMeridian())) {
+                continue;
+            }
+            for (int goal = 0; goal < grid.getNodeCount(); goal++) {
+                State end = grid.toState(goal);
+                if (!grid.contains(end.getCircle(), end.getMeridian())) {
+                    continue;
+                }
+                dfs.search(start, end);
+                List<State> path = State.tracePath(dfs.getGoalState(), "parent");
+                int[] packed = dfs.search(grid, source, goal, scratch);
+                boolean same = path.size() == packed.length;
+                for (int i = 0; same && i < packed.length; i++) {
+                    same = grid.getId(path.get(i).getCircle(), path.get(i).getMeridian()) == packed[i];
+                }
+                if (!same) {
+                    throw new IllegalStateException("Object and packed DFS disagree from " + start.getCircle() +
+                            "," + start.getMeridian() + " to " + end.getCircle() + "," + end.getMeridian());
+                }
+            }
+        }
+        System.out.println("Object and packed DFS agree on every query of N = " + n);
+    }
+
+    public static void benchmarkDepthLimited(int n, int[] resolutions) {
+        /**
+         * Compare the packed DFS, which pushes every neighbour on a deque and keeps parents in the scratch, with
+         * DepthLimitedSearch without a limit, with a limit of the fewest hops, and with iterative deepening, on the
+         * query across the pole of worlds of N circles and increasing angular resolution. Iterative deepening
+         * re-expands the nodes within every limit, so it only runs on grids of up to ITERATIVE_DEEPENING_NODES nodes.
+         */
+        int noOfCircles = n - 1;
+        for (int meridians : resolutions) {
+            PolarGrid grid = meridians == PolarGrid.MERIDIANS ? PolarGrid.forCircles(noOfCircles) :
+                    PolarGrid.withResolution(noOfCircles, meridians);
+            SearchScratch scratch = new SearchScratch(grid);
+            int source = grid.getIdOfIndex(1, 0);
+            int goal = grid.getIdOfIndex(noOfCircles, meridians / 2);
+            int hops = new BreadthFirstSearch().search(grid, source, goal, scratch).length - 1;
+            System.out.println(String.format("%d meridians on N = %d (%d nodes, %d hops across the pole):",
+                    meridians, n, grid.getNodeCount(), hops));
+            Search dfs = new DepthFirstSearch();
+            int[] path = dfs.search(grid, source, goal, scratch);
+            Measurement packed = measure(() -> {
+                dfs.search(grid, source, goal, scratch);
+                return scratch.expanded;
+            });
+            System.out.println(String.format("  %-16s %10.1f us %10.0f expanded %8.0f B/query   path %6d hops",
+                    "DFS", packed.microsPerOp, packed.nodesPerOp, packed.bytesPerOp, path.length - 1));
+            DepthLimitedSearch[] variants = {new DepthLimitedSearch(),
+                    new DepthLimitedSearch(hops, false), new DepthLimitedSearch(DepthLimitedSearch.NO_LIMIT, true)};
+            String[] names = {"compact DFS", "limit " + hops, "iterative"};
+            for (int i = 0; i < variants.length; i++) {
+                DepthLimitedSearch search = variants[i];
+                if (search.isIterativeDeepening() && grid.getNodeCount() > ITERATIVE_DEEPENING_NODES) {
+                    System.out.println(String.format("  %-16s skipped above %d nodes", names[i],
+                            ITERATIVE_DEEPENING_NODES));
+                    continue;
+                }
+                path = search.search(grid, source, goal, scratch);
+                Measurement measurement = measure(() -> {
+                    search.search(grid, source, goal, scratch);
+                    return search.getExpansions();
+                });
+                System.out.println(String.format("  %-16s %10.1f us %10.0f expanded %8.0f B/query   path %6d " +
+                        "hops, %d iterations, stack depth %d", names[i], measurement.microsPerOp,
+                        measurement.nodesPerOp, measurement.bytesPerOp, path.length - 1, search.getIterations(),
+                        search.getPeakDepth()));
+            }
+        }
+    }
+
+    public static void main(String[] args) {
+        String mode = args.length > 0 ? args[0] : "path";
+        if (mode.equals("path")) {
+            int exploredStates = args.length > 1 ? Integer.parseInt(args[1]) : 2000000;
+            int pathLength = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+            benchmarkPath(exploredStates, pathLength);
+        } else if (mode.equals("parallel")) {
+            int count = args.length > 1 ? Integer.parseInt(args[1]) : 20000;
+            int noOfCircles = args.length > 2 ? Integer.parseInt(args[2]) - 1 : 100;
+            benchmarkParallel(count, noOfCircles);
+        } else if (mode.equals("oracle")) {
+            int count = args.length > 1 ? Integer.parseInt(args[1]) : 5000;
+            int noOfCircles = args.length > 2 ? Integer.parseInt(args[2]) - 1 : 100;
+            benchmarkOracle(count, noOfCircles);
+        } else if (mode.equals("trace")) {
+            int[] sizes = args.length > 1 ? Arrays.stream(args, 1, args.length).mapToInt(Integer::parseInt).toArray() :
+                    new int[]{50, 100, 200};
+            benchmarkTrace(sizes);
+        } else if (mode.equals("suite")) {
+            int[] sizes = args.length > 1 ? Arrays.stream(args, 1, args.length).mapToInt(Integer::parseInt).toArray() :
+                    new int[]{10, 100, 1000};
+            benchmarkSuite(sizes);
+        } else if (mode.equals("bounded")) {
+            int count = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+            int noOfCircles = args.length > 2 ? Integer.parseInt(args[2]) - 1 : 50;
+            int[] budgets = args.length > 3 ? Arrays.stream(args, 3, args.length).mapToInt(Integer::parseInt).toArray() :
+                    new int[]{128, 512, 4096};
+            checkSmallBudgets(6, 16);
+            benchmarkBounded(count, noOfCircles, budgets);
+        } else if (mode.equals("replan")) {
+            int changes = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+            int noOfCircles = args.length > 2 ? Integer.parseInt(args[2]) - 1 : 500;
+            benchmarkReplan(changes, noOfCircles, false);
+            benchmarkReplan(changes, noOfCircles, true);
+        } else if (mode.equals("cache")) {
+            int count = args.length > 1 ? Integer.parseInt(args[1]) : 100000;
+            int noOfCircles = args.length > 2 ? Integer.parseInt(args[2]) - 1 : 100;
+            int pairs = args.length > 3 ? Integer.parseInt(args[3]) : 5000;
+            int capacity = args.length > 4 ? Integer.parseInt(args[4]) : 1000;
+            benchmarkCache(count, noOfCircles, pairs, capacity);
+        } else if (mode.equals("bitbfs")) {
+            int n = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+            benchmarkBitParallel(n, args.length > 2 ? Arrays.stream(args, 2, args.length)
+                    .mapToInt(Integer::parseInt).toArray() : new int[]{8, 64, 512, 4096});
+        } else if (mode.equals("dfs")) {
+            int n = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+            checkDepthFirstPaths(5);
+            benchmarkDepthLimited(n, args.length > 2 ? Arrays.stream(args, 2, args.length)
+                    .mapToInt(Integer::parseInt).toArray() : new int[]{8, 64, 512});
+        } else if (mode.equals("anytime")) {
+            int count = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+            int n = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+            int meridians = args.length > 3 ? Integer.parseInt(args[3]) : 1024;
+            benchmarkAnytime(count, n, meridians, args.length > 4 ? Arrays.stream(args, 4, args.length)
+                    .mapToDouble(Double::parseDouble).toArray() : new double[]{0.05, 0.2, 1, 5, 0});
+        } else if (mode.equals("resolution")) {
+            int n = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+            benchmarkResolution(n, args.length > 2 ? Arrays.stream(args, 2, args.length)
+                    .mapToInt(Integer::parseInt).toArray() : new int[]{8, 16, 32, 64, 128, 256, 512, 1024, 2048, 4096});
+        } else if (mode.equals("stream")) {
+            benchmarkStream(args.length > 1 ? Arrays.stream(args, 1, args.length).mapToInt(Integer::parseInt)
+                    .toArray() : new int[]{10, 100, 1000});
+        } else if (mode.equals("symmetry")) {
+            int count = args.length > 1 ? Integer.parseInt(args[1]) : 100000;
+            int noOfCircles = args.length > 2 ? Integer.parseInt(args[2]) - 1 : 20;
+            benchmarkSymmetry(count, noOfCircles);
+        } else {
+            System.out.println("How to run the benchmarks:\n");
+            System.out.println("java A1benchmark path [explored states] [path length]");
+            System.out.println("java A1benchmark parallel [queries] [N]");
+            System.out.println("java A1benchmark oracle [queries] [N]");
+            System.out.println("java A1benchmark trace [N...]");
+            System.out.println("java A1benchmark suite [N...]");
+            System.out.println("java A1benchmark bounded [queries] [N] [node budget...]");
+            System.out.println("java A1benchmark replan [changes] [N]");
+            System.out.println("java A1benchmark cache [queries] [N] [distinct pairs] [capacity]");
+            System.out.println("java A1benchmark symmetry [queries] [N]");
+            System.out.println("java A1benchmark stream [N...]");
+            System.out.println("java A1benchmark resolution [N] [meridians...]");
+            System.out.println("java A1benchmark anytime [queries] [N] [meridians] [deadline ms...]");
+            System.out.println("java A1benchmark bitbfs [N] [meridians...]");
+            System.out.println("java A1benchmark dfs [N] [meridians...]");
+        }
+    }
+}
@@ -1,11 +1,31 @@
+import java.io.BufferedReader;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
 import java.security.spec.ECField;
 import java.util.Arrays;
 
 public class A1main {
     /**
      * Accepts command line arguments, resolves it to get following information:
-     *  java A1main <DFS|BFS|AStar|BestF|Bidirec> <N> <d\_s, angle\_s> <d\_g, angle\_g> [BFS|BestF]* (where, * = optional)
-     * Initiates the search based on the algorithm specified.
+     *  java A1main <DFS|BFS|AStar|BestF|IDAStar|SMAStar|ARAStar|BitBFS|IDDFS|Bidirec|Oracle> <N> <d\_s, angle\_s>
+     *      <d\_g, angle\_g> [BFS|BestF|AStar]* [--compact]* [--quiet]* [--stream]*
+     *  (where, * = optional)
+     * Initiates the search based on the algorithm specified, or answers the query with DistanceOracle for "Oracle".
+     * The algorithms accepted are those of Query.ALGORITHMS; any other one prints how to run the program. With --compact, the search runs on the packed grid
+     * representation (PolarGrid) instead of State objects and doesn't trace every step. With --quiet, the search runs
+     * on State objects without tracing every step, and only the final solution is printed. With --stream, the search
+     * runs on the packed grid and prints every state as it is expanded, without keeping a list of them.
+     *
+     * Batch mode answers one query per line (same arguments as above) from a file, or stdin if no file is given:
+     *  java A1main --batch [file] [--threads=<n>] [--cache=<routes>] [--metrics=<file>]
+     * With --cache, up to that many routes are cached, so repeated queries are answered without searching. A query
+     * can also be answered from the cached route of a rotated or reflected query (see PolarSymmetry). BFS, BitBFS
+     * and IDDFS only guarantee the fewest hops, and several routes have that many, so such an answer has the same
+     * number of hops as an uncached search but may take another route of a different total cost.
+     * With --metrics, the SearchMetrics of every search are written to the file as JSON lines.
      */
     public static int[] resolveInputString(String inputs) {
         /**
@@ -17,7 +37,61 @@ public class A1main {
         int[] input_values = Arrays.stream(values).mapToInt(Integer::parseInt).toArray();
         return input_values;
     }
+    public static void printUsage() {
+        String algorithms = String.join("|", Query.ALGORITHMS);
+        System.out.println("How to run the program:\n");
+        System.out.println("For Bidirectional search: java A1main <" + algorithms +
+                "> <N> <d\\_s,angle\\_s> <d\\_g,angle\\_g> <" + String.join("|", Query.BIDIREC_ALGORITHMS) + ">\n");
+        System.out.println("For all other search: java A1main <" + algorithms +
+                "> <N> <d\\_s,angle\\_s> <d\\_g,angle\\_g>\n");
+    }
+
+    public static void runBatch(String[] args, int workers, RouteCache cache, String metricsFile) {
+        /**
+         * Answer all queries of the file args[0], or of stdin, on a pool of "workers" threads.
+         * @param cache caches the routes, or is null.
+         * @param metricsFile receives the metrics of every search as JSON lines, or is null.
+         */
+        try (BufferedReader in = new BufferedReader(args.length > 0 ? new FileReader(args[0]) :
+                new InputStreamReader(System.in));
+             PrintStream metricsOut = metricsFile == null ? null : new PrintStream(new FileOutputStream(metricsFile))) {
+            long startTime = System.nanoTime();
+            int answered = new BatchRunner(workers, System.out, cache, metricsOut).run(in);
+            double seconds = (System.nanoTime() - startTime) / 1e9;
+            System.err.println(String.format("Answered %d queries in %.3f s (%.1f queries/s) on %d threads",
+                    answered, seconds, answered / seconds, workers));
+            if (cache != null) {
+                System.err.println(cache);
+            }
+        } catch (IOException e) {
+            System.out.println("Couldn't read the queries: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
     public static void main(String[] args) {
+        // separate the optional flags from the positional arguments
+        boolean compact = Arrays.asList(args).contains("--compact");
+        boolean batch = Arrays.asList(args).contains("--batch");
+        boolean stream = Arrays.asList(args).contains("--stream");
+        SearchListener listener = Arrays.asList(args).contains("--quiet") ? null : new ConsoleTraceListener();
+        int workers = Arrays.stream(args).filter(arg -> arg.startsWith("--threads=")).findFirst()
+                .map(arg -> Integer.parseInt(arg.substring("--threads=".length())))
+                .orElse(Runtime.getRuntime().availableProcessors());
+        RouteCache cache = Arrays.stream(args).filter(arg -> arg.startsWith("--cache=")).findFirst()
+                .map(arg -> new RouteCache(Integer.parseInt(arg.substring("--cache=".length())))).orElse(null);
+        String metricsFile = Arrays.stream(args).filter(arg -> arg.startsWith("--metrics=")).findFirst()
+                .map(arg -> arg.substring("--metrics=".length())).orElse(null);
+        args = Arrays.stream(args).filter(arg -> !arg.startsWith("--")).toArray(String[]::new);
+        if (batch) {
+            runBatch(args, workers, cache, metricsFile);
+            return;
+        }
+        if (args.length < 4 || !Query.ALGORITHMS.contains(args[0])) {
+            printUsage();
+            return;
+        }
         String algorithm = args[0];
         int noOfCircles = Integer.parseInt(args[1]) - 1;
         String sourceNodeString = args[2];
@@ -40,20 +114,30 @@ public class A1main {
 
 
         if (algorithm.equals("Bidirec")) {
-            // initiate search for bidirectional with type of method: either BFS or BestF
+            // initiate search for bidirectional with type of method: BFS, BestF or AStar
             try {
-                goal.initiateSearch(algorithm, start, goal, args[4]);
+                if (stream) {
+                    goal.initiateStreamingSearch(algorithm, start, goal, args[4],
+                            new ConsoleExplorationSink(PolarGrid.forCircles(noOfCircles)));
+                } else if (compact) {
+                    goal.initiateCompactSearch(algorithm, start, goal, args[4]);
+                } else {
+                    goal.initiateSearch(algorithm, start, goal, args[4], listener);
+                }
             } catch (ArrayIndexOutOfBoundsException e) {
                 System.out.println(e);
-                System.out.println("How to run the program:\n");
-                System.out.println("For Bidirectional search: java A1main <DFS|BFS|AStar|BestF|Bidirec> <N> <d\\_s,angle\\_s> " +
-                        "<d\\_g,angle\\_g> <BFS|BestF>\n");
-                System.out.println("For all other search: java A1main <DFS|BFS|AStar|BestF|Bidirec> <N> <d\\_s," +
-                        "angle\\_s> <d\\_g,angle\\_g>\n");
+                printUsage();
             }
         } else {
             // initiate search for rest of methods without a fifth argument
-            goal.initiateSearch(algorithm, start, goal, null);
+            if (stream) {
+                goal.initiateStreamingSearch(algorithm, start, goal, null,
+                        new ConsoleExplorationSink(PolarGrid.forCircles(noOfCircles)));
+            } else if (compact) {
+                goal.initiateCompactSearch(algorithm, start, goal, null);
+            } else {
+                goal.initiateSearch(algorithm, start, goal, null, listener);
+            }
         }
 
     }
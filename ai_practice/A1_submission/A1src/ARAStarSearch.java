@@ -0,0 +1,236 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class ARAStarSearch implements Search {
+    /**
+     * An implementation of the search interface for anytime repairing A* (ARA*) searching, for routes that must be
+     * found before a deadline.
+     * The first iteration is a weighted A* ordered on g + epsilon * h, which expands far fewer states than A* and
+     * finds a route costing at most epsilon times the cheapest one. Every following iteration lowers epsilon by
+     * "epsilonStep" down to 1 and improves the route, reusing the g-scores found so far: only the states whose
+     * g-score dropped after they were expanded ("inconsistent" states) are put back on the frontier.
+     * After each iteration, the route found is recorded as a Solution with a bound on how far it can be from the
+     * cheapest one, which is g(goal) over the smallest g + h among the states still open or inconsistent.
+     * The search stops when the bound reaches 1, or once the time or expansion budget is spent, and returns the best
+     * route found so far; if the budget runs out before the first route is found, there is no route.
+     */
+    public static final double DEFAULT_INITIAL_EPSILON = 3;
+    public static final double DEFAULT_EPSILON_STEP = 0.5;
+    // number of expansions between two looks at the clock
+    private static final int CLOCK_INTERVAL = 32;
+
+    private final double initialEpsilon;
+    private final double epsilonStep;
+    private final long timeBudgetNanos;
+    private final long expansionBudget;
+    // the routes found by the last search, from the first to the best
+    private final List<Solution> solutions = new ArrayList<>();
+    private long expansions = 0;
+    // receives the trace of every step, if any
+    private SearchListener listener = new ConsoleTraceListener();
+
+    public static class Solution {
+        /**
+         * A route found by one iteration, and when it was found.
+         */
+        public final int[] path;
+        public final double cost;
+        public final double epsilon;
+        // the route costs at most "bound" times as much as the cheapest one
+        public final double bound;
+        public final long nanos;
+        public final long expansions;
+
+        Solution(int[] path, double cost, double epsilon, double bound, long nanos, long expansions) {
+            this.path = path;
+            this.cost = cost;
+            this.epsilon = epsilon;
+            this.bound = bound;
+            this.nanos = nanos;
+            this.expansions = expansions;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("epsilon %.2f: cost %.6f, at most %.4f times the cheapest, after %.3f ms and %d " +
+                    "expansions", epsilon, cost, bound, nanos / 1e6, expansions);
+        }
+    }
+
+    public ARAStarSearch() {
+        this(DEFAULT_INITIAL_EPSILON, DEFAULT_EPSILON_STEP, Long.MAX_VALUE, Long.MAX_VALUE);
+    }
+
+    public ARAStarSearch(long timeBudgetNanos, long expansionBudget) {
+        this(DEFAULT_INITIAL_EPSILON, DEFAULT_EPSILON_STEP, timeBudgetNanos, expansionBudget);
+    }
+
+    public ARAStarSearch(double initialEpsilon, double epsilonStep, long timeBudgetNanos, long expansionBudget) {
+        /**
+         * @param initialEpsilon is the weight of the h-score in the first iteration, at least 1.
+         * @param epsilonStep is how much the weight is lowered after every iteration, more than 0.
+         * @param timeBudgetNanos and expansionBudget bound the whole search; Long.MAX_VALUE for no bound.
+         */
+        if (initialEpsilon < 1 || epsilonStep <= 0) {
+            throw new IllegalArgumentException("epsilon must start at 1 or more and decrease at every iteration");
+        }
+        this.initialEpsilon = initialEpsilon;
+        this.epsilonStep = epsilonStep;
+        this.timeBudgetNanos = timeBudgetNanos;
+        this.expansionBudget = expansionBudget;
+    }
+
+    public void setListener(SearchListener listener) {
+        this.listener = listener;
+    }
+
+    public List<Solution> getSolutions() {
+        return Collections.unmodifiableList(solutions);
+    }
+
+    public long getExpansions() {
+        return expansions;
+    }
+
+    public double getBound() {
+        /**
+         * Suboptimality bound of the route returned by the last search, or infinity if it found none.
+         */
+        return solutions.isEmpty() ? Double.POSITIVE_INFINITY : solutions.get(solutions.size() - 1).bound;
+    }
+
+    public List<State> search(State start, State goal) {
+        /**
+         * Use ARA* to return the states on the best path found, linked through their parents. Only the current node
+         * and the goal are reported to the listener.
+         * @return the states on the path, or an empty list if there is none
+         */
+        PolarGrid grid = PolarGrid.forCircles(start.getNoOfCircles());
+        int[] path = run(grid, grid.getId(start.getCircle(), start.getMeridian()),
+                grid.getId(goal.getCircle(), goal.getMeridian()), new SearchScratch(grid), listener);
+        if (path.length > 0 && listener != null) {
+            listener.onGoalReached(goal);
+        }
+        return grid.toStates(path);
+    }
+
+    public int[] search(PolarGrid grid, int source, int goal, SearchScratch scratch) {
+        /**
+         * Use ARA* on the packed grid.
+         * @return the ids on the best path found before the budget ran out
+         */
+        return run(grid, source, goal, scratch, null);
+    }
+
+    private int[] run(PolarGrid grid, int source, int goal, SearchScratch scratch, SearchListener listener) {
+        long startTime = System.nanoTime();
+        solutions.clear();
+        expansions = 0;
+        scratch.reset();
+        IndexedMinHeap open = scratch.frontier;
+        double[] g = scratch.gscore;
+        double[] h = scratch.hscore;
+        // states whose g-score dropped after their expansion in the current iteration, possibly more than once
+        int[] incons = new int[16];
+        int inconsSize = 0;
+        double inconsMin = Double.POSITIVE_INFINITY;
+        int step = 0;
+
+        scratch.visit(source, PolarGrid.NO_NODE);
+        g[source] = 0;
+        h[source] = grid.getDistance(source, goal);
+        double epsilon = initialEpsilon;
+        open.push(source, epsilon * h[source]);
+
+        while (true) {
+            // improve the path with the current epsilon, until no open state can lead to a cheaper route
+            boolean outOfBudget = false;
+            while (!open.isEmpty() && open.getPriority(open.peek()) < getGoalKey(scratch, goal)) {
+                if (expansions >= expansionBudget ||
+                        (expansions % CLOCK_INTERVAL == 0 && System.nanoTime() - startTime >= timeBudgetNanos)) {
+                    outOfBudget = true;
+                    break;
+                }
+                int state = open.pop();
+                scratch.close(state);
+                scratch.expand(state);
+                expansions += 1;
+                step += 1;
+                if (listener != null) {
+                    listener.onStep(step, grid.toState(state));
+                }
+                for (int k = 0; k < PolarGrid.MAX_NEIGHBOURS; k++) {
+                    int child = grid.getNeighbour(state, k);
+                    if (child == PolarGrid.NO_NODE) {
+                        break;
+                    }
+                    double temp_g_score = g[state] + grid.getDistance(state, child);
+                    if (scratch.isVisited(child)) {
+                        if (temp_g_score >= g[child]) {
+                            continue;
+                        }
+                        scratch.parent[child] = state;
+                    } else {
+                        scratch.visit(child, state);
+                        h[child] = grid.getDistance(child, goal);
+                    }
+                    g[child] = temp_g_score;
+                    if (!scratch.isClosed(child)) {
+                        open.push(child, temp_g_score + epsilon * h[child]);
+                    } else {
+                        // already expanded in this iteration: wait for the next one
+                        if (inconsSize == incons.length) {
+                            incons = Arrays.copyOf(incons, inconsSize * 2);
+                        }
+                        incons[inconsSize++] = child;
+                        inconsMin = Math.min(inconsMin, temp_g_score + h[child]);
+                    }
+                }
+            }
+            if (outOfBudget || !scratch.isVisited(goal)) {
+                break;
+            }
+
+            // record the route of this iteration, with the bound proven by the states left to expand
+            double lowerBound = inconsMin;
+            for (int i = 0; i < open.size(); i++) {
+                int id = open.idAt(i);
+                lowerBound = Math.min(lowerBound, g[id] + h[id]);
+            }
+            double bound = g[goal] == 0 ? 1 : Math.max(1, Math.min(epsilon, g[goal] / lowerBound));
+            solutions.add(new Solution(scratch.getPath(goal), g[goal], epsilon, bound, System.nanoTime() - startTime,
+                    expansions));
+            if (bound <= 1 || open.isEmpty() && inconsSize == 0 || System.nanoTime() - startTime >= timeBudgetNanos) {
+                break;
+            }
+
+            // lower epsilon, reopen the inconsistent states and re-order the frontier on the new epsilon
+            epsilon = Math.max(1, epsilon - epsilonStep);
+            int[] reordered = new int[open.size() + inconsSize];
+            int count = 0;
+            for (int i = 0; i < open.size(); i++) {
+                reordered[count++] = open.idAt(i);
+            }
+            for (int i = 0; i < inconsSize; i++) {
+                reordered[count++] = incons[i];
+            }
+            for (int i = 0; i < count; i++) {
+                int id = reordered[i];
+                scratch.open(id);
+                open.push(id, g[id] + epsilon * h[id]);
+            }
+            inconsSize = 0;
+            inconsMin = Double.POSITIVE_INFINITY;
+            // every state expanded so far is consistent again, so the closed set starts empty
+            scratch.clearClosed();
+        }
+        return solutions.isEmpty() ? new int[0] : solutions.get(solutions.size() - 1).path;
+    }
+
+    private static double getGoalKey(SearchScratch scratch, int goal) {
+        // the goal's h-score is 0, so its key is just its g-score
+        return scratch.isVisited(goal) ? scratch.gscore[goal] : Double.POSITIVE_INFINITY;
+    }
+}
@@ -6,15 +6,48 @@ public class AStarSearch implements Search{
      * An implementation of the search interface for A* searching.
      */
     List<State> all_explored_states = new ArrayList<>();
-    // define a manual comparator for adding states to frontier based on F-scores.
-    Comparator<State> costComparator = new Comparator<State>() {
-        @Override
-        public int compare(State state1, State state2) {
-            return Double.compare(state1.getFscore(), state2.getFscore());
-        }
-    };
+    // number of expanded states and wall time of the last search, for reporting throughput
+    private long expansions = 0;
+    private long elapsedNanos = 0;
+    // exact costs used as a perfect heuristic instead of the polar distance, if set
+    private final DistanceOracle oracle;
+    // transition costs replacing the polar distance, if set
+    private final CostMap costMap;
+    // receives the trace of every step, if any
+    private SearchListener listener = new ConsoleTraceListener();
+
+    public AStarSearch() {
+        this(null, null);
+    }
+
+    public AStarSearch(DistanceOracle oracle) {
+        this(oracle, null);
+    }
+
+    public AStarSearch(CostMap costMap) {
+        this(null, costMap);
+    }
+
+    public AStarSearch(DistanceOracle oracle, CostMap costMap) {
+        this.oracle = oracle;
+        this.costMap = costMap;
+    }
+
+    public void setListener(SearchListener listener) {
+        this.listener = listener;
+    }
 
     public double getCostFromParent(State parent, State child){
+        /**
+         * Cost of the transition from parent to child: the cost map's if there is one, else their polar distance.
+         */
+        if (costMap != null) {
+            return costMap.getCost(parent.getId(), child.getId());
+        }
+        return getPolarDistance(parent, child);
+    }
+
+    public double getPolarDistance(State parent, State child){
         /**
          * Compute polar distance between parent and child states.
          */
@@ -30,88 +63,172 @@ public class AStarSearch implements Search{
         return polar_distance;
     }
 
+    public double getHeuristic(State state, State goal) {
+        /**
+         * Estimated cost from the state to the goal: the oracle's exact cost if there is one, else polar distance.
+         */
+        return oracle != null ? oracle.getCost(state, goal) : getPolarDistance(state, goal);
+    }
+
+    public long getExpansions() {
+        return expansions;
+    }
+
+    public double getExpansionsPerSecond() {
+        /**
+         * Throughput of the last search, in expanded states per second of wall time.
+         */
+        return elapsedNanos == 0 ? 0 : expansions * 1e9 / elapsedNanos;
+    }
+
     public List<State> search(State start, State goal) {
         /**
          * Use AStar to return a list of all explored paths.
          * @return a list of all explored states
          */
-        List<State> visited = new ArrayList<>();
-        PriorityQueue<State> priorityQueue = new PriorityQueue<State>(costComparator);
+        // closed set and open-set handles keyed by State.getId(), so membership tests are O(1)
+        Map<Integer, State> visited = new HashMap<>();
+        Map<Integer, State> open = new HashMap<>();
+        // frontier indexed by state id, ordered on F-scores, with O(log n) decrease-key
+        IndexedMinHeap priorityQueue = new IndexedMinHeap((start.getNoOfCircles() + 1) * 8);
         List<State> expanded_states = new ArrayList<>();
+        long startTime = System.nanoTime();
+        expansions = 0;
 
         // set g-score of source node to 0
         start.setGScore(0);
         // set h-score of source node to be distance from the goal.
-        start.setHScore(getCostFromParent(goal, start));
+        start.setHScore(oracle != null ? oracle.getCost(start, goal) : getPolarDistance(goal, start));
         // set f-score of source node to be same as h-score since g(source) = 0
         start.setFScore(start.getHscore());
+        start.parent = null;
         // add to frontier and all explored states
-        priorityQueue.add(start);
+        priorityQueue.push(start.getId(), start.getFscore());
+        open.put(start.getId(), start);
         all_explored_states.add(start);
 
         boolean found = false;
-        priorityQueue.add(start);
         int step = 0;
 
         while ((!priorityQueue.isEmpty()) && (!found)) {
-            State state = priorityQueue.remove();
-            if(visited.stream().anyMatch(o -> o.getMeridian() == state.getMeridian() &&
-                    o.getCircle() == state.getCircle())) {
-                continue;
-            }
+            State state = open.remove(priorityQueue.pop());
             step += 1;
-            System.out.print("\n\nStep: " + step);
-            visited.add(state);
-
-            System.out.print("\nCurrent node: (" + state.getCircle() + "," + state.getMeridian() + ")");
+            visited.put(state.getId(), state);
+            if (listener != null) {
+                listener.onStep(step, state);
+            }
 
             // check for goal reached
             if (state.getMeridian() == goal.getMeridian() && state.getCircle() == goal.getCircle()) {
-                System.out.print("\nGoal state reached.\n");
+                if (listener != null) {
+                    listener.onGoalReached(state);
+                }
                 found = true;
             }
             else {
+                expansions += 1;
                 List<State> statesToBeExpanded = state.getNext();
-                System.out.print("\nList of states expanded till now: { ");
-                for (State s: expanded_states){
-                    System.out.print("(" + (int) s.getCircle() + "," + (int)s.getMeridian() + ") ");
+                if (listener != null) {
+                    listener.onExpand(state, expanded_states);
+                    expanded_states.add(state);
                 }
-                System.out.print("}");
-                expanded_states.add(state);
 
                 for (State child : statesToBeExpanded) {
-                    // compute g, h and f-scores for the child
+                    int id = child.getId();
+                    // compute the g-score of the child through the current state
                     double cost = getCostFromParent(state, child);
+                    if (cost == CostMap.CLOSED) {
+                        continue;
+                    }
                     double temp_g_score = state.getGscore() + cost;
-                    child.setHScore(getCostFromParent(child, goal));
-                    double temp_f_score = temp_g_score + child.getHscore();
 
-                    // check if the F-score of this child node is less than the currently assigned F-score to update it.
-                    if ((visited.stream().anyMatch(o -> o.getMeridian() == child.getMeridian() &&
-                            o.getCircle() == child.getCircle())) && (temp_f_score >= child.getFscore())) {
+                    // reuse the instance already generated for this position, if any
+                    State known = open.get(id);
+                    if (known == null) {
+                        known = visited.get(id);
+                    }
+                    // skip the child unless this is the first or a cheaper route to it
+                    if (known != null && temp_g_score >= known.getGscore()) {
                         continue;
-                    } else if ((!priorityQueue.stream().anyMatch(o -> o.getMeridian() == child.getMeridian() &&
-                            o.getCircle() == child.getCircle())) || (temp_f_score < child.getFscore())) {
-                        child.parent = state;
-                        all_explored_states.add(child);
-                        // update the g and f-scores if these are lesser than currently assigned ones.
-                        child.setGScore(temp_g_score);
-                        child.setFScore(temp_f_score);
-                        // remove if any previous instance of child node is already in the frontier
-                        if (priorityQueue.stream().anyMatch(o -> o.getMeridian() == child.getMeridian() &&
-                                o.getCircle() == child.getCircle())) {
-                            priorityQueue.remove(child);
-                        }
-                        priorityQueue.add(child);
                     }
+                    if (known == null) {
+                        known = child;
+                        known.setHScore(getHeuristic(child, goal));
+                        all_explored_states.add(known);
+                    } else {
+                        // a cheaper route to a closed state re-opens it
+                        visited.remove(id);
+                    }
+                    known.parent = state;
+                    // update the g and f-scores if these are lesser than currently assigned ones.
+                    known.setGScore(temp_g_score);
+                    known.setFScore(temp_g_score + known.getHscore());
+                    open.put(id, known);
+                    priorityQueue.push(id, known.getFscore());
                 }
-                System.out.print("\nFrontier content with F-scores: { ");
-                for(State s: priorityQueue){
-                    System.out.print(" (" + s.getCircle() + "," + s.getMeridian() + "): " + s.getFscore());
+                if (listener != null) {
+                    // list the frontier in heap order
+                    List<State> frontier = new ArrayList<>(priorityQueue.size());
+                    for (int i = 0; i < priorityQueue.size(); i++) {
+                        frontier.add(open.get(priorityQueue.idAt(i)));
+                    }
+                    listener.onFrontier(frontier, "F-scores", State::getFscore);
                 }
-                System.out.print(" }");
             }
         }
+        elapsedNanos = System.nanoTime() - startTime;
         return all_explored_states;
     }
+
+    public int[] search(PolarGrid grid, int source, int goal, SearchScratch scratch) {
+        /**
+         * Use AStar on the packed grid, with the same costs and re-opening rule as search(State, State).
+         * @return the ids on the path found
+         */
+        scratch.reset();
+        IndexedMinHeap priorityQueue = scratch.frontier;
+        double[] g = scratch.gscore;
+        double[] h = scratch.hscore;
+        double[] f = scratch.fscore;
+
+        scratch.visit(source, PolarGrid.NO_NODE);
+        g[source] = 0;
+        h[source] = oracle != null ? oracle.getCost(source, goal) : grid.getDistance(goal, source);
+        f[source] = h[source];
+        priorityQueue.push(source, f[source]);
+
+        while (!priorityQueue.isEmpty()) {
+            int state = priorityQueue.pop();
+            scratch.close(state);
+            if (state == goal) {
+                return scratch.getPath(goal);
+            }
+            scratch.expand(state);
+            for (int k = 0; k < PolarGrid.MAX_NEIGHBOURS; k++) {
+                int child = grid.getNeighbour(state, k);
+                if (child == PolarGrid.NO_NODE) {
+                    break;
+                }
+                double cost = costMap != null ? costMap.getNeighbourCost(state, k) : grid.getDistance(state, child);
+                if (cost == CostMap.CLOSED) {
+                    continue;
+                }
+                double temp_g_score = g[state] + cost;
+                if (scratch.isVisited(child)) {
+                    if (temp_g_score >= g[child]) {
+                        continue;
+                    }
+                    scratch.open(child);
+                    scratch.parent[child] = state;
+                } else {
+                    scratch.visit(child, state);
+                    h[child] = oracle != null ? oracle.getCost(child, goal) : grid.getDistance(child, goal);
+                }
+                g[child] = temp_g_score;
+                f[child] = temp_g_score + h[child];
+                priorityQueue.push(child, f[child]);
+            }
+        }
+        return new int[0];
+    }
 }
@@ -0,0 +1,93 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.Semaphore;
+
+public class BatchRunner {
+    /**
+     * Answers many queries in one JVM, so that start-up, class loading and JIT warm-up are paid once.
+     * Queries are read one per line and solved by a SearchExecutor, which shares the grids (adjacency and distance
+     * tables) through PolarGrid.forCircles() and reuses pooled scratch arrays. Results are printed as soon as they
+     * are ready, so their order may differ from the input.
+     */
+    // bound on queries read ahead of the workers, per worker
+    static final int QUEUED_PER_WORKER = 64;
+
+    private final int workers;
+    private final PrintStream out;
+    // cache of routes for repeated queries, if any
+    private final RouteCache cache;
+    // receives the SearchMetrics of every search as a line of JSON, if any
+    private final PrintStream metricsOut;
+
+    public BatchRunner(int workers, PrintStream out) {
+        this(workers, out, null);
+    }
+
+    public BatchRunner(int workers, PrintStream out, RouteCache cache) {
+        this(workers, out, cache, null);
+    }
+
+    public BatchRunner(int workers, PrintStream out, RouteCache cache, PrintStream metricsOut) {
+        /**
+         * @param metricsOut receives one line of JSON per query answered by searching, including the bytes the
+         * search allocated, or is null. Queries answered from the cache have no metrics.
+         */
+        this.workers = workers;
+        this.out = out;
+        this.cache = cache;
+        this.metricsOut = metricsOut;
+    }
+
+    public int run(BufferedReader in) throws IOException, InterruptedException {
+        /**
+         * Read queries until the end of the input and print one line per query; empty lines and lines starting
+         * with '#' are skipped.
+         * @return the number of queries answered.
+         */
+        Semaphore queued = new Semaphore(workers * QUEUED_PER_WORKER);
+        // tracks the queries still being solved, so that run() returns only once all of them are printed
+        Phaser pending = new Phaser(1);
+        int lineNumber = 0;
+        int submitted = 0;
+        try (SearchExecutor executor = new SearchExecutor(workers, cache)) {
+            executor.setMeasureAllocation(metricsOut != null);
+            String line;
+            while ((line = in.readLine()) != null) {
+                lineNumber += 1;
+                if (line.trim().isEmpty() || line.trim().startsWith("#")) {
+                    continue;
+                }
+                submitted += 1;
+                Query query;
+                try {
+                    query = Query.parse(lineNumber, line);
+                } catch (IllegalArgumentException e) {
+                    print("#" + lineNumber + " " + line.trim() + " => invalid query: " + e.getMessage());
+                    continue;
+                }
+                queued.acquire();
+                pending.register();
+                executor.submit(query).whenComplete((route, error) -> {
+                    queued.release();
+                    print(error == null ? route.toString() : "#" + query.id + " " + query + " => failed: " + error);
+                    if (error == null && metricsOut != null && route.metrics != null) {
+                        synchronized (metricsOut) {
+                            metricsOut.println(route.metrics.toJson());
+                        }
+                    }
+                    pending.arriveAndDeregister();
+                });
+            }
+            pending.arriveAndAwaitAdvance();
+        }
+        return submitted;
+    }
+
+    private void print(String line) {
+        synchronized (out) {
+            out.println(line);
+        }
+    }
+}
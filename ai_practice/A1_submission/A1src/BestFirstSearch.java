@@ -1,7 +1,9 @@
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.PriorityQueue;
+import java.util.Set;
 
 public class BestFirstSearch implements Search{
     /**
@@ -11,6 +13,8 @@ public class BestFirstSearch implements Search{
     public static State goal_state;
     // instance of BidirectionalSearch for calling method to compute polar distance
     BidirectionalSearch polarDistance = new BidirectionalSearch();
+    // receives the trace of every step, if any
+    private SearchListener listener = new ConsoleTraceListener();
 
     // define manual comparator for pushing states into priority queue based on polar distance
     Comparator<State> polarDistanceComparator = new Comparator<State>() {
@@ -30,6 +34,10 @@ public class BestFirstSearch implements Search{
         }
     };
 
+    public void setListener(SearchListener listener) {
+        this.listener = listener;
+    }
+
     public List<State> search(State start, State goal) {
         /**
          * Use BestF to return a list of all explored paths.
@@ -38,12 +46,13 @@ public class BestFirstSearch implements Search{
         // assign the state parameters of goal state to the static "goal_state" var.
         goal_state = goal;
         List<State> all_explored_states = new ArrayList<>();
-        List<State> visited = new ArrayList<>();
+        // positions visited so far, hashed by State.getId()
+        Set<Integer> visited = new HashSet<>();
         // frontier based on manual comparator
         PriorityQueue<State> priorityQueue = new PriorityQueue<State>(polarDistanceComparator);
         List<State> expanded_states = new ArrayList<>();
 
-        visited.add(start);
+        visited.add(start.getId());
         priorityQueue.add(start);
         all_explored_states.add(start);
 
@@ -51,43 +60,69 @@ public class BestFirstSearch implements Search{
         int step = 0;
         while ((!priorityQueue.isEmpty()) && (!found_goal)) {
             step += 1;
-            System.out.print("\n\nStep: " + step);
             State state = priorityQueue.remove();
-            System.out.print("\nCurrent node: (" + state.getCircle() + "," + state.getMeridian() + ")");
+            if (listener != null) {
+                listener.onStep(step, state);
+            }
 
 
             if (state.getMeridian() == goal.getMeridian() && state.getCircle() == goal.getCircle()) {
-                System.out.print("\nGoal state reached.\n");
+                if (listener != null) {
+                    listener.onGoalReached(state);
+                }
                 found_goal = true;
             }
             else {
                 List<State> statesToBeExpanded = state.getNext();
-
-                System.out.print("\nList of states expanded till now: { ");
-                for (State s: expanded_states){
-                    System.out.print("(" + (int) s.getCircle() + "," + (int)s.getMeridian() + ") " );
+                if (listener != null) {
+                    listener.onExpand(state, expanded_states);
+                    expanded_states.add(state);
                 }
-                System.out.print("}");
-                expanded_states.add(state);
 
                 for (State child : statesToBeExpanded) {
-                    if (!visited.stream().anyMatch(o -> o.getMeridian() == child.getMeridian() &&
-                            o.getCircle() == child.getCircle())) {
-                        visited.add(child);
+                    if (visited.add(child.getId())) {
                         priorityQueue.add(child);
                         child.parent = state;
                         all_explored_states.add(child);
                     }
                 }
-                System.out.print("\nFrontier content with polar distance from goal: { ");
-                for(State s: priorityQueue){
-                    System.out.print(" (" + s.getCircle() + "," + s.getMeridian() + "): " +
-                            polarDistance.computePolarDistance(s.getCircle(), goal.getCircle(),
+                if (listener != null) {
+                    listener.onFrontier(priorityQueue, "polar distance from goal",
+                            s -> polarDistance.computePolarDistance(s.getCircle(), goal.getCircle(),
                                     s.getMeridian(), goal.getMeridian()));
                 }
-                System.out.print(" }");
             }
         }
         return all_explored_states;
     }
+
+    public int[] search(PolarGrid grid, int source, int goal, SearchScratch scratch) {
+        /**
+         * Use BestF on the packed grid, with the frontier ordered on the polar distance from the goal.
+         * @return the ids on the path found
+         */
+        scratch.reset();
+        IndexedMinHeap priorityQueue = scratch.frontier;
+        scratch.visit(source, PolarGrid.NO_NODE);
+        priorityQueue.push(source, grid.getDistance(goal, source));
+
+        while (!priorityQueue.isEmpty()) {
+            int state = priorityQueue.pop();
+            if (state == goal) {
+                return scratch.getPath(goal);
+            }
+            scratch.expand(state);
+            for (int k = 0; k < PolarGrid.MAX_NEIGHBOURS; k++) {
+                int child = grid.getNeighbour(state, k);
+                if (child == PolarGrid.NO_NODE) {
+                    break;
+                }
+                if (!scratch.isVisited(child)) {
+                    scratch.visit(child, state);
+                    priorityQueue.push(child, grid.getDistance(goal, child));
+                }
+            }
+        }
+        return new int[0];
+    }
 }
@@ -21,8 +21,14 @@ class ReturnBidirecResults {
 
 
 public class BidirectionalSearch{
-    private List<State> source_visited = new ArrayList<State>();
-    private List<State> goal_visited =new ArrayList<>();
+    /**
+     * Bidirectional search from the source and the goal, using BFS, BestF or AStar in both directions.
+     * The states visited by each direction are hashed by State.getId(), so the searches detect that they meet in O(1)
+     * whenever a state is generated, instead of intersecting the two visited lists after every step.
+     * Every expansion, from either side, is a step of the trace sent to the listener, and the common state ends it.
+     */
+    private Map<Integer, State> source_visited = new HashMap<>();
+    private Map<Integer, State> goal_visited = new HashMap<>();
     private Queue<State> source_queue = new LinkedList<State>();
     private Queue<State> goal_queue = new LinkedList<>();
     public List<State> all_explored_states_source = new ArrayList<>();
@@ -67,6 +73,20 @@ public class BidirectionalSearch{
     };
     PriorityQueue<State> goalPriorityQueue = new PriorityQueue<State>(sourcePolarDistanceComparator);
     PriorityQueue<State> sourcePriorityQueue = new PriorityQueue<State>(goalPolarDistanceComparator);
+    // frontiers on F-scores for bidirectional AStar, indexed by State.getId()
+    IndexedMinHeap sourceOpen = new IndexedMinHeap(64);
+    IndexedMinHeap goalOpen = new IndexedMinHeap(64);
+    // first state generated by both searches (BFS, BestF), or meeting state of the cheapest path found (AStar)
+    private State intersectingNode = null;
+    // cost of the cheapest path found so far through a state reached from both sides (AStar)
+    private double bestPathCost = Double.POSITIVE_INFINITY;
+    // receives the trace of every expansion from either side, if any
+    private SearchListener listener = new ConsoleTraceListener();
+    private int step = 0;
+
+    public void setListener(SearchListener listener) {
+        this.listener = listener;
+    }
 
     public double computePolarDistance(double radius1, double radius2, double angle1, double angle2){
         // return the computed polar distance using the two states
@@ -74,30 +94,15 @@ public class BidirectionalSearch{
                 Math.cos(angle2 - angle1));
     }
 
-    public void BFS(Queue<State> queue, List<State> visited, String mode) {
+    public void BFS(Queue<State> queue, Map<Integer, State> visited, String mode) {
         State state = queue.remove();
-        System.out.print("\nCurrent " + mode + " node: (" + state.getCircle() + "," + state.getMeridian() + ")");
-
-        System.out.print("\nList of states expanded from " + mode + " till now: { ");
-        if (mode == "source") {
-            for (State s : all_expanded_states_from_source) {
-                System.out.print("(" + (int) s.getCircle() + "," + (int) s.getMeridian() + ") ");
-            }
-            all_expanded_states_from_source.add(state);
-        } else if (mode == "goal") {
-            for (State s : all_expanded_states_from_goal) {
-                System.out.print("(" + (int) s.getCircle() + "," + (int) s.getMeridian() + ") ");
-            }
-            all_expanded_states_from_goal.add(state);
-        }
-        System.out.print("}");
+        traceExpansion(state, mode);
 
         List<State> statesToBeExpanded = state.getNext();
 
         for (State child : statesToBeExpanded) {
-            if (!visited.stream().anyMatch(o -> o.getMeridian() == child.getMeridian() &&
-                    o.getCircle() == child.getCircle())) {
-                visited.add(child);
+            if (!visited.containsKey(child.getId())) {
+                visited.put(child.getId(), child);
                 queue.add(child);
                 if (mode == "source") {
                     child.source_parent = state;
@@ -106,49 +111,27 @@ public class BidirectionalSearch{
                     child.goal_parent = state;
                     all_explored_states_goal.add(child);
                 }
+                checkIntersection(child, mode);
             }
         }
-        System.out.print("\nFrontier content for " + mode + " queue: { ");
-        if (mode == "source") {
-            for (State s : queue) {
-                System.out.print("(" + s.getCircle() + "," + s.getMeridian() + ") ");
-            }
-        } else if (mode == "goal"){
-            for (State s : queue) {
-                System.out.print("(" + s.getCircle() + "," + s.getMeridian() + ") ");
-            }
+        if (listener != null) {
+            listener.onFrontier(queue, null, null);
         }
-        System.out.println("}");
     }
 
-    public void BestFirst(List<State> visited, String mode) {
+    public void BestFirst(Map<Integer, State> visited, String mode) {
         State state = null;
         if (mode == "source") {
             state = sourcePriorityQueue.remove();
         } else if (mode == "goal"){
             state = goalPriorityQueue.remove();
         }
-        System.out.print("\nCurrent " + mode + " node: (" + state.getCircle() + "," + state.getMeridian() + ")");
+        traceExpansion(state, mode);
         List<State> statesToBeExpanded = state.getNext();
 
-        System.out.print("\nList of states expanded from " + mode + " till now: { ");
-        if (mode == "source") {
-            for (State s : all_expanded_states_from_source) {
-                System.out.print("(" + (int) s.getCircle() + "," + (int) s.getMeridian() + ") ");
-            }
-            all_expanded_states_from_source.add(state);
-        } else if (mode == "goal") {
-            for (State s : all_expanded_states_from_goal) {
-                System.out.print("(" + (int) s.getCircle() + "," + (int) s.getMeridian() + ") ");
-            }
-            all_expanded_states_from_goal.add(state);
-        }
-        System.out.print("}");
-
         for (State child : statesToBeExpanded) {
-            if (!visited.stream().anyMatch(o -> o.getMeridian() == child.getMeridian() &&
-                    o.getCircle() == child.getCircle())) {
-                visited.add(child);
+            if (!visited.containsKey(child.getId())) {
+                visited.put(child.getId(), child);
 
                 if (mode == "source") {
                     sourcePriorityQueue.add(child);
@@ -160,116 +143,321 @@ public class BidirectionalSearch{
                     child.goal_parent = state;
                     all_explored_states_goal.add(child);
                 }
+                checkIntersection(child, mode);
             }
         }
-        System.out.print("\nFrontier content for " + mode + " priorityQueue: { ");
-        if (mode == "source") {
-            for (State s : sourcePriorityQueue) {
-                System.out.print("(" + s.getCircle() + "," + s.getMeridian() + ") ");
+        if (listener != null) {
+            listener.onFrontier(mode.equals("source") ? sourcePriorityQueue : goalPriorityQueue, null, null);
+        }
+    }
+
+    private void traceExpansion(State state, String mode) {
+        /**
+         * Report the expansion of a state from one side as a new step, with the states that side expanded before.
+         * Nothing is recorded without a listener.
+         */
+        if (listener == null) {
+            return;
+        }
+        step += 1;
+        listener.onStep(step, state);
+        List<State> expanded_states = mode.equals("source") ? all_expanded_states_from_source :
+                all_expanded_states_from_goal;
+        listener.onExpand(state, expanded_states);
+        expanded_states.add(state);
+    }
+
+    public void checkIntersection(State child, String mode) {
+        /**
+         * Record the child as the intersecting node if the search from the other side has already visited it.
+         * Used by BFS and BestF, for which the first common state ends the search.
+         */
+        Map<Integer, State> other_visited = mode.equals("source") ? goal_visited : source_visited;
+        if (intersectingNode == null && other_visited.containsKey(child.getId())) {
+            intersectingNode = child;
+        }
+    }
+
+    public void AStar(String mode) {
+        /**
+         * Expand the state with the lowest F-score from one side of bidirectional AStar. The source side estimates
+         * the distance to the goal and the goal side the distance to the source (front-to-end). Whenever a state
+         * known to the other side gets a cheaper G-score, the path through it becomes a candidate solution.
+         */
+        boolean fromSource = mode.equals("source");
+        IndexedMinHeap open = fromSource ? sourceOpen : goalOpen;
+        Map<Integer, State> visited = fromSource ? source_visited : goal_visited;
+        Map<Integer, State> other_visited = fromSource ? goal_visited : source_visited;
+        State target = fromSource ? goal_state : source_state;
+
+        State state = visited.get(open.pop());
+        traceExpansion(state, mode);
+
+        for (State child : state.getNext()) {
+            int id = child.getId();
+            double temp_g_score = state.getGscore() + computePolarDistance(state.getCircle(), child.getCircle(),
+                    state.getMeridian(), child.getMeridian());
+            State known = visited.get(id);
+            if (known != null && temp_g_score >= known.getGscore()) {
+                continue;
             }
-        } else if (mode == "goal"){
-            for (State s : goalPriorityQueue) {
-                System.out.print("(" + s.getCircle() + "," + s.getMeridian() + ") ");
+            if (known == null) {
+                known = child;
+                known.setHScore(computePolarDistance(child.getCircle(), target.getCircle(), child.getMeridian(),
+                        target.getMeridian()));
+                visited.put(id, known);
+                if (fromSource) {
+                    all_explored_states_source.add(known);
+                } else {
+                    all_explored_states_goal.add(known);
+                }
             }
+            if (fromSource) {
+                known.source_parent = state;
+            } else {
+                known.goal_parent = state;
+            }
+            known.setGScore(temp_g_score);
+            known.setFScore(temp_g_score + known.getHscore());
+            open.push(id, known.getFscore());
+
+            State opposite = other_visited.get(id);
+            if (opposite != null && temp_g_score + opposite.getGscore() < bestPathCost) {
+                bestPathCost = temp_g_score + opposite.getGscore();
+                intersectingNode = known;
+            }
+        }
+        if (listener != null) {
+            // list the frontier in heap order
+            List<State> frontier = new ArrayList<>(open.size());
+            for (int i = 0; i < open.size(); i++) {
+                frontier.add(visited.get(open.idAt(i)));
+            }
+            listener.onFrontier(frontier, "F-scores", State::getFscore);
+        }
+    }
+
+    public boolean isAStarFinished() {
+        /**
+         * Stopping criterion of bidirectional AStar: with admissible estimates, no path through a state still in
+         * either frontier can be cheaper than the best one found once the lowest F-score of one frontier reaches it.
+         */
+        if (sourceOpen.isEmpty() || goalOpen.isEmpty()) {
+            return true;
         }
-        System.out.println("}");
+        return intersectingNode != null && Math.max(sourceOpen.getPriority(sourceOpen.peek()),
+                goalOpen.getPriority(goalOpen.peek())) >= bestPathCost;
     }
 
     public ReturnBidirecResults search (State source, State goal, String algo){
         source_state = source;
         goal_state = goal;
         // initialize intersecting state between explored paths from source and goal nodes to null
-        State intersectingNode = null;
-        // use a simple queue for bfs and a priority queue frontier for best-first method
+        intersectingNode = null;
+        bestPathCost = Double.POSITIVE_INFINITY;
+        // use a simple queue for bfs and a priority queue frontier for best-first method and AStar
         if (algo.equals("BFS")) {
             source_queue.add(source);
             goal_queue.add(goal);
         } else if (algo.equals("BestF")) {
             sourcePriorityQueue.add(source);
             goalPriorityQueue.add(goal);
+        } else if (algo.equals("AStar")) {
+            source.setGScore(0);
+            source.setHScore(computePolarDistance(source.getCircle(), goal.getCircle(), source.getMeridian(),
+                    goal.getMeridian()));
+            source.setFScore(source.getHscore());
+            goal.setGScore(0);
+            goal.setHScore(source.getHscore());
+            goal.setFScore(goal.getHscore());
+            sourceOpen.push(source.getId(), source.getFscore());
+            goalOpen.push(goal.getId(), goal.getFscore());
         }
         // maintain separate list of visited and explored states for search from goal and source
-        source_visited.add(source);
-        goal_visited.add(goal);
+        source_visited.put(source.getId(), source);
+        goal_visited.put(goal.getId(), goal);
         all_explored_states_source.add(source);
         all_explored_states_goal.add(goal);
+        if (source.getId() == goal.getId()) {
+            intersectingNode = source;
+            bestPathCost = 0;
+        }
 
-        int step = 0;
+        step = 0;
         if (algo.equals("BFS")) {
             // use the breadth first search method
-            while (!source_queue.isEmpty() && !goal_queue.isEmpty()) {
-                step += 1;
-                System.out.print("\n\nStep: " + step);
-
-                int numOfSourceExpandedStates = all_explored_states_source.size();
-                int numOfGoalExpandedStates = all_explored_states_goal.size();
-
+            while (intersectingNode == null && !source_queue.isEmpty() && !goal_queue.isEmpty()) {
                 BFS(source_queue, source_visited, "source");
-
-                if (numOfSourceExpandedStates == all_explored_states_source.size()) {
-                    System.out.print("No source states expanded.");
-                }
-
-                BFS(goal_queue, goal_visited, "goal");
-
-                if (numOfGoalExpandedStates == all_explored_states_goal.size()) {
-                    System.out.print("No goal states expanded.");
-                }
-                System.out.print("source size: " + source_visited.size());
-                intersectingNode = isIntersecting(source_visited, goal_visited);
-                if(intersectingNode != null){
-                    System.out.println("\nCommon state found: (" + intersectingNode.getCircle() + "," +
-                            intersectingNode.getMeridian() + ")");
-                    System.out.println("Terminating search now!");
+                if (intersectingNode != null) {
                     break;
                 }
+                BFS(goal_queue, goal_visited, "goal");
             }
         }else if (algo.equals("BestF")) {
             // use the best first search method
-            while (!sourcePriorityQueue.isEmpty() && !goalPriorityQueue.isEmpty()) {
-                step += 1;
-                System.out.print("\n\nStep: " + step);
-
-                int numOfSourceExpandedStates = all_explored_states_source.size();
-                int numOfGoalExpandedStates = all_explored_states_goal.size();
-
+            while (intersectingNode == null && !sourcePriorityQueue.isEmpty() && !goalPriorityQueue.isEmpty()) {
                 BestFirst(source_visited, "source");
-                if (numOfSourceExpandedStates == all_explored_states_source.size()) {
-                    System.out.print("No source states expanded.");
+                if (intersectingNode != null) {
+                    break;
                 }
-
                 BestFirst(goal_visited, "goal");
-                if (numOfGoalExpandedStates == all_explored_states_goal.size()) {
-                    System.out.print("No goal states expanded.");
-                }
-                intersectingNode = isIntersecting(source_visited, goal_visited);
-                if(intersectingNode != null){
-                    System.out.println("\nCommon state found: (" + intersectingNode.getCircle() + "," +
-                            intersectingNode.getMeridian() + ")");
-                    System.out.println("Terminating search now!");
-                    break;
+            }
+        } else if (algo.equals("AStar")) {
+            // use AStar from both sides, alternating between them until the stopping criterion holds
+            while (!isAStarFinished()) {
+                AStar("source");
+                if (!isAStarFinished()) {
+                    AStar("goal");
                 }
             }
         }
-//        System.out.print(intersectingNode.getCircle() + " " + intersectingNode.getMeridian());
+        if (intersectingNode != null && listener != null) {
+            // the common state ends the search as the goal ends the others
+            listener.onGoalReached(intersectingNode);
+        }
         return new ReturnBidirecResults(all_explored_states_source, all_explored_states_goal, intersectingNode);
     }
 
-    public State isIntersecting(List<State> source_visited, List<State> goal_visited){
+    public int[] search(PolarGrid grid, int source, int goal, String algo, SearchScratch sourceScratch,
+                        SearchScratch goalScratch) {
+        /**
+         * Bidirectional search on the packed grid: one expansion is made from each side per step, and the searches
+         * meet as soon as one side reaches a node already visited by the other.
+         * @param algo is the method used by both searches: BFS, BestF or AStar
+         * @param sourceScratch holds the arrays of the search from the source node
+         * @param goalScratch holds the arrays of the search from the goal node
+         * @return the ids on the path from source to goal, or an empty array if the searches never meet
+         */
+        boolean bestFirst = algo.equals("BestF");
+        sourceScratch.reset();
+        goalScratch.reset();
+        sourceScratch.visit(source, PolarGrid.NO_NODE);
+        goalScratch.visit(goal, PolarGrid.NO_NODE);
+        if (source == goal) {
+            return new int[]{source};
+        }
+        if (algo.equals("AStar")) {
+            return joinPaths(sourceScratch, goalScratch, searchAStar(grid, source, goal, sourceScratch, goalScratch));
+        }
+        if (bestFirst) {
+            sourceScratch.frontier.push(source, grid.getDistance(goal, source));
+            goalScratch.frontier.push(goal, grid.getDistance(source, goal));
+        } else {
+            sourceScratch.addLast(source);
+            goalScratch.addLast(goal);
+        }
+
+        int intersectingNode = PolarGrid.NO_NODE;
+        while (intersectingNode == PolarGrid.NO_NODE && hasFrontier(sourceScratch, bestFirst) &&
+                hasFrontier(goalScratch, bestFirst)) {
+            intersectingNode = expandNext(grid, sourceScratch, goalScratch, goal, bestFirst);
+            if (intersectingNode == PolarGrid.NO_NODE) {
+                intersectingNode = expandNext(grid, goalScratch, sourceScratch, source, bestFirst);
+            }
+        }
+        return joinPaths(sourceScratch, goalScratch, intersectingNode);
+    }
+
+    private int[] joinPaths(SearchScratch sourceScratch, SearchScratch goalScratch, int intersectingNode) {
         /**
-         * Identify if there is a common node between list of states explored from source and goal nodes.
-         * @param source_visited: list of states explored from source state
-         * @param goal_visited: list of states explored from goal state
-         * @return the state, if common else null
+         * Join the path traced from the source with the reversed path traced from the goal at the common node.
          */
-        State intersectingNode = null;
-        for(State src: source_visited){
-            State common_state = goal_visited.stream().filter(s -> s.getMeridian() == src.getMeridian() &&
-                    s.getCircle() == src.getCircle()).findFirst().orElse(null);
-            if (common_state != null){
-                intersectingNode = common_state;
+        if (intersectingNode == PolarGrid.NO_NODE) {
+            return new int[0];
+        }
+        int[] source_path = sourceScratch.getPath(intersectingNode);
+        int[] goal_path = goalScratch.getPath(intersectingNode);
+        int[] path = Arrays.copyOf(source_path, source_path.length + goal_path.length - 1);
+        for (int i = 0; i < goal_path.length - 1; i++) {
+            path[source_path.length + i] = goal_path[goal_path.length - 2 - i];
+        }
+        return path;
+    }
+
+    private boolean hasFrontier(SearchScratch scratch, boolean bestFirst) {
+        return bestFirst ? !scratch.frontier.isEmpty() : !scratch.isDequeEmpty();
+    }
+
+    private int expandNext(PolarGrid grid, SearchScratch own, SearchScratch other, int target, boolean bestFirst) {
+        /**
+         * Expand the next node of one side of the packed bidirectional search.
+         * @return the first generated node already visited by the other side, or NO_NODE
+         */
+        int state = bestFirst ? own.frontier.pop() : own.pollFirst();
+        own.expand(state);
+        for (int k = 0; k < PolarGrid.MAX_NEIGHBOURS; k++) {
+            int child = grid.getNeighbour(state, k);
+            if (child == PolarGrid.NO_NODE) {
                 break;
             }
+            if (!own.isVisited(child)) {
+                own.visit(child, state);
+                if (other.isVisited(child)) {
+                    return child;
+                }
+                if (bestFirst) {
+                    own.frontier.push(child, grid.getDistance(target, child));
+                } else {
+                    own.addLast(child);
+                }
+            }
+        }
+        return PolarGrid.NO_NODE;
+    }
+
+    private int searchAStar(PolarGrid grid, int source, int goal, SearchScratch sourceScratch,
+                            SearchScratch goalScratch) {
+        /**
+         * Packed bidirectional AStar, with the same expansion order and stopping criterion as AStar(mode).
+         * @return the meeting node of the cheapest path, or NO_NODE if there is none
+         */
+        double h = grid.getDistance(source, goal);
+        sourceScratch.gscore[source] = 0;
+        sourceScratch.hscore[source] = h;
+        sourceScratch.frontier.push(source, h);
+        goalScratch.gscore[goal] = 0;
+        goalScratch.hscore[goal] = h;
+        goalScratch.frontier.push(goal, h);
+
+        int intersectingNode = PolarGrid.NO_NODE;
+        double bestCost = Double.POSITIVE_INFINITY;
+        boolean fromSource = true;
+        while (!sourceScratch.frontier.isEmpty() && !goalScratch.frontier.isEmpty()) {
+            IndexedMinHeap sourceOpen = sourceScratch.frontier;
+            IndexedMinHeap goalOpen = goalScratch.frontier;
+            if (Math.max(sourceOpen.getPriority(sourceOpen.peek()), goalOpen.getPriority(goalOpen.peek())) >= bestCost) {
+                break;
+            }
+            SearchScratch own = fromSource ? sourceScratch : goalScratch;
+            SearchScratch other = fromSource ? goalScratch : sourceScratch;
+            int target = fromSource ? goal : source;
+            int state = own.frontier.pop();
+            own.close(state);
+            own.expand(state);
+            for (int k = 0; k < PolarGrid.MAX_NEIGHBOURS; k++) {
+                int child = grid.getNeighbour(state, k);
+                if (child == PolarGrid.NO_NODE) {
+                    break;
+                }
+                double temp_g_score = own.gscore[state] + grid.getDistance(state, child);
+                if (own.isVisited(child)) {
+                    if (temp_g_score >= own.gscore[child]) {
+                        continue;
+                    }
+                    own.open(child);
+                    own.parent[child] = state;
+                } else {
+                    own.visit(child, state);
+                    own.hscore[child] = grid.getDistance(child, target);
+                }
+                own.gscore[child] = temp_g_score;
+                own.frontier.push(child, temp_g_score + own.hscore[child]);
+                if (other.isVisited(child) && temp_g_score + other.gscore[child] < bestCost) {
+                    bestCost = temp_g_score + other.gscore[child];
+                    intersectingNode = child;
+                }
+            }
+            fromSource = !fromSource;
         }
         return intersectingNode;
     }
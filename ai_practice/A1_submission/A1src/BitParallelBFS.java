@@ -0,0 +1,284 @@
+import java.util.Arrays;
+import java.util.List;
+
+public class BitParallelBFS implements Search {
+    /**
+     * Breadth-first search for hop counts, with the frontier and the visited set as bitsets over the PolarGrid ids
+     * (circle * meridians + meridian index) packed 64 to a long. A whole level is expanded at once with word-level
+     * shifts: the neighbours along a circle are the frontier shifted by one bit, except on the first and last
+     * meridians, whose bits are rotated by meridians - 1 to wrap around the circle; the neighbours on the adjacent
+     * circles are the frontier shifted by a whole circle of bits. The non-empty frontier words are kept in a list and
+     * their neighbours scattered into the next level, so the work per level follows the frontier, not the grid.
+     * Several sources can start at once, which computes the distance field of all nodes to the nearest source.
+     * The hop counts are those of BreadthFirstSearch, but among routes of equal length it may return another one.
+     * The bitsets are sized to the grid of the last search, and reallocated whenever a search runs on another grid;
+     * an instance isn't thread-safe.
+     */
+    private PolarGrid grid;
+    private int words;
+    private int meridians;
+    // valid nodes (circles 1..noOfCircles), and nodes on the first, last, not first and not last meridian
+    private long[] valid;
+    private long[] first;
+    private long[] last;
+    private long[] notFirst;
+    private long[] notLast;
+    private long[] frontier;
+    private long[] visited;
+    private long[] next;
+    // indices of the non-empty frontier words, and of the words of "next" written to in the current level
+    private int[] frontierWord;
+    private int frontierWords = 0;
+    private int[] touchedWord;
+    private int touchedWords = 0;
+    // frontier words of every level when searching for a path, as (word index, bits) from levelStart[level] on
+    private int[] levelStart = new int[64];
+    private int[] snapshotWord = new int[64];
+    private long[] snapshotBits = new long[64];
+    private int snapshots = 0;
+    // number of states expanded by the last search
+    private long expansions = 0;
+    // receives the trace of every step, if any
+    private SearchListener listener = new ConsoleTraceListener();
+
+    public BitParallelBFS() {
+    }
+
+    public BitParallelBFS(PolarGrid grid) {
+        setGrid(grid);
+    }
+
+    public void setListener(SearchListener listener) {
+        this.listener = listener;
+    }
+
+    public long getExpansions() {
+        return expansions;
+    }
+
+    public List<State> search(State start, State goal) {
+        /**
+         * Use the bit-parallel BFS to return the states on the path found, linked through their parents. Only the
+         * goal is reported to the listener, as a whole level is expanded at every step.
+         * @return the states on the path, or an empty list if there is none
+         */
+        PolarGrid grid = PolarGrid.forCircles(start.getNoOfCircles());
+        int[] path = search(grid, grid.getId(start.getCircle(), start.getMeridian()),
+                grid.getId(goal.getCircle(), goal.getMeridian()), new SearchScratch(grid));
+        if (path.length > 0 && listener != null) {
+            listener.onGoalReached(goal);
+        }
+        return grid.toStates(path);
+    }
+
+    public int[] search(PolarGrid grid, int source, int goal, SearchScratch scratch) {
+        /**
+         * Use the bit-parallel BFS on the packed grid. Nothing is recorded per node: the frontier words of every
+         * level are kept instead, and the path is traced back from the goal by removing the levels from the visited
+         * set one by one, as a neighbour of a node on level i that is still visited is on level i - 1. The scratch
+         * arrays aren't used.
+         * @return the ids on a path with the fewest hops
+         */
+        setGrid(grid);
+        scratch.reset();
+        int level = expand(new int[]{source}, goal, null);
+        scratch.expanded = expansions;
+        if (level < 0) {
+            return new int[0];
+        }
+        int[] path = new int[level + 1];
+        path[level] = goal;
+        for (int i = level; i > 0; i--) {
+            for (int j = levelStart[i]; j < levelStart[i + 1]; j++) {
+                visited[snapshotWord[j]] &= ~snapshotBits[j];
+            }
+            int id = path[i];
+            for (int k = 0; k < PolarGrid.MAX_NEIGHBOURS; k++) {
+                int neighbour = grid.getNeighbour(id, k);
+                if (neighbour != PolarGrid.NO_NODE && (visited[neighbour >>> 6] & (1L << neighbour)) != 0) {
+                    path[i - 1] = neighbour;
+                    break;
+                }
+            }
+        }
+        return path;
+    }
+
+    public int[] getDistances(PolarGrid grid, int... sources) {
+        /**
+         * Multi-source BFS: the number of hops from every node to the nearest source.
+         * @return the distances indexed by id, -1 for nodes that can't be reached (e.g. on the pole).
+         */
+        setGrid(grid);
+        int[] distances = new int[grid.getNodeCount()];
+        Arrays.fill(distances, -1);
+        expand(sources, PolarGrid.NO_NODE, distances);
+        return distances;
+    }
+
+    private void setGrid(PolarGrid grid) {
+        /**
+         * Size the bitsets and build the meridian masks for the grid, unless they already fit it.
+         */
+        if (grid == this.grid) {
+            return;
+        }
+        this.grid = grid;
+        this.meridians = grid.getMeridians();
+        this.words = (grid.getNodeCount() + 63) >>> 6;
+        valid = new long[words];
+        first = new long[words];
+        last = new long[words];
+        frontier = new long[words];
+        visited = new long[words];
+        next = new long[words];
+        frontierWord = new int[words];
+        touchedWord = new int[Math.max(words, 16)];
+        for (int circle = 1; circle <= grid.getNoOfCircles(); circle++) {
+            int firstId = grid.getIdOfIndex(circle, 0);
+            int lastId = grid.getIdOfIndex(circle, meridians - 1);
+            for (int id = firstId; id <= lastId; id++) {
+                valid[id >>> 6] |= 1L << id;
+            }
+            first[firstId >>> 6] |= 1L << firstId;
+            last[lastId >>> 6] |= 1L << lastId;
+        }
+        notFirst = new long[words];
+        notLast = new long[words];
+        for (int w = 0; w < words; w++) {
+            notFirst[w] = valid[w] & ~first[w];
+            notLast[w] = valid[w] & ~last[w];
+        }
+    }
+
+    private int expand(int[] sources, int goal, int[] distances) {
+        /**
+         * Expand level after level from the sources until the goal is reached, or until no node is left if the
+         * goal is NO_NODE. The level of every node reached is written to the distances if they aren't null, and
+         * the frontier words of every level are kept if they are.
+         * @return the level of the goal, or -1 if it wasn't reached
+         */
+        Arrays.fill(frontier, 0);
+        Arrays.fill(visited, 0);
+        expansions = 0;
+        frontierWords = 0;
+        snapshots = 0;
+        for (int source : sources) {
+            int w = source >>> 6;
+            if (frontier[w] == 0) {
+                frontierWord[frontierWords++] = w;
+            }
+            frontier[w] |= 1L << source;
+            visited[w] |= 1L << source;
+            if (distances != null) {
+                distances[source] = 0;
+            }
+        }
+        for (int level = 0; frontierWords > 0; level++) {
+            if (distances == null) {
+                snapshot(level);
+            }
+            if (goal != PolarGrid.NO_NODE && (visited[goal >>> 6] & (1L << goal)) != 0) {
+                return level;
+            }
+            // scatter the neighbours of every non-empty frontier word into "next"
+            touchedWords = 0;
+            for (int i = 0; i < frontierWords; i++) {
+                int w = frontierWord[i];
+                long bits = frontier[w];
+                frontier[w] = 0;
+                expansions += Long.bitCount(bits);
+                scatterUp(bits & notLast[w], 1, w);
+                scatterDown(bits & notFirst[w], 1, w);
+                scatterDown(bits & last[w], meridians - 1, w);
+                scatterUp(bits & first[w], meridians - 1, w);
+                scatterUp(bits, meridians, w);
+                scatterDown(bits, meridians, w);
+            }
+            // keep the new nodes as the next frontier; a word touched twice is empty the second time
+            frontierWords = 0;
+            for (int i = 0; i < touchedWords; i++) {
+                int w = touchedWord[i];
+                long word = next[w] & valid[w] & ~visited[w];
+                next[w] = 0;
+                if (word == 0) {
+                    continue;
+                }
+                frontier[w] = word;
+                visited[w] |= word;
+                frontierWord[frontierWords++] = w;
+                if (distances != null) {
+                    while (word != 0) {
+                        distances[(w << 6) + Long.numberOfTrailingZeros(word)] = level + 1;
+                        word &= word - 1;
+                    }
+                }
+            }
+        }
+        return -1;
+    }
+
+    private void snapshot(int level) {
+        /**
+         * Keep the frontier words of the level, and mark where the next level's will start.
+         */
+        if (level + 2 > levelStart.length) {
+            levelStart = Arrays.copyOf(levelStart, levelStart.length * 2);
+        }
+        if (snapshots + frontierWords > snapshotWord.length) {
+            int capacity = Math.max(snapshotWord.length * 2, snapshots + frontierWords);
+            snapshotWord = Arrays.copyOf(snapshotWord, capacity);
+            snapshotBits = Arrays.copyOf(snapshotBits, capacity);
+        }
+        levelStart[level] = snapshots;
+        for (int i = 0; i < frontierWords; i++) {
+            snapshotWord[snapshots] = frontierWord[i];
+            snapshotBits[snapshots] = frontier[frontierWord[i]];
+            snapshots += 1;
+        }
+        levelStart[level + 1] = snapshots;
+    }
+
+    private void scatterUp(long bits, int shift, int w) {
+        /**
+         * Or the bits of word w, shifted towards higher ids by "shift" bits, into "next".
+         */
+        if (bits == 0) {
+            return;
+        }
+        int target = w + (shift >>> 6);
+        int r = shift & 63;
+        touch(target, bits << r);
+        if (r != 0) {
+            touch(target + 1, bits >>> (64 - r));
+        }
+    }
+
+    private void scatterDown(long bits, int shift, int w) {
+        /**
+         * Or the bits of word w, shifted towards lower ids by "shift" bits, into "next".
+         */
+        if (bits == 0) {
+            return;
+        }
+        int target = w - (shift >>> 6);
+        int r = shift & 63;
+        touch(target, bits >>> r);
+        if (r != 0) {
+            touch(target - 1, bits << (64 - r));
+        }
+    }
+
+    private void touch(int w, long bits) {
+        if (bits == 0 || w < 0 || w >= words) {
+            return;
+        }
+        if (next[w] == 0) {
+            if (touchedWords == touchedWord.length) {
+                touchedWord = Arrays.copyOf(touchedWord, touchedWords * 2);
+            }
+            touchedWord[touchedWords++] = w;
+        }
+        next[w] |= bits;
+    }
+}
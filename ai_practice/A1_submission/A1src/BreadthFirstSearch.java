@@ -6,6 +6,12 @@ public class BreadthFirstSearch implements Search {
      * An implementation of the search interface for breadth first searching.
      */
     List<State> all_explored_states = new ArrayList<>();
+    // receives the trace of every step, if any
+    private SearchListener listener = new ConsoleTraceListener();
+
+    public void setListener(SearchListener listener) {
+        this.listener = listener;
+    }
 
     public List<State> search(State start, State goal){
         /**
@@ -13,11 +19,12 @@ public class BreadthFirstSearch implements Search {
          * @return a list of all explored states
          */
         List<State> expanded_states = new ArrayList<>();
-        List<State> visited = new ArrayList<State>();
+        // positions visited so far, hashed by State.getId()
+        Set<Integer> visited = new HashSet<>();
         // queue for frontier
         Queue<State> queue = new LinkedList<State>();
 
-        visited.add(start);
+        visited.add(start.getId());
         queue.add(start);
         all_explored_states.add(start);
         boolean goal_found = false;
@@ -25,29 +32,27 @@ public class BreadthFirstSearch implements Search {
 
         while((!queue.isEmpty()) && (!goal_found)) {
             step += 1;
-            System.out.print("\n\nStep: " + step);
             State state = queue.remove();
-            System.out.print("\nCurrent node: (" + state.getCircle() + "," + state.getMeridian() + ")");
+            if (listener != null) {
+                listener.onStep(step, state);
+            }
             // check if goal state reached
             if (state.getMeridian() == goal.getMeridian() && state.getCircle() == goal.getCircle()) {
-                System.out.print("\nGoal state reached. \n");
+                if (listener != null) {
+                    listener.onGoalReached(state);
+                }
                 goal_found = true;
             } else {
                 // get all possible transitions
                 List<State> statesToBeExpanded = state.getNext();
-                System.out.print("\nList of states expanded till now: { ");
-                for (State s: expanded_states){
-                    System.out.print("(" + (int) s.getCircle() + "," + (int)s.getMeridian() + ") ");
+                if (listener != null) {
+                    listener.onExpand(state, expanded_states);
+                    expanded_states.add(state);
                 }
-                System.out.print("}");
-                expanded_states.add(state);
 
-                int numOfExpandedStates = all_explored_states.size();
                 for (State child : statesToBeExpanded) {
                     // if a child not visited yet then push it to the queue.
-                    if (!visited.stream().anyMatch(o -> o.getMeridian() == child.getMeridian() &&
-                            o.getCircle() == child.getCircle())) {
-                        visited.add(child);
+                    if (visited.add(child.getId())) {
                         queue.add(child);
                         // assign parent
                         child.parent = state;
@@ -55,12 +60,40 @@ public class BreadthFirstSearch implements Search {
                         all_explored_states.add(child);
                     }
                 }
-                for(State s: queue){
-                    System.out.print("(" + s.getCircle() + "," + s.getMeridian() + ") ");
+                if (listener != null) {
+                    listener.onFrontier(queue, null, null);
                 }
-                System.out.print("}");
             }
         }
         return all_explored_states;
     }
-}
\ No newline at end of file
+
+    public int[] search(PolarGrid grid, int source, int goal, SearchScratch scratch) {
+        /**
+         * Use BFS on the packed grid.
+         * @return the ids on the path found
+         */
+        scratch.reset();
+        scratch.visit(source, PolarGrid.NO_NODE);
+        scratch.addLast(source);
+
+        while (!scratch.isDequeEmpty()) {
+            int state = scratch.pollFirst();
+            if (state == goal) {
+                return scratch.getPath(goal);
+            }
+            scratch.expand(state);
+            for (int k = 0; k < PolarGrid.MAX_NEIGHBOURS; k++) {
+                int child = grid.getNeighbour(state, k);
+                if (child == PolarGrid.NO_NODE) {
+                    break;
+                }
+                if (!scratch.isVisited(child)) {
+                    scratch.visit(child, state);
+                    scratch.addLast(child);
+                }
+            }
+        }
+        return new int[0];
+    }
+}
@@ -0,0 +1,57 @@
+import java.io.PrintStream;
+
+public class ConsoleExplorationSink implements ExplorationSink {
+    /**
+     * Prints every expanded state on its own line as soon as it is expanded, then the path, its directions and its
+     * cost, which are summed up while the path streams in. Only the previous node of the path is remembered.
+     */
+    private final PolarGrid grid;
+    private final PrintStream out;
+    private int previous = PolarGrid.NO_NODE;
+    private int pathSize = 0;
+    private double totalPathCost = 0;
+    private final StringBuilder directions = new StringBuilder();
+
+    public ConsoleExplorationSink(PolarGrid grid) {
+        this(grid, System.out);
+    }
+
+    public ConsoleExplorationSink(PolarGrid grid, PrintStream out) {
+        this.grid = grid;
+        this.out = out;
+    }
+
+    @Override
+    public void onExpand(int id) {
+        out.println("Expanded: (" + grid.getCircle(id) + "," + grid.getMeridian(id) + ")");
+    }
+
+    @Override
+    public void onPathNode(int id) {
+        if (previous == PolarGrid.NO_NODE) {
+            out.print("Route: ");
+        } else {
+            out.print(" --> ");
+            directions.append(grid.getDirection(previous, id)).append(' ');
+            totalPathCost += grid.getDistance(previous, id);
+            pathSize += 1;
+        }
+        out.print("(" + grid.getCircle(id) + "," + grid.getMeridian(id) + ")");
+        previous = id;
+    }
+
+    @Override
+    public void onFinished(boolean found, long expanded) {
+        if (!found) {
+            out.println("No path found.");
+        } else {
+            out.println("\nSize of path found: " + pathSize + "\nDirections: [ " + directions + "]\nTotal path cost: " +
+                    totalPathCost);
+        }
+        out.println("States expanded: " + expanded);
+        previous = PolarGrid.NO_NODE;
+        pathSize = 0;
+        totalPathCost = 0;
+        directions.setLength(0);
+    }
+}
@@ -0,0 +1,57 @@
+import java.io.PrintStream;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+
+public class ConsoleTraceListener implements SearchListener {
+    /**
+     * Prints the step-by-step trace of a search: the current node, all states expanded so far and the frontier.
+     * This is the default listener of all searches, so A1main keeps printing the trace unless run with --quiet.
+     */
+    private final PrintStream out;
+
+    public ConsoleTraceListener() {
+        this(System.out);
+    }
+
+    public ConsoleTraceListener(PrintStream out) {
+        this.out = out;
+    }
+
+    @Override
+    public void onStep(int step, State state) {
+        out.print("\n\nStep: " + step);
+        out.print("\nCurrent node: (" + state.getCircle() + "," + state.getMeridian() + ")");
+    }
+
+    @Override
+    public void onGoalReached(State goal) {
+        out.print("\nGoal state reached.\n");
+    }
+
+    @Override
+    public void onExpand(State state, List<State> expanded_states) {
+        out.print("\nList of states expanded till now: { ");
+        for (State s : expanded_states) {
+            out.print("(" + s.getCircle() + "," + s.getMeridian() + ") ");
+        }
+        out.print("}");
+    }
+
+    @Override
+    public void onFrontier(Collection<State> frontier, String scoreName, ToDoubleFunction<State> score) {
+        if (score == null) {
+            out.print("\nFrontier content: { ");
+            for (State s : frontier) {
+                out.print("(" + s.getCircle() + "," + s.getMeridian() + ") ");
+            }
+            out.print("}");
+        } else {
+            out.print("\nFrontier content with " + scoreName + ": { ");
+            for (State s : frontier) {
+                out.print(" (" + s.getCircle() + "," + s.getMeridian() + "): " + score.applyAsDouble(s));
+            }
+            out.print(" }");
+        }
+    }
+}
@@ -0,0 +1,127 @@
+import java.util.Arrays;
+
+public class CostMap {
+    /**
+     * Mutable transition costs over a PolarGrid, starting from the polar distance of every transition.
+     * Costs can be raised (e.g. for weather or congestion), transitions closed altogether and reset again. Every
+     * change bumps the version and is logged, so planners and caches can find out what changed since they last
+     * looked. Costs can't be set below the polar distance, which keeps the polar distance and DistanceOracle valid
+     * lower bounds for heuristic searches. A CostMap isn't thread-safe.
+     */
+    public static final double CLOSED = Double.POSITIVE_INFINITY;
+
+    private final PolarGrid grid;
+    // costs[id * MAX_NEIGHBOURS + k] is the cost of the k-th transition of node id, as in PolarGrid.getNeighbour()
+    private final double[] costs;
+    // change log: the transition changed by every version, stored as pairs of node ids
+    private int[] changes = new int[32];
+    private int version = 0;
+
+    public CostMap(PolarGrid grid) {
+        this.grid = grid;
+        this.costs = new double[grid.getNodeCount() * PolarGrid.MAX_NEIGHBOURS];
+        for (int id = 0; id < grid.getNodeCount(); id++) {
+            for (int k = 0; k < PolarGrid.MAX_NEIGHBOURS; k++) {
+                int neighbour = grid.getNeighbour(id, k);
+                costs[id * PolarGrid.MAX_NEIGHBOURS + k] = neighbour == PolarGrid.NO_NODE ? CLOSED :
+                        grid.getDistance(id, neighbour);
+            }
+        }
+    }
+
+    public PolarGrid getGrid() {
+        return grid;
+    }
+
+    public int getVersion() {
+        /**
+         * Number of changes made so far.
+         */
+        return version;
+    }
+
+    public int getChangeFrom(int change) {
+        /**
+         * One end of the transition changed by a version, for 0 <= change < getVersion().
+         */
+        return changes[2 * change];
+    }
+
+    public int getChangeTo(int change) {
+        return changes[2 * change + 1];
+    }
+
+    public double getNeighbourCost(int id, int k) {
+        /**
+         * Cost of the k-th transition of the node, as listed by PolarGrid.getNeighbour(); CLOSED if it is closed.
+         */
+        return costs[id * PolarGrid.MAX_NEIGHBOURS + k];
+    }
+
+    public double getCost(int from, int to) {
+        /**
+         * Cost of the transition between two adjacent nodes; CLOSED if it is closed.
+         */
+        return costs[from * PolarGrid.MAX_NEIGHBOURS + getIndex(from, to)];
+    }
+
+    public void setCost(int from, int to, double cost) {
+        /**
+         * Set the cost of the transition between two adjacent nodes, in both directions.
+         * @throws IllegalArgumentException if the nodes aren't adjacent or the cost is below their polar distance.
+         */
+        if (cost < grid.getDistance(from, to)) {
+            throw new IllegalArgumentException("cost " + cost + " is below the polar distance " +
+                    grid.getDistance(from, to));
+        }
+        costs[from * PolarGrid.MAX_NEIGHBOURS + getIndex(from, to)] = cost;
+        costs[to * PolarGrid.MAX_NEIGHBOURS + getIndex(to, from)] = cost;
+        if (2 * version + 2 > changes.length) {
+            changes = Arrays.copyOf(changes, changes.length * 2);
+        }
+        changes[2 * version] = from;
+        changes[2 * version + 1] = to;
+        version += 1;
+    }
+
+    public void close(int from, int to) {
+        setCost(from, to, CLOSED);
+    }
+
+    public void closeNode(int id) {
+        /**
+         * Close all transitions into and out of a node.
+         */
+        for (int k = 0; k < PolarGrid.MAX_NEIGHBOURS && grid.getNeighbour(id, k) != PolarGrid.NO_NODE; k++) {
+            close(id, grid.getNeighbour(id, k));
+        }
+    }
+
+    public void reset(int from, int to) {
+        /**
+         * Restore the polar distance as the cost of a transition.
+         */
+        setCost(from, to, grid.getDistance(from, to));
+    }
+
+    public double getPathCost(int[] path) {
+        /**
+         * Total cost along a path, as PolarGrid.getPathCost() but with the current costs.
+         */
+        double totalPathCost = 0;
+        for (int i = 1; i < path.length; i++) {
+            totalPathCost += getCost(path[i], path[i - 1]);
+        }
+        return totalPathCost;
+    }
+
+    private int getIndex(int from, int to) {
+        for (int k = 0; k < PolarGrid.MAX_NEIGHBOURS; k++) {
+            if (grid.getNeighbour(from, k) == to) {
+                return k;
+            }
+        }
+        throw new IllegalArgumentException("(" + grid.getCircle(from) + "," + grid.getMeridian(from) + ") and (" +
+                grid.getCircle(to) + "," + grid.getMeridian(to) + ") aren't adjacent");
+    }
+}
@@ -5,62 +5,111 @@ public class DepthFirstSearch implements Search{
     /**
      * An implementation of the search interface for depth first searching.
      */
+    // receives the trace of every step, if any
+    private SearchListener listener = new ConsoleTraceListener();
+    // instance of the goal popped by the last search, or null if it wasn't reached
+    private State goalState = null;
+
+    public void setListener(SearchListener listener) {
+        this.listener = listener;
+    }
+
+    public State getGoalState() {
+        /**
+         * A position can be pushed several times, and only the last push is popped with the parent DFS actually
+         * followed, so the path is traced from this instance rather than the first match in the explored states.
+         */
+        return goalState;
+    }
+
     public List<State> search(State start, State goal){
         /**
          * Use DFS to return a list of all explored paths.
          * @return a list of all explored states
          */
         List<State> all_explored_states = new ArrayList<>();
-        List<State> visited = new ArrayList<State>();
+        // positions visited so far, hashed by State.getId()
+        Set<Integer> visited = new HashSet<>();
         // stack used as frontier
         Stack<State> stack = new Stack<State>();
         List<State> expanded_states = new ArrayList<>();
 
-        visited.add(start);
+        visited.add(start.getId());
         stack.push(start);
         all_explored_states.add(start);
         boolean found_goal = false;
+        goalState = null;
         int step = 0;
 
         while((!stack.isEmpty()) && (!found_goal)){
             step += 1;
-            System.out.print("\n\nStep: " + step);
             State state = stack.peek();
             stack.pop();
-            System.out.print("\nCurrent node: (" + state.getCircle() + "," + state.getMeridian() + ")");
-
-            if (!visited.stream().anyMatch(o -> o.getMeridian() == state.getMeridian() &&
-                    o.getCircle() == state.getCircle())){
-                visited.add(state);
+            if (listener != null) {
+                listener.onStep(step, state);
             }
+
+            visited.add(state.getId());
             // check if goal reached
             if (state.getMeridian() == goal.getMeridian() && state.getCircle() == goal.getCircle()) {
-                System.out.print("\nGoal state reached.\n");
+                if (listener != null) {
+                    listener.onGoalReached(state);
+                }
                 found_goal = true;
+                goalState = state;
             }
             else {
                 List<State> statesToBeExpanded = state.getNext();
-                System.out.print("\nList of states expanded till now: { ");
-                for (State s: expanded_states){
-                    System.out.print("(" + (int) s.getCircle() + "," + (int)s.getMeridian() + ") ");
+                if (listener != null) {
+                    listener.onExpand(state, expanded_states);
+                    expanded_states.add(state);
                 }
-                System.out.print("}");
-                expanded_states.add(state);
                 for (State child : statesToBeExpanded) {
-                    if (!visited.stream().anyMatch(o -> o.getMeridian() == child.getMeridian() &&
-                            o.getCircle() == child.getCircle())) {
+                    if (!visited.contains(child.getId())) {
                         stack.push(child);
                         child.parent = state;
                         all_explored_states.add(child);
                     }
                 }
-                System.out.print("\nFrontier content: { ");
-                for(State s: stack){
-                    System.out.print("(" + s.getCircle() + "," + s.getMeridian() + ") ");
+                if (listener != null) {
+                    listener.onFrontier(stack, null, null);
                 }
-                System.out.print("}");
             }
         }
         return all_explored_states;
     }
-}
\ No newline at end of file
+
+    public int[] search(PolarGrid grid, int source, int goal, SearchScratch scratch) {
+        /**
+         * Use DFS on the packed grid. As in search(State, State), a state is marked visited when it is popped, so
+         * it can be pushed more than once; the parent recorded by the latest push is the one used when popped.
+         * @return the ids on the path found
+         */
+        scratch.reset();
+        scratch.parent[source] = PolarGrid.NO_NODE;
+        scratch.addLast(source);
+
+        while (!scratch.isDequeEmpty()) {
+            int state = scratch.pollLast();
+            if (scratch.isVisited(state)) {
+                continue;
+            }
+            scratch.visit(state, scratch.parent[state]);
+            if (state == goal) {
+                return scratch.getPath(goal);
+            }
+            scratch.expand(state);
+            for (int k = 0; k < PolarGrid.MAX_NEIGHBOURS; k++) {
+                int child = grid.getNeighbour(state, k);
+                if (child == PolarGrid.NO_NODE) {
+                    break;
+                }
+                if (!scratch.isVisited(child)) {
+                    scratch.parent[child] = state;
+                    scratch.addLast(child);
+                }
+            }
+        }
+        return new int[0];
+    }
+}
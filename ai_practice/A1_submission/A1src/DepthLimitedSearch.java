@@ -0,0 +1,204 @@
+import java.util.Arrays;
+import java.util.List;
+
+public class DepthLimitedSearch implements Search {
+    /**
+     * An implementation of the search interface for depth first searching on the packed grid, with an optional
+     * depth limit and iterative deepening.
+     * There is no recursion and no State object: the current path is an explicit stack holding the node and the
+     * next transition to try at every depth, so memory grows by two ints per level and the path found is the stack
+     * itself. Nodes reached are marked in a bitset over the PolarGrid ids and not entered again.
+     * With a depth limit, paths are cut off below it, and a node is entered again if it is reached at a smaller
+     * depth than before, as the first visit may have been too deep to reach the goal within the limit; the depth
+     * of every node reached is kept for that. Iterative deepening runs depth-limited searches with limits 0, 1,
+     * 2, ... up to the depth limit, and returns a path with the fewest hops, as BFS does.
+     */
+    public static final int NO_LIMIT = Integer.MAX_VALUE;
+
+    private final int depthLimit;
+    private final boolean iterativeDeepening;
+    // whether paths can be cut off, so that the depth of every node reached must be kept
+    private final boolean limited;
+    // statistics of the last search
+    private long expansions = 0;
+    private int iterations = 0;
+    private int peakDepth = 0;
+    private boolean cutOff = false;
+    // the current path: node and next transition to try at every depth (-1 before entering)
+    private int[] path = new int[64];
+    private int[] nextChild = new int[64];
+    // nodes reached in the current iteration, and the smallest depth each was reached at if there is a limit
+    private long[] visited = new long[0];
+    private int[] reachedDepth = new int[0];
+    // receives the trace of every step, if any
+    private SearchListener listener = new ConsoleTraceListener();
+
+    public DepthLimitedSearch() {
+        this(NO_LIMIT, false);
+    }
+
+    public DepthLimitedSearch(int depthLimit, boolean iterativeDeepening) {
+        /**
+         * @param depthLimit is the largest number of hops of a path, NO_LIMIT for none.
+         * @param iterativeDeepening raises the limit one hop at a time from 0 up to depthLimit.
+         */
+        if (depthLimit < 0) {
+            throw new IllegalArgumentException("the depth limit can't be negative");
+        }
+        this.depthLimit = depthLimit;
+        this.iterativeDeepening = iterativeDeepening;
+        this.limited = iterativeDeepening || depthLimit != NO_LIMIT;
+    }
+
+    public void setListener(SearchListener listener) {
+        this.listener = listener;
+    }
+
+    public int getDepthLimit() {
+        return depthLimit;
+    }
+
+    public boolean isIterativeDeepening() {
+        return iterativeDeepening;
+    }
+
+    public long getExpansions() {
+        return expansions;
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    public int getPeakDepth() {
+        /**
+         * Deepest level of the stack during the last search.
+         */
+        return peakDepth;
+    }
+
+    public boolean isCutOff() {
+        /**
+         * Whether the last iteration of the last search cut off a path at the limit, so that a path to the goal
+         * may exist beyond it even if none was found.
+         */
+        return cutOff;
+    }
+
+    public List<State> search(State start, State goal) {
+        /**
+         * Use DFS to return the states on the path found, linked through their parents. Only the current node and
+         * the goal are reported to the listener, as there is no frontier.
+         * @return the states on the path, or an empty list if there is none
+         */
+        PolarGrid grid = PolarGrid.forCircles(start.getNoOfCircles());
+        int[] path = run(grid, grid.getId(start.getCircle(), start.getMeridian()),
+                grid.getId(goal.getCircle(), goal.getMeridian()), listener, null);
+        return grid.toStates(path);
+    }
+
+    public int[] search(PolarGrid grid, int source, int goal, SearchScratch scratch) {
+        /**
+         * Use DFS on the packed grid. The scratch arrays aren't used, but expansions still go to its sink.
+         * @return the ids on the path found
+         */
+        scratch.reset();
+        int[] path = run(grid, source, goal, null, scratch.getSink());
+        scratch.expanded = expansions;
+        return path;
+    }
+
+    private int[] run(PolarGrid grid, int source, int goal, SearchListener listener, ExplorationSink sink) {
+        expansions = 0;
+        iterations = 0;
+        peakDepth = 0;
+        int words = (grid.getNodeCount() + 63) >>> 6;
+        if (visited.length != words) {
+            visited = new long[words];
+        }
+        if (limited && reachedDepth.length != grid.getNodeCount()) {
+            reachedDepth = new int[grid.getNodeCount()];
+        }
+        int step = 0;
+
+        for (int limit = iterativeDeepening ? 0 : depthLimit; ; limit++) {
+            iterations += 1;
+            cutOff = false;
+            Arrays.fill(visited, 0);
+            int depth = 0;
+            path[0] = source;
+            nextChild[0] = -1;
+            mark(source, 0);
+
+            while (depth >= 0) {
+                int state = path[depth];
+                if (nextChild[depth] < 0) {
+                    step += 1;
+                    if (listener != null) {
+                        listener.onStep(step, grid.toState(state));
+                    }
+                    if (state == goal) {
+                        if (listener != null) {
+                            listener.onGoalReached(grid.toState(state));
+                        }
+                        return Arrays.copyOf(path, depth + 1);
+                    }
+                    if (depth == limit) {
+                        cutOff = true;
+                        depth -= 1;
+                        continue;
+                    }
+                    expansions += 1;
+                    if (sink != null) {
+                        sink.onExpand(state);
+                    }
+                    nextChild[depth] = 0;
+                }
+
+                // find the next transition to a node not reached yet, or reached deeper than it is now
+                int child = PolarGrid.NO_NODE;
+                int k = nextChild[depth];
+                while (k < PolarGrid.MAX_NEIGHBOURS && child == PolarGrid.NO_NODE) {
+                    int candidate = grid.getNeighbour(state, k);
+                    k += 1;
+                    if (candidate == PolarGrid.NO_NODE) {
+                        k = PolarGrid.MAX_NEIGHBOURS;
+                        break;
+                    }
+                    if (!isVisited(candidate) || (limited && depth + 1 < reachedDepth[candidate])) {
+                        child = candidate;
+                    }
+                }
+                nextChild[depth] = k;
+                if (child == PolarGrid.NO_NODE) {
+                    depth -= 1;
+                    continue;
+                }
+
+                depth += 1;
+                if (depth == path.length) {
+                    path = Arrays.copyOf(path, depth * 2);
+                    nextChild = Arrays.copyOf(nextChild, depth * 2);
+                }
+                path[depth] = child;
+                nextChild[depth] = -1;
+                peakDepth = Math.max(peakDepth, depth);
+                mark(child, depth);
+            }
+            if (!iterativeDeepening || !cutOff || limit >= depthLimit) {
+                return new int[0];
+            }
+        }
+    }
+
+    private boolean isVisited(int id) {
+        return (visited[id >>> 6] & (1L << id)) != 0;
+    }
+
+    private void mark(int id, int depth) {
+        visited[id >>> 6] |= 1L << id;
+        if (limited) {
+            reachedDepth[id] = depth;
+        }
+    }
+}
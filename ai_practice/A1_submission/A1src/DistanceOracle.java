@@ -0,0 +1,103 @@
+public class DistanceOracle {
+    /**
+     * Exact shortest-path costs on a PolarGrid, derived analytically instead of by search.
+     * Moving along a circle of radius c costs c times as much as along the unit circle, while moving between
+     * adjacent circles always costs 1. A cheapest route therefore makes all of its meridian steps on the innermost
+     * circle it visits, called the pivot. If the cheapest arc between the two meridians costs A on the unit circle,
+     * the route through pivot p costs (c1 - p) + (c2 - p) + p * A. That cost is linear in p, so the pivot is either
+     * circle 1 or min(c1, c2), and cost queries take O(1) while path queries take O(path).
+     */
+    private final PolarGrid grid;
+    // unit costs of the two kinds of meridian steps: the step from the last meridian back to 0 has its own cosine
+    private final double step;
+    private final double wrapStep;
+
+    public DistanceOracle(PolarGrid grid) {
+        this.grid = grid;
+        this.step = grid.getDistance(grid.getIdOfIndex(1, 0), grid.getIdOfIndex(1, 1));
+        this.wrapStep = grid.getDistance(grid.getIdOfIndex(1, grid.getMeridians() - 1), grid.getIdOfIndex(1, 0));
+    }
+
+    private double getArcCost(int fromMeridian, int toMeridian, boolean increasing) {
+        /**
+         * Cost on the unit circle of the arc between two meridian indices, towards H90 if "increasing", which
+         * crosses the last meridian -> 0 step iff the target meridian is smaller, and vice versa.
+         */
+        int m = grid.getMeridians();
+        int steps = toMeridian - fromMeridian;
+        if (steps == 0) {
+            return 0;
+        }
+        if (steps < 0) {
+            steps += m;
+        }
+        if (increasing) {
+            return toMeridian < fromMeridian ? (steps - 1) * step + wrapStep : steps * step;
+        }
+        return toMeridian > fromMeridian ? (m - steps - 1) * step + wrapStep : (m - steps) * step;
+    }
+
+    private double getArcCost(int from, int to) {
+        /**
+         * Cost on the unit circle of the cheapest arc between the meridians of two nodes.
+         */
+        int fromMeridian = grid.getMeridianIndex(from);
+        int toMeridian = grid.getMeridianIndex(to);
+        return Math.min(getArcCost(fromMeridian, toMeridian, true), getArcCost(fromMeridian, toMeridian, false));
+    }
+
+    public PolarGrid getGrid() {
+        return grid;
+    }
+
+    public int getPivotCircle(int from, int to) {
+        /**
+         * Innermost circle of the cheapest route, where all of its meridian steps are made.
+         */
+        int innerCircle = Math.min(grid.getCircle(from), grid.getCircle(to));
+        double arc = getArcCost(from, to);
+        // each circle further in saves "arc" on the meridian steps but costs 2 more on the radial ones
+        return arc > 2 ? 1 : innerCircle;
+    }
+
+    public double getCost(int from, int to) {
+        /**
+         * Cost of the cheapest route between two nodes, in O(1).
+         */
+        int pivot = getPivotCircle(from, to);
+        return (grid.getCircle(from) - pivot) + (grid.getCircle(to) - pivot) +
+                pivot * getArcCost(from, to);
+    }
+
+    public double getCost(State from, State to) {
+        return getCost(grid.getId(from.getCircle(), from.getMeridian()), grid.getId(to.getCircle(), to.getMeridian()));
+    }
+
+    public int[] getPath(int from, int to) {
+        /**
+         * Ids on a cheapest route between two nodes, in O(path): down to the pivot circle, along it, and back out.
+         */
+        int m = grid.getMeridians();
+        int fromMeridian = grid.getMeridianIndex(from);
+        int toMeridian = grid.getMeridianIndex(to);
+        int pivot = getPivotCircle(from, to);
+        int fromCircle = grid.getCircle(from);
+        int toCircle = grid.getCircle(to);
+        boolean increasing = getArcCost(fromMeridian, toMeridian, true) <= getArcCost(fromMeridian, toMeridian, false);
+        int arcSteps = increasing ? (toMeridian - fromMeridian + m) % m : (fromMeridian - toMeridian + m) % m;
+
+        int[] path = new int[(fromCircle - pivot) + arcSteps + (toCircle - pivot) + 1];
+        int i = 0;
+        for (int circle = fromCircle; circle > pivot; circle--) {
+            path[i++] = grid.getIdOfIndex(circle, fromMeridian);
+        }
+        for (int k = 0; k < arcSteps; k++) {
+            int meridian = increasing ? (fromMeridian + k) % m : (fromMeridian - k + m) % m;
+            path[i++] = grid.getIdOfIndex(pivot, meridian);
+        }
+        for (int circle = pivot; circle <= toCircle; circle++) {
+            path[i++] = grid.getIdOfIndex(circle, toMeridian);
+        }
+        return path;
+    }
+}
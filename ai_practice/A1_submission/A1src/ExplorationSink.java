@@ -0,0 +1,25 @@
+public interface ExplorationSink {
+    /**
+     * Receives the events of a search on the packed grid as they happen, as plain PolarGrid ids. Unlike
+     * search(State, State), which returns every explored state, nothing is kept for the sink, so a caller can
+     * process the events or drop them and the memory used stays the same however many states are explored.
+     * See State.initiateStreamingSearch().
+     */
+
+    /**
+     * A state is expanded. For bidirectional search, expansions of both sides are interleaved.
+     */
+    public void onExpand(int id);
+
+    /**
+     * The next node of the path found, from the source to the goal, once the search has ended.
+     */
+    public void onPathNode(int id);
+
+    /**
+     * The search has ended, after the last node of the path if one was found.
+     * @param found is whether the goal was reached.
+     * @param expanded is the number of states expanded.
+     */
+    public void onFinished(boolean found, long expanded);
+}
@@ -0,0 +1,208 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class IDAStarSearch implements MemoryBoundedSearch {
+    /**
+     * An implementation of the search interface for iterative-deepening A* searching.
+     * Every iteration is a depth-first search that cuts off paths whose F-score exceeds a bound, starting with the
+     * h-score of the source and raised to the smallest F-score cut off by the previous iteration. Only the current
+     * path is stored, plus a transposition table of the best g-score seen for up to "nodeBudget" states in the
+     * current iteration, which prunes paths that reach a state more expensively than before. A budget of 0 gives
+     * plain IDA*; larger budgets re-expand less.
+     * Re-expansions are counted against a set of at most "nodeBudget" states expanded before, so the count is exact
+     * until that many distinct states have been expanded, and a lower bound after. With the path, the table and that
+     * set, at most depth + 2 * nodeBudget entries are held at once, and getPeakNodes() counts all of them.
+     */
+    public static final int DEFAULT_NODE_BUDGET = 1 << 16;
+
+    private final int nodeBudget;
+    // statistics of the last search
+    private long expansions = 0;
+    private long reExpansions = 0;
+    private int peakNodes = 0;
+    private int iterations = 0;
+    // receives the trace of every step, if any
+    private SearchListener listener = new ConsoleTraceListener();
+
+    public IDAStarSearch() {
+        this(DEFAULT_NODE_BUDGET);
+    }
+
+    public IDAStarSearch(int nodeBudget) {
+        this.nodeBudget = nodeBudget;
+    }
+
+    public void setListener(SearchListener listener) {
+        this.listener = listener;
+    }
+
+    public int getNodeBudget() {
+        return nodeBudget;
+    }
+
+    public long getExpansions() {
+        return expansions;
+    }
+
+    public long getReExpansions() {
+        return reExpansions;
+    }
+
+    public int getPeakNodes() {
+        return peakNodes;
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    public List<State> search(State start, State goal) {
+        /**
+         * Use IDA* to return the states on the path found, linked through their parents. Only the current node and
+         * the goal are reported to the listener, as there is no frontier.
+         * @return the states on the path, or an empty list if there is none
+         */
+        PolarGrid grid = PolarGrid.forCircles(start.getNoOfCircles());
+        int[] path = run(grid, grid.getId(start.getCircle(), start.getMeridian()),
+                grid.getId(goal.getCircle(), goal.getMeridian()), listener, null);
+        return grid.toStates(path);
+    }
+
+    public int[] search(PolarGrid grid, int source, int goal, SearchScratch scratch) {
+        /**
+         * Use IDA* on the packed grid. The scratch arrays aren't used, as they would hold every node of the grid, but
+         * expansions still go to its sink.
+         * @return the ids on the path found
+         */
+        scratch.reset();
+        int[] path = run(grid, source, goal, null, scratch.getSink());
+        scratch.expanded = expansions;
+        return path;
+    }
+
+    private int[] run(PolarGrid grid, int source, int goal, SearchListener listener, ExplorationSink sink) {
+        expansions = 0;
+        reExpansions = 0;
+        peakNodes = 0;
+        iterations = 0;
+        // states expanded so far, for at most nodeBudget states and only used to count re-expansions
+        Set<Integer> expanded = new HashSet<>();
+        // best g-score reached in the current iteration, for at most nodeBudget states
+        Map<Integer, Double> table = new HashMap<>();
+        // the current path: node, its g-score and the next transition to try at every depth (-1 before entering)
+        int[] path = new int[64];
+        double[] pathG = new double[64];
+        int[] nextChild = new int[64];
+        double bound = grid.getDistance(source, goal);
+        int step = 0;
+
+        while (true) {
+            iterations += 1;
+            table.clear();
+            if (nodeBudget > 0) {
+                table.put(source, 0.0);
+            }
+            double nextBound = Double.POSITIVE_INFINITY;
+            int depth = 0;
+            path[0] = source;
+            pathG[0] = 0;
+            nextChild[0] = -1;
+
+            while (depth >= 0) {
+                int state = path[depth];
+                if (nextChild[depth] < 0) {
+                    double f = pathG[depth] + grid.getDistance(state, goal);
+                    if (f > bound) {
+                        // cut off: the smallest F-score beyond the bound becomes the next bound
+                        nextBound = Math.min(nextBound, f);
+                        depth -= 1;
+                        continue;
+                    }
+                    step += 1;
+                    if (listener != null) {
+                        listener.onStep(step, grid.toState(state));
+                    }
+                    if (state == goal) {
+                        if (listener != null) {
+                            listener.onGoalReached(grid.toState(state));
+                        }
+                        return Arrays.copyOf(path, depth + 1);
+                    }
+                    expansions += 1;
+                    if (expanded.contains(state)) {
+                        reExpansions += 1;
+                    } else if (expanded.size() < nodeBudget) {
+                        expanded.add(state);
+                    }
+                    if (sink != null) {
+                        sink.onExpand(state);
+                    }
+                    peakNodes = Math.max(peakNodes, depth + 1 + table.size() + expanded.size());
+                    nextChild[depth] = 0;
+                }
+
+                // find the next transition worth following from this state
+                int child = PolarGrid.NO_NODE;
+                double childG = 0;
+                int k = nextChild[depth];
+                while (k < PolarGrid.MAX_NEIGHBOURS && child == PolarGrid.NO_NODE) {
+                    int candidate = grid.getNeighbour(state, k);
+                    k += 1;
+                    if (candidate == PolarGrid.NO_NODE) {
+                        k = PolarGrid.MAX_NEIGHBOURS;
+                        break;
+                    }
+                    double g = pathG[depth] + grid.getDistance(state, candidate);
+                    Double known = table.get(candidate);
+                    if (known != null) {
+                        if (known <= g) {
+                            continue;
+                        }
+                    } else if (isOnPath(path, depth, candidate)) {
+                        continue;
+                    }
+                    if (known != null || table.size() < nodeBudget) {
+                        table.put(candidate, g);
+                    }
+                    child = candidate;
+                    childG = g;
+                }
+                nextChild[depth] = k;
+                if (child == PolarGrid.NO_NODE) {
+                    depth -= 1;
+                    continue;
+                }
+
+                depth += 1;
+                if (depth == path.length) {
+                    path = Arrays.copyOf(path, depth * 2);
+                    pathG = Arrays.copyOf(pathG, depth * 2);
+                    nextChild = Arrays.copyOf(nextChild, depth * 2);
+                }
+                path[depth] = child;
+                pathG[depth] = childG;
+                nextChild[depth] = -1;
+            }
+            if (nextBound == Double.POSITIVE_INFINITY) {
+                return new int[0];
+            }
+            bound = nextBound;
+        }
+    }
+
+    private static boolean isOnPath(int[] path, int depth, int id) {
+        /**
+         * Whether the node is on the current path, which rules out cycles for states not in the table.
+         */
+        for (int i = depth; i >= 0; i--) {
+            if (path[i] == id) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
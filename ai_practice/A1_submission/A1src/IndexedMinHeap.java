@@ -0,0 +1,171 @@
+import java.util.Arrays;
+
+public class IndexedMinHeap {
+    /**
+     * Binary min-heap over integer node ids (see State.getId()) that keeps the heap position of every id, so that
+     * membership tests are O(1) and push, pop and decrease-key are O(log n).
+     */
+    private int[] heap;
+    private int[] position;
+    private double[] priority;
+    private int size = 0;
+    // number of push() calls and largest size since the last clear()
+    private long pushes = 0;
+    private int peakSize = 0;
+
+    public IndexedMinHeap(int capacity) {
+        capacity = Math.max(capacity, 1);
+        heap = new int[capacity];
+        position = new int[capacity];
+        priority = new double[capacity];
+        Arrays.fill(position, -1);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public long getPushes() {
+        return pushes;
+    }
+
+    public int getPeakSize() {
+        return peakSize;
+    }
+
+    public boolean contains(int id) {
+        return id < position.length && position[id] != -1;
+    }
+
+    public double getPriority(int id) {
+        return priority[id];
+    }
+
+    public int idAt(int index) {
+        /**
+         * Id stored at the given heap index; iterating 0..size() - 1 visits the frontier in heap (not sorted) order.
+         */
+        return heap[index];
+    }
+
+    public int peek() {
+        return heap[0];
+    }
+
+    public void push(int id, double newPriority) {
+        /**
+         * Insert the id, or move it to its new priority if it is already in the heap (decrease- or increase-key).
+         */
+        ensureCapacity(id);
+        pushes += 1;
+        if (contains(id)) {
+            double oldPriority = priority[id];
+            priority[id] = newPriority;
+            if (newPriority < oldPriority) {
+                siftUp(position[id]);
+            } else {
+                siftDown(position[id]);
+            }
+            return;
+        }
+        priority[id] = newPriority;
+        heap[size] = id;
+        position[id] = size;
+        size += 1;
+        peakSize = Math.max(peakSize, size);
+        siftUp(size - 1);
+    }
+
+    public int pop() {
+        /**
+         * Remove and return the id with the smallest priority.
+         */
+        int top = heap[0];
+        removeAt(0);
+        return top;
+    }
+
+    public void remove(int id) {
+        if (contains(id)) {
+            removeAt(position[id]);
+        }
+    }
+
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            position[heap[i]] = -1;
+        }
+        size = 0;
+        pushes = 0;
+        peakSize = 0;
+    }
+
+    private void removeAt(int index) {
+        int id = heap[index];
+        size -= 1;
+        position[id] = -1;
+        if (index == size) {
+            return;
+        }
+        // move the last element into the hole and restore the heap property in whichever direction is needed
+        int last = heap[size];
+        heap[index] = last;
+        position[last] = index;
+        siftUp(index);
+        siftDown(position[last]);
+    }
+
+    private void siftUp(int index) {
+        int id = heap[index];
+        double p = priority[id];
+        while (index > 0) {
+            int parentIndex = (index - 1) >>> 1;
+            int parentId = heap[parentIndex];
+            if (priority[parentId] <= p) {
+                break;
+            }
+            heap[index] = parentId;
+            position[parentId] = index;
+            index = parentIndex;
+        }
+        heap[index] = id;
+        position[id] = index;
+    }
+
+    private void siftDown(int index) {
+        int id = heap[index];
+        double p = priority[id];
+        int half = size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            int right = child + 1;
+            if (right < size && priority[heap[right]] < priority[heap[child]]) {
+                child = right;
+            }
+            if (p <= priority[heap[child]]) {
+                break;
+            }
+            heap[index] = heap[child];
+            position[heap[child]] = index;
+            index = child;
+        }
+        heap[index] = id;
+        position[id] = index;
+    }
+
+    private void ensureCapacity(int id) {
+        if (id < position.length) {
+            return;
+        }
+        int capacity = Math.max(id + 1, position.length * 2);
+        int oldLength = position.length;
+        heap = Arrays.copyOf(heap, capacity);
+        priority = Arrays.copyOf(priority, capacity);
+        position = Arrays.copyOf(position, capacity);
+        Arrays.fill(position, oldLength, capacity, -1);
+    }
+}
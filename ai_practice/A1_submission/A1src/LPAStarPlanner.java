@@ -0,0 +1,155 @@
+import java.util.Arrays;
+
+public class LPAStarPlanner {
+    /**
+     * Incremental planner (Lifelong Planning A*) for repeated queries between the same source and goal while the
+     * costs of a CostMap change. Like A*, it keeps a g-score per node, but also a one-step lookahead
+     * rhs = min over neighbours of (g(neighbour) + cost), and only nodes where the two disagree are put on the
+     * frontier. After some costs change, plan() re-examines just the ends of the changed transitions and repairs the
+     * g-scores around them, instead of searching again from scratch.
+     * The heuristic is DistanceOracle's exact cost on the polar distances, which stays consistent as costs are only
+     * ever raised above those (see CostMap).
+     */
+    // slack on key comparisons: keys sum costs in different orders, so equal keys can differ in the last bits
+    private static final double TOLERANCE = 1e-9;
+
+    private final CostMap costMap;
+    private final PolarGrid grid;
+    private final DistanceOracle oracle;
+    private final int source;
+    private final int goal;
+    private final double[] gscore;
+    private final double[] rhs;
+    private final IndexedMinHeap frontier;
+    // version of the cost map the current g-scores were computed for
+    private int plannedVersion;
+    // number of states expanded by the last plan()
+    private long expansions = 0;
+
+    public LPAStarPlanner(CostMap costMap, int source, int goal) {
+        this.costMap = costMap;
+        this.grid = costMap.getGrid();
+        this.oracle = new DistanceOracle(grid);
+        this.source = source;
+        this.goal = goal;
+        this.gscore = new double[grid.getNodeCount()];
+        this.rhs = new double[grid.getNodeCount()];
+        this.frontier = new IndexedMinHeap(grid.getNodeCount());
+        Arrays.fill(gscore, Double.POSITIVE_INFINITY);
+        Arrays.fill(rhs, Double.POSITIVE_INFINITY);
+        rhs[source] = 0;
+        frontier.push(source, getKey(source));
+        plannedVersion = costMap.getVersion();
+    }
+
+    public long getExpansions() {
+        return expansions;
+    }
+
+    public double getPathCost() {
+        /**
+         * Cost of the path found by the last plan(), or infinity if the goal can't be reached.
+         */
+        return gscore[goal];
+    }
+
+    public int[] plan() {
+        /**
+         * Bring the solution up to date with all changes made to the cost map since the last call.
+         * @return the ids on a cheapest path from source to goal, or an empty array if the goal can't be reached.
+         */
+        expansions = 0;
+        for (int change = plannedVersion; change < costMap.getVersion(); change++) {
+            updateNode(costMap.getChangeFrom(change));
+            updateNode(costMap.getChangeTo(change));
+        }
+        plannedVersion = costMap.getVersion();
+
+        // settle every inconsistent node that could lie on a path at most as expensive as the goal's
+        while (!frontier.isEmpty() && (frontier.getPriority(frontier.peek()) <= getKey(goal) + TOLERANCE ||
+                rhs[goal] != gscore[goal])) {
+            int state = frontier.pop();
+            expansions += 1;
+            if (gscore[state] > rhs[state]) {
+                // over-consistent: the lookahead found a cheaper route, which is now final
+                gscore[state] = rhs[state];
+            } else {
+                // under-consistent: the route got more expensive, so recompute the node and its dependents
+                gscore[state] = Double.POSITIVE_INFINITY;
+                updateNode(state);
+            }
+            for (int k = 0; k < PolarGrid.MAX_NEIGHBOURS; k++) {
+                int child = grid.getNeighbour(state, k);
+                if (child == PolarGrid.NO_NODE) {
+                    break;
+                }
+                updateNode(child);
+            }
+        }
+        return getPath();
+    }
+
+    private double getKey(int id) {
+        return Math.min(gscore[id], rhs[id]) + oracle.getCost(id, goal);
+    }
+
+    private void updateNode(int id) {
+        /**
+         * Recompute the lookahead of a node, and keep it on the frontier exactly while it is inconsistent.
+         */
+        if (id != source) {
+            double best = Double.POSITIVE_INFINITY;
+            for (int k = 0; k < PolarGrid.MAX_NEIGHBOURS; k++) {
+                int neighbour = grid.getNeighbour(id, k);
+                if (neighbour == PolarGrid.NO_NODE) {
+                    break;
+                }
+                best = Math.min(best, gscore[neighbour] + costMap.getNeighbourCost(id, k));
+            }
+            rhs[id] = best;
+        }
+        if (gscore[id] != rhs[id]) {
+            frontier.push(id, getKey(id));
+        } else if (frontier.contains(id)) {
+            frontier.remove(id);
+        }
+    }
+
+    private int[] getPath() {
+        /**
+         * Trace the path back from the goal, always stepping to the neighbour the goal's g-score was derived from.
+         */
+        if (gscore[goal] == Double.POSITIVE_INFINITY) {
+            return new int[0];
+        }
+        int[] path = new int[16];
+        int length = 0;
+        path[length++] = goal;
+        for (int id = goal; id != source; ) {
+            int previous = PolarGrid.NO_NODE;
+            double best = Double.POSITIVE_INFINITY;
+            for (int k = 0; k < PolarGrid.MAX_NEIGHBOURS; k++) {
+                int neighbour = grid.getNeighbour(id, k);
+                if (neighbour == PolarGrid.NO_NODE) {
+                    break;
+                }
+                double g = gscore[neighbour] + costMap.getNeighbourCost(id, k);
+                if (g < best) {
+                    best = g;
+                    previous = neighbour;
+                }
+            }
+            if (length == path.length) {
+                path = Arrays.copyOf(path, length * 2);
+            }
+            path[length++] = previous;
+            id = previous;
+        }
+        // reverse the traced path to begin with the source node.
+        int[] reversed = new int[length];
+        for (int i = 0; i < length; i++) {
+            reversed[i] = path[length - 1 - i];
+        }
+        return reversed;
+    }
+}
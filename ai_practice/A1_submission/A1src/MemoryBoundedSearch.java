@@ -0,0 +1,27 @@
+public interface MemoryBoundedSearch extends Search {
+    /**
+     * A search that keeps at most a configurable number of nodes in memory, trading memory for repeated work.
+     * The counters describe the last search run.
+     */
+
+    /**
+     * Number of nodes the search is allowed to keep; see each search for the bound it implies on the whole memory.
+     */
+    public int getNodeBudget();
+
+    /**
+     * Number of states expanded, counting every re-expansion.
+     */
+    public long getExpansions();
+
+    /**
+     * Number of expansions of states that had already been expanded before in the same search, as far as the
+     * search can remember within its budget.
+     */
+    public long getReExpansions();
+
+    /**
+     * Largest number of nodes and table entries held in memory at any time.
+     */
+    public int getPeakNodes();
+}
@@ -0,0 +1,225 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class PolarGrid {
+    /**
+     * Compact representation of the polar world used by the packed search mode. Every (circle, meridian) position
+     * is a single int id (circle * 8 + meridian / 45, as in State.getId()) and the transitions produced by
+     * State.getNext() are precomputed once into a flat array, so searches never allocate per expansion.
+     * Grids of any angular resolution can be built with withResolution(): ids are then circle * meridians + index,
+     * where index is the meridian's position counted in steps of 360 / meridians degrees. The circle and index of
+     * every id, and the cosine of every meridian difference, are precomputed as well, so neither adjacency nor the
+     * distances used as heuristics divide or take a modulo per expansion.
+     */
+    // number of meridians of the assignment's world, in steps of 45 degrees
+    public static final int MERIDIANS = 8;
+    public static final int MAX_NEIGHBOURS = 4;
+    public static final int NO_NODE = -1;
+    // grids already built, shared by all queries on the same number of circles
+    private static final Map<Integer, PolarGrid> grids = new ConcurrentHashMap<>();
+
+    private final int noOfCircles;
+    private final int meridians;
+    private final int nodeCount;
+    // neighbours[id * MAX_NEIGHBOURS + k], in the same order as State.getNext(), padded with NO_NODE
+    private final int[] neighbours;
+    // circle and meridian index of every id
+    private final int[] circleOf;
+    private final int[] meridianOf;
+    // Math.cos of every signed meridian difference, indexed by difference + meridians - 1
+    private final double[] cosTable;
+
+    public PolarGrid(int noOfCircles) {
+        /**
+         * The assignment's world of 8 meridians, with the costs of BidirectionalSearch.computePolarDistance(),
+         * which passes the meridian difference in degrees to Math.cos.
+         */
+        this(noOfCircles, MERIDIANS, 45);
+    }
+
+    private PolarGrid(int noOfCircles, int meridians, double stepAngle) {
+        /**
+         * @param stepAngle is the angle passed to Math.cos for a difference of one meridian.
+         */
+        if (meridians < 3) {
+            throw new IllegalArgumentException("a polar world needs at least 3 meridians, not " + meridians);
+        }
+        this.noOfCircles = noOfCircles;
+        this.meridians = meridians;
+        this.nodeCount = Math.multiplyExact(noOfCircles + 1, meridians);
+        this.neighbours = new int[Math.multiplyExact(nodeCount, MAX_NEIGHBOURS)];
+        this.circleOf = new int[nodeCount];
+        this.meridianOf = new int[nodeCount];
+        this.cosTable = new double[2 * meridians - 1];
+
+        for (int d = -(meridians - 1); d < meridians; d++) {
+            cosTable[d + meridians - 1] = Math.cos(d * stepAngle);
+        }
+        Arrays.fill(neighbours, NO_NODE);
+        for (int circle = 0; circle <= noOfCircles; circle++) {
+            for (int m = 0; m < meridians; m++) {
+                int id = circle * meridians + m;
+                circleOf[id] = circle;
+                meridianOf[id] = m;
+                if (circle == 0) {
+                    continue;
+                }
+                int base = id * MAX_NEIGHBOURS;
+                int k = 0;
+                neighbours[base + k++] = circle * meridians + (m + 1) % meridians;
+                neighbours[base + k++] = circle * meridians + (m + meridians - 1) % meridians;
+                // take care of falling into 0th world and beyond the outermost world
+                if (circle > 1) {
+                    neighbours[base + k++] = (circle - 1) * meridians + m;
+                }
+                if (circle < noOfCircles) {
+                    neighbours[base + k] = (circle + 1) * meridians + m;
+                }
+            }
+        }
+    }
+
+    public static PolarGrid withResolution(int noOfCircles, int meridians) {
+        /**
+         * A world with "meridians" meridians evenly spread around every circle. Its costs are the straight-line
+         * distances between positions at their geometric angle, since the degrees-as-radians cosine of the 8
+         * meridian world has no meaning between arbitrary angles; even with 8 meridians, this grid is therefore not
+         * the assignment's. Grids of any resolution are metric, so their distances stay consistent heuristics.
+         */
+        return new PolarGrid(noOfCircles, meridians, 2 * Math.PI / meridians);
+    }
+
+    public static PolarGrid forCircles(int noOfCircles) {
+        /**
+         * Return the shared grid for the number of circles, building it on first use.
+         */
+        return grids.computeIfAbsent(noOfCircles, PolarGrid::new);
+    }
+
+    public int getNoOfCircles() {
+        return noOfCircles;
+    }
+
+    public int getMeridians() {
+        return meridians;
+    }
+
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    public int getId(int circle, int meridian) {
+        /**
+         * Id of a position given its meridian in degrees, which must be a multiple of 360 / getMeridians().
+         */
+        return circle * meridians + (int) ((long) meridian * meridians / 360);
+    }
+
+    public int getIdOfIndex(int circle, int meridianIndex) {
+        return circle * meridians + meridianIndex;
+    }
+
+    public int getCircle(int id) {
+        return circleOf[id];
+    }
+
+    public int getMeridianIndex(int id) {
+        return meridianOf[id];
+    }
+
+    public int getMeridian(int id) {
+        /**
+         * Meridian of a node in degrees, rounded down when the resolution doesn't divide 360.
+         */
+        return (int) ((long) meridianOf[id] * 360 / meridians);
+    }
+
+    public static boolean isValidPosition(int noOfCircles, int circle, int meridian) {
+        return circle >= 1 && circle <= noOfCircles && meridian >= 0 && meridian < 360 && meridian % 45 == 0;
+    }
+
+    public boolean contains(int circle, int meridian) {
+        return circle >= 1 && circle <= noOfCircles && meridian >= 0 && meridian < 360 &&
+                (long) meridian * meridians % 360 == 0;
+    }
+
+    public int getNeighbour(int id, int k) {
+        /**
+         * k-th transition of the node (0 <= k < MAX_NEIGHBOURS), or NO_NODE once the node has no more transitions.
+         */
+        return neighbours[id * MAX_NEIGHBOURS + k];
+    }
+
+    public double getDistance(int from, int to) {
+        /**
+         * Polar distance between two nodes, identical to BidirectionalSearch.computePolarDistance() on their
+         * circles and meridians but with the cosine looked up instead of recomputed.
+         */
+        double radius1 = circleOf[from];
+        double radius2 = circleOf[to];
+        double cos = cosTable[meridianOf[to] - meridianOf[from] + meridians - 1];
+        return Math.sqrt(radius1 * radius1 + radius2 * radius2 - 2 * radius1 * radius2 * cos);
+    }
+
+    public int getHops(int from, int to) {
+        /**
+         * Fewest transitions between two nodes: the circles to cross plus the meridians to turn, either way round.
+         * Every such path exists, as no circle but the 0th one is cut off.
+         */
+        int turns = Math.abs(meridianOf[to] - meridianOf[from]);
+        return Math.abs(circleOf[to] - circleOf[from]) + Math.min(turns, meridians - turns);
+    }
+
+    public State toState(int id) {
+        return new State(getCircle(id), getMeridian(id), noOfCircles);
+    }
+
+    public List<State> toStates(int[] path) {
+        /**
+         * States of a path of ids, each linked to its predecessor through "parent" and with its g-score set to the
+         * cost from the start, so State.getPath() can trace the path again.
+         */
+        List<State> states = new ArrayList<>(path.length);
+        State previous = null;
+        for (int i = 0; i < path.length; i++) {
+            State state = toState(path[i]);
+            state.parent = previous;
+            state.setGScore(previous == null ? 0 : previous.getGscore() + getDistance(path[i - 1], path[i]));
+            states.add(state);
+            previous = state;
+        }
+        return states;
+    }
+
+    public String getDirection(int previous, int current) {
+        /**
+         * Label of the transition between two adjacent nodes, as State.getLabelsForPath().
+         */
+        int previousCircle = circleOf[previous];
+        int currentCircle = circleOf[current];
+        if (currentCircle == previousCircle) {
+            int steps = meridianOf[current] - meridianOf[previous];
+            if (steps == 1 || steps == 1 - meridians) {
+                return "H90";
+            } else if (steps == -1 || steps == meridians - 1) {
+                return "H270";
+            }
+            return "";
+        }
+        return currentCircle == previousCircle + 1 ? "H180" : "H360";
+    }
+
+    public double getPathCost(int[] path) {
+        /**
+         * Total polar distance along a path, summed in the same order as State.printSolution().
+         */
+        double totalPathCost = 0;
+        for (int i = 1; i < path.length; i++) {
+            totalPathCost += getDistance(path[i], path[i - 1]);
+        }
+        return totalPathCost;
+    }
+}
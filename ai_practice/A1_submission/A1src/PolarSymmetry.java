@@ -0,0 +1,133 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class PolarSymmetry {
+    /**
+     * One symmetry of the polar world: an optional reflection m -> 315 - m, followed by a rotation of the meridians
+     * by a number of 45 degree steps. Circles are left as they are.
+     * All 16 of them map transitions to transitions, so they preserve hop counts. They don't all preserve costs:
+     * computePolarDistance() passes the meridian difference in degrees to Math.cos, so the 315 -> 0 transition
+     * costs less than the other meridian steps, and only the reflection keeps that transition where it is. Which
+     * symmetries a query may use therefore depends on its algorithm (see getGroup()).
+     */
+    public static final PolarSymmetry IDENTITY = new PolarSymmetry(0, false);
+    public static final PolarSymmetry REFLECTION = new PolarSymmetry(0, true);
+    private static final List<PolarSymmetry> ALL = new ArrayList<>();
+    static {
+        for (int rotation = 0; rotation < PolarGrid.MERIDIANS; rotation++) {
+            ALL.add(new PolarSymmetry(rotation, false));
+            ALL.add(new PolarSymmetry(rotation, true));
+        }
+    }
+    // algorithms returning a cheapest route, which is still a cheapest route after a cost-preserving symmetry
+    static final List<String> COST_OPTIMAL_ALGORITHMS = Arrays.asList("AStar", "IDAStar", "Oracle");
+
+    private final int rotation;
+    private final boolean reflected;
+
+    private PolarSymmetry(int rotation, boolean reflected) {
+        this.rotation = rotation;
+        this.reflected = reflected;
+    }
+
+    public static List<PolarSymmetry> getGroup(Query query) {
+        /**
+         * Symmetries mapping the answer of the query to an answer of the transformed query:
+         * all 16 for BFS, BitBFS and IDDFS, whose routes are only defined by their number of hops; the identity and
+         * the reflection for algorithms that find a cheapest route; only the identity otherwise.
+         */
+        if (isHopOptimal(query)) {
+            return Collections.unmodifiableList(ALL);
+        }
+        if (isCostOptimal(query)) {
+            return Arrays.asList(IDENTITY, REFLECTION);
+        }
+        return Collections.singletonList(IDENTITY);
+    }
+
+    public static boolean isHopOptimal(Query query) {
+        return query.algorithm.equals("BFS") || query.algorithm.equals("BitBFS") ||
+                query.algorithm.equals("IDDFS");
+    }
+
+    public static boolean isCostOptimal(Query query) {
+        return COST_OPTIMAL_ALGORITHMS.contains(query.algorithm) ||
+                (query.algorithm.equals("Bidirec") && query.bidirec_algo.equals("AStar"));
+    }
+
+    public static boolean isReversible(Query query) {
+        /**
+         * Whether the reverse of an answer to the query also answers the reverse query: true if the answer is only
+         * defined by its cost or number of hops, as transitions cost the same both ways.
+         */
+        return isHopOptimal(query) || isCostOptimal(query);
+    }
+
+    public int getRotation() {
+        return rotation;
+    }
+
+    public boolean isReflected() {
+        return reflected;
+    }
+
+    public int applyToMeridian(int meridian) {
+        int m = meridian / 45;
+        if (reflected) {
+            m = PolarGrid.MERIDIANS - 1 - m;
+        }
+        return ((m + rotation) % PolarGrid.MERIDIANS) * 45;
+    }
+
+    public int apply(int id) {
+        /**
+         * Image of a PolarGrid id.
+         */
+        int circle = id / PolarGrid.MERIDIANS;
+        return circle * PolarGrid.MERIDIANS + applyToMeridian((id % PolarGrid.MERIDIANS) * 45) / 45;
+    }
+
+    public int[] apply(int[] path) {
+        int[] image = new int[path.length];
+        for (int i = 0; i < path.length; i++) {
+            image[i] = apply(path[i]);
+        }
+        return image;
+    }
+
+    public Query apply(Query query) {
+        return new Query(query.id, query.algorithm, query.noOfCircles, query.sourceCircle,
+                applyToMeridian(query.sourceMeridian), query.goalCircle, applyToMeridian(query.goalMeridian),
+                query.bidirec_algo);
+    }
+
+    public PolarSymmetry inverse() {
+        // a reflection is its own inverse once the rotation is folded in; a rotation is undone by the opposite one
+        return reflected ? this : new PolarSymmetry((PolarGrid.MERIDIANS - rotation) % PolarGrid.MERIDIANS, false);
+    }
+
+    public static PolarSymmetry canonicalize(Query query) {
+        /**
+         * The symmetry of the query's group mapping it to its canonical form: the image with the smallest source
+         * meridian, then the smallest goal meridian. With all 16 symmetries the canonical source meridian is 0.
+         */
+        PolarSymmetry best = IDENTITY;
+        for (PolarSymmetry symmetry : getGroup(query)) {
+            int source = symmetry.applyToMeridian(query.sourceMeridian);
+            int goal = symmetry.applyToMeridian(query.goalMeridian);
+            int bestSource = best.applyToMeridian(query.sourceMeridian);
+            int bestGoal = best.applyToMeridian(query.goalMeridian);
+            if (source < bestSource || (source == bestSource && goal < bestGoal)) {
+                best = symmetry;
+            }
+        }
+        return best;
+    }
+
+    @Override
+    public String toString() {
+        return (reflected ? "reflect, " : "") + "rotate " + rotation * 45;
+    }
+}
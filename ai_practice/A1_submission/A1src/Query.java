@@ -0,0 +1,118 @@
+import java.util.Arrays;
+import java.util.List;
+
+public class Query {
+    /**
+     * One routing query, given by the same arguments as A1main:
+     *  <DFS|BFS|AStar|BestF|IDAStar|SMAStar|ARAStar|BitBFS|IDDFS|Bidirec|Oracle> <N> <d\_s,angle\_s> <d\_g,angle\_g>
+     *      [BFS|BestF|AStar]*
+     * "Oracle" answers the query with DistanceOracle, without searching.
+     */
+    static final List<String> ALGORITHMS = Arrays.asList("DFS", "BFS", "AStar", "BestF", "IDAStar", "SMAStar",
+            "ARAStar", "BitBFS", "IDDFS", "Bidirec", "Oracle");
+    static final List<String> BIDIREC_ALGORITHMS = Arrays.asList("BFS", "BestF", "AStar");
+
+    public final int id;
+    public final String algorithm;
+    public final int noOfCircles;
+    public final int sourceCircle;
+    public final int sourceMeridian;
+    public final int goalCircle;
+    public final int goalMeridian;
+    public final String bidirec_algo;
+
+    public Query(int id, String algorithm, int noOfCircles, int sourceCircle, int sourceMeridian, int goalCircle,
+                 int goalMeridian, String bidirec_algo) {
+        this.id = id;
+        this.algorithm = algorithm;
+        this.noOfCircles = noOfCircles;
+        this.sourceCircle = sourceCircle;
+        this.sourceMeridian = sourceMeridian;
+        this.goalCircle = goalCircle;
+        this.goalMeridian = goalMeridian;
+        this.bidirec_algo = bidirec_algo;
+    }
+
+    public static Query parse(int id, String line) {
+        /**
+         * Parse a query line; "N" is the number of circles including the pole, as on the A1main command line.
+         * @throws IllegalArgumentException if the line is not a valid query.
+         */
+        String[] args = line.trim().split("\\s+");
+        if (args.length < 4 || !ALGORITHMS.contains(args[0])) {
+            throw new IllegalArgumentException("expected <DFS|BFS|AStar|BestF|IDAStar|SMAStar|ARAStar|BitBFS|IDDFS|" +
+                    "Bidirec|Oracle> <N> <d_s,angle_s> <d_g,angle_g> [BFS|BestF|AStar]");
+        }
+        String bidirec_algo = null;
+        if (args[0].equals("Bidirec")) {
+            if (args.length < 5 || !BIDIREC_ALGORITHMS.contains(args[4])) {
+                throw new IllegalArgumentException("bidirectional search needs a fifth argument: BFS, BestF or AStar");
+            }
+            bidirec_algo = args[4];
+        }
+        int noOfCircles;
+        int[] source;
+        int[] goal;
+        try {
+            noOfCircles = Integer.parseInt(args[1]) - 1;
+            source = A1main.resolveInputString(args[2]);
+            goal = A1main.resolveInputString(args[3]);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("malformed number: " + e.getMessage());
+        }
+        if (source.length != 2 || goal.length != 2) {
+            throw new IllegalArgumentException("positions must be given as d,angle");
+        }
+        if (source[0] == 0 || goal[0] == 0) {
+            throw new IllegalArgumentException("aircraft can't fly over the pole");
+        }
+        if (!PolarGrid.isValidPosition(noOfCircles, source[0], source[1]) ||
+                !PolarGrid.isValidPosition(noOfCircles, goal[0], goal[1])) {
+            throw new IllegalArgumentException("position outside the world");
+        }
+        return new Query(id, args[0], noOfCircles, source[0], source[1], goal[0], goal[1], bidirec_algo);
+    }
+
+    public Route solve(SearchScratch scratch, SearchScratch goalScratch) {
+        return solve(scratch, goalScratch, false);
+    }
+
+    public Route solve(SearchScratch scratch, SearchScratch goalScratch, boolean measureAllocation) {
+        /**
+         * Answer the query with the packed search mode. The route carries the SearchMetrics of the run.
+         * @param scratch holds the arrays of the search; its grid must have the query's number of circles.
+         * @param goalScratch holds the arrays of the search from the goal, only used by bidirectional search.
+         * @param measureAllocation is whether to measure the bytes allocated by the search, which costs two calls
+         * to the JVM's thread management per query.
+         */
+        PolarGrid grid = scratch.getGrid();
+        long startBytes = measureAllocation ? SearchMetrics.allocatedBytes() : -1;
+        long startTime = System.nanoTime();
+        int source = grid.getId(sourceCircle, sourceMeridian);
+        int goal = grid.getId(goalCircle, goalMeridian);
+        int[] path;
+        long expanded;
+        if (algorithm.equals("Bidirec")) {
+            path = new BidirectionalSearch().search(grid, source, goal, bidirec_algo, scratch, goalScratch);
+            expanded = scratch.expanded + goalScratch.expanded;
+        } else if (algorithm.equals("Oracle")) {
+            scratch.reset();
+            path = new DistanceOracle(grid).getPath(source, goal);
+            expanded = 0;
+        } else {
+            path = State.getSearch(algorithm).search(grid, source, goal, scratch);
+            expanded = scratch.expanded;
+        }
+        long nanos = System.nanoTime() - startTime;
+        long allocatedBytes = startBytes < 0 ? -1 : SearchMetrics.allocatedBytes() - startBytes;
+        return new Route(this, grid, path, expanded, nanos, new SearchMetrics(this, grid, path, scratch,
+                algorithm.equals("Bidirec") ? goalScratch : null, nanos, allocatedBytes));
+    }
+
+    @Override
+    public String toString() {
+        String query = algorithm + " " + (noOfCircles + 1) + " " + sourceCircle + "," + sourceMeridian + " " +
+                goalCircle + "," + goalMeridian;
+        return bidirec_algo == null ? query : query + " " + bidirec_algo;
+    }
+}
@@ -0,0 +1,99 @@
+public class Route {
+    /**
+     * Answer to a Query: the path found on the packed grid, with its directions and total cost.
+     * The routes of BFS, BitBFS and IDDFS are only unique up to their number of hops: a route mapped from a symmetric
+     * query by RouteCache has the fewest hops but may cost more or less than the one the search itself would find.
+     */
+    public final Query query;
+    public final int[] path;
+    public final String[] directions;
+    public final double totalPathCost;
+    public final long expanded;
+    public final long nanos;
+    // measurements of the search that found the route, or null if it wasn't searched for (e.g. cached)
+    public final SearchMetrics metrics;
+    private final PolarGrid grid;
+
+    public Route(Query query, PolarGrid grid, int[] path, long expanded, long nanos) {
+        this(query, grid, path, expanded, nanos, null);
+    }
+
+    public Route(Query query, PolarGrid grid, int[] path, long expanded, long nanos, SearchMetrics metrics) {
+        this.query = query;
+        this.metrics = metrics;
+        this.grid = grid;
+        this.path = path;
+        this.expanded = expanded;
+        this.nanos = nanos;
+        this.directions = new String[Math.max(path.length - 1, 0)];
+        for (int i = 1; i < path.length; i++) {
+            directions[i - 1] = grid.getDirection(path[i - 1], path[i]);
+        }
+        this.totalPathCost = grid.getPathCost(path);
+    }
+
+    private Route(Query query, PolarGrid grid, int[] path, String[] directions, double totalPathCost, long nanos) {
+        this.query = query;
+        this.grid = grid;
+        this.path = path;
+        this.directions = directions;
+        this.totalPathCost = totalPathCost;
+        this.expanded = 0;
+        this.nanos = nanos;
+        this.metrics = null;
+    }
+
+    public Route forQuery(Query query, long nanos) {
+        /**
+         * The same route as the answer to another, identical query, e.g. from a cache: nothing is recomputed and
+         * no states were expanded.
+         */
+        return new Route(query, grid, path, directions, totalPathCost, nanos);
+    }
+
+    public Route transformed(Query query, PolarSymmetry symmetry, boolean reversed, long nanos) {
+        /**
+         * This route, walked from its goal back to its source if "reversed", then mapped by the symmetry, as the
+         * answer to the correspondingly transformed query. The directions and cost are recomputed, since
+         * reflections swap H90 and H270 and rotations can move the route across the 315 -> 0 transition.
+         */
+        int[] image = symmetry.apply(path);
+        if (reversed) {
+            for (int i = 0; i < image.length / 2; i++) {
+                int id = image[i];
+                image[i] = image[image.length - 1 - i];
+                image[image.length - 1 - i] = id;
+            }
+        }
+        return new Route(query, grid, image, 0, nanos);
+    }
+
+    public boolean isFound() {
+        return path.length > 0;
+    }
+
+    @Override
+    public String toString() {
+        /**
+         * One line per route: query id and arguments, then the route, directions and cost, or "no route".
+         */
+        StringBuilder line = new StringBuilder();
+        line.append('#').append(query.id).append(' ').append(query).append(" => ");
+        if (!isFound()) {
+            return line.append("no route found").toString();
+        }
+        line.append("size: ").append(path.length - 1).append(" route: ");
+        for (int i = 0; i < path.length; i++) {
+            if (i > 0) {
+                line.append(" --> ");
+            }
+            line.append('(').append(grid.getCircle(path[i])).append(',').append(grid.getMeridian(path[i])).append(')');
+        }
+        line.append(" directions: [ ");
+        for (String direction : directions) {
+            line.append(direction).append(' ');
+        }
+        line.append("] cost: ").append(totalPathCost).append(" expanded: ").append(expanded);
+        return line.toString();
+    }
+}
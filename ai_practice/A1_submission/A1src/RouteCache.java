@@ -0,0 +1,212 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class RouteCache {
+    /**
+     * Bounded cache of computed routes, keyed by the query without its id: algorithm, number of circles, source,
+     * goal and bidirectional method. When full, the least recently used route is evicted.
+     * Equivalent queries share one entry: every query is first mapped to a canonical form by the symmetries its
+     * algorithm allows (see PolarSymmetry), and by swapping source and goal when the reverse of its answer also
+     * answers the reverse query. Routes are stored in canonical form and mapped back on every hit. Routes are only
+     * valid for one cost model: given a CostMap, the whole cache is invalidated as soon as its version changes.
+     * Queries (Query.solve(), SearchExecutor, A1main --batch --cache) always search on the fixed polar distances and
+     * never carry a CostMap, so the caches they use are built without one and never invalidated. The CostMap is only
+     * for callers that route on it themselves, e.g. with LPAStarPlanner, and put routes computed on its current costs.
+     * All methods are thread-safe.
+     */
+    private final int capacity;
+    private final CostMap costMap;
+    private final LinkedHashMap<String, Entry> routes;
+    private int costMapVersion;
+    // metrics since the cache was created
+    private long hits = 0;
+    private long symmetricHits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+    private long invalidations = 0;
+
+    public RouteCache(int capacity) {
+        this(capacity, null);
+    }
+
+    public RouteCache(int capacity, CostMap costMap) {
+        /**
+         * A cache whose routes are dropped whenever the costs of "costMap" change; the caller must only put routes
+         * computed on those costs.
+         */
+        this.capacity = capacity;
+        this.costMap = costMap;
+        this.costMapVersion = costMap == null ? 0 : costMap.getVersion();
+        // access order makes the iteration order least recently used first
+        this.routes = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > RouteCache.this.capacity) {
+                    evictions += 1;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    private static class Entry {
+        // the route in canonical form, and the query it was originally computed for
+        final Route route;
+        final String origin;
+
+        Entry(Route route, String origin) {
+            this.route = route;
+            this.origin = origin;
+        }
+    }
+
+    private static class Canonical {
+        /**
+         * The canonical form of a query: the query mapped by a symmetry, then reversed if "reversed".
+         */
+        final Query query;
+        final PolarSymmetry symmetry;
+        final boolean reversed;
+
+        Canonical(Query query, PolarSymmetry symmetry, boolean reversed) {
+            this.query = query;
+            this.symmetry = symmetry;
+            this.reversed = reversed;
+        }
+
+        boolean isIdentity() {
+            return symmetry == PolarSymmetry.IDENTITY && !reversed;
+        }
+    }
+
+    public synchronized Route get(Query query) {
+        /**
+         * The cached route answering the query, or an equivalent one mapped back to it, or null if there is none.
+         */
+        long startTime = System.nanoTime();
+        checkCostMap();
+        Canonical canonical = canonicalize(query);
+        Entry entry = routes.get(getKey(canonical.query));
+        if (entry == null) {
+            misses += 1;
+            return null;
+        }
+        hits += 1;
+        if (!entry.origin.equals(getKey(query))) {
+            symmetricHits += 1;
+        }
+        if (canonical.isIdentity()) {
+            return entry.route.forQuery(query, System.nanoTime() - startTime);
+        }
+        // undo the reversal and the symmetry that made the query canonical
+        return entry.route.transformed(query, canonical.symmetry.inverse(), canonical.reversed,
+                System.nanoTime() - startTime);
+    }
+
+    public synchronized void put(Route route) {
+        checkCostMap();
+        Canonical canonical = canonicalize(route.query);
+        Route stored = canonical.isIdentity() ? route :
+                route.transformed(canonical.query, canonical.symmetry, canonical.reversed, route.nanos);
+        routes.put(getKey(canonical.query), new Entry(stored, getKey(route.query)));
+    }
+
+    public synchronized void clear() {
+        routes.clear();
+    }
+
+    public synchronized int size() {
+        return routes.size();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getSymmetricHits() {
+        /**
+         * Hits answered with the route of a different but equivalent query.
+         */
+        return symmetricHits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    public synchronized long getInvalidations() {
+        return invalidations;
+    }
+
+    public synchronized double getHitRate() {
+        return hits + misses == 0 ? 0 : (double) hits / (hits + misses);
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("route cache: %d/%d routes, %d hits (%d symmetric), %d misses, hit rate %.1f%%, " +
+                "%d evictions, %d invalidations", routes.size(), capacity, hits, symmetricHits, misses,
+                100 * getHitRate(), evictions, invalidations);
+    }
+
+    private void checkCostMap() {
+        /**
+         * Drop all routes if the cost model changed since they were computed.
+         */
+        if (costMap != null && costMap.getVersion() != costMapVersion) {
+            costMapVersion = costMap.getVersion();
+            if (!routes.isEmpty()) {
+                routes.clear();
+                invalidations += 1;
+            }
+        }
+    }
+
+    private static String getKey(Query query) {
+        // the query's arguments, without its id
+        return query.toString();
+    }
+
+    private static Query getReverse(Query query) {
+        return new Query(query.id, query.algorithm, query.noOfCircles, query.goalCircle, query.goalMeridian,
+                query.sourceCircle, query.sourceMeridian, query.bidirec_algo);
+    }
+
+    private static Canonical canonicalize(Query query) {
+        /**
+         * Pick the canonical form of the query, among its images by PolarSymmetry.canonicalize() forwards and, if
+         * reversible, backwards: the one with the smallest source, then the smallest goal.
+         */
+        PolarSymmetry forward = PolarSymmetry.canonicalize(query);
+        Canonical best = new Canonical(forward.apply(query), forward, false);
+        if (PolarSymmetry.isReversible(query)) {
+            Query reverse = getReverse(query);
+            PolarSymmetry backward = PolarSymmetry.canonicalize(reverse);
+            Query image = backward.apply(reverse);
+            if (compare(image, best.query) < 0) {
+                best = new Canonical(image, backward, true);
+            }
+        }
+        return best;
+    }
+
+    private static int compare(Query a, Query b) {
+        int[] first = {a.sourceCircle, a.sourceMeridian, a.goalCircle, a.goalMeridian};
+        int[] second = {b.sourceCircle, b.sourceMeridian, b.goalCircle, b.goalMeridian};
+        for (int i = 0; i < first.length; i++) {
+            if (first[i] != second[i]) {
+                return Integer.compare(first[i], second[i]);
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,275 @@
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+public class SMAStarSearch implements MemoryBoundedSearch {
+    /**
+     * An implementation of the search interface for simplified memory-bounded A* (SMA*) searching.
+     * It runs like A* on a search tree of at most "nodeBudget" nodes. When the tree is full, the leaf with the highest
+     * F-score (the shallowest one among equals) is forgotten, and its F-score is backed up into its parent. A parent
+     * with forgotten children goes back on the frontier, with the lowest F-score among them, so it regenerates them
+     * once the rest of the tree looks worse. Nodes from which the goal is more hops away than the budget's depth
+     * allows are given an infinite F-score and, like dead ends, are never generated again from the same parent: a
+     * parent whose missing children are all infinite is forgotten in turn, so a budget smaller than the fewest hops
+     * to the goal ends the search at the root. The path found is the
+     * cheapest one when the budget can hold it; below that, SMA* keeps forgetting and regenerating the same nodes
+     * and may take very long before settling for a costlier path.
+     * Besides the tree, the search keeps the cheapest node of every state in the tree, the backed-up F-scores of
+     * forgotten children (at most MAX_NEIGHBOURS per node) and, only to count re-expansions, a set of at most
+     * "nodeBudget" states expanded before, so re-expansions are exact until that many distinct states have been
+     * expanded and a lower bound after. All of it is counted in getPeakNodes(), which stays within about
+     * (MAX_NEIGHBOURS + 3) * nodeBudget entries.
+     */
+    public static final int DEFAULT_NODE_BUDGET = 1 << 16;
+
+    private final int nodeBudget;
+    // statistics of the last search
+    private long expansions = 0;
+    private long reExpansions = 0;
+    private int peakNodes = 0;
+    // backed-up F-scores of forgotten children currently held by the nodes in memory
+    private int forgottenScores = 0;
+    // receives the trace of every step, if any
+    private SearchListener listener = new ConsoleTraceListener();
+
+    private static class Node {
+        /**
+         * A node of the search tree; several nodes can hold the same state through different paths.
+         */
+        final int id;
+        final double g;
+        // F-score, or the lowest backed-up F-score of the forgotten children once some are forgotten
+        double f;
+        final Node parent;
+        final int depth;
+        final long order;
+        // children currently in memory, and backed-up F-scores of the forgotten ones by state id
+        int children = 0;
+        Map<Integer, Double> forgotten;
+
+        Node(int id, double g, double f, Node parent, long order) {
+            this.id = id;
+            this.g = g;
+            this.f = f;
+            this.parent = parent;
+            this.depth = parent == null ? 0 : parent.depth + 1;
+            this.order = order;
+        }
+    }
+
+    // frontier ordered on F-scores, deepest first among equals, so the last node is the best one to forget
+    private static final Comparator<Node> FRONTIER_ORDER = Comparator.<Node>comparingDouble(n -> n.f)
+            .thenComparing(Comparator.<Node>comparingInt(n -> n.depth).reversed())
+            .thenComparingLong(n -> n.order);
+
+    public SMAStarSearch() {
+        this(DEFAULT_NODE_BUDGET);
+    }
+
+    public SMAStarSearch(int nodeBudget) {
+        this.nodeBudget = nodeBudget;
+    }
+
+    public void setListener(SearchListener listener) {
+        this.listener = listener;
+    }
+
+    public int getNodeBudget() {
+        return nodeBudget;
+    }
+
+    public long getExpansions() {
+        return expansions;
+    }
+
+    public long getReExpansions() {
+        return reExpansions;
+    }
+
+    public int getPeakNodes() {
+        return peakNodes;
+    }
+
+    public List<State> search(State start, State goal) {
+        /**
+         * Use SMA* to return the states on the path found, linked through their parents. Only the current node and
+         * the goal are reported to the listener.
+         * @return the states on the path, or an empty list if there is none
+         */
+        PolarGrid grid = PolarGrid.forCircles(start.getNoOfCircles());
+        int[] path = run(grid, grid.getId(start.getCircle(), start.getMeridian()),
+                grid.getId(goal.getCircle(), goal.getMeridian()), listener, null);
+        return grid.toStates(path);
+    }
+
+    public int[] search(PolarGrid grid, int source, int goal, SearchScratch scratch) {
+        /**
+         * Use SMA* on the packed grid. The scratch arrays aren't used, as they would hold every node of the grid, but
+         * expansions still go to its sink.
+         * @return the ids on the path found
+         */
+        scratch.reset();
+        int[] path = run(grid, source, goal, null, scratch.getSink());
+        scratch.expanded = expansions;
+        return path;
+    }
+
+    private int[] run(PolarGrid grid, int source, int goal, SearchListener listener, ExplorationSink sink) {
+        expansions = 0;
+        reExpansions = 0;
+        forgottenScores = 0;
+        // states expanded so far, for at most nodeBudget states and only used to count re-expansions
+        Set<Integer> expanded = new HashSet<>();
+        TreeSet<Node> frontier = new TreeSet<>(FRONTIER_ORDER);
+        // the cheapest node in memory for every state, which prunes dominated paths and cycles
+        Map<Integer, Node> best = new HashMap<>();
+        long order = 0;
+        int nodes = 1;
+        peakNodes = 2;
+        int step = 0;
+
+        Node root = new Node(source, 0, grid.getDistance(source, goal), null, order++);
+        frontier.add(root);
+        best.put(source, root);
+
+        while (!frontier.isEmpty()) {
+            Node node = frontier.pollFirst();
+            if (node.f == Double.POSITIVE_INFINITY) {
+                // everything left is beyond the budget
+                break;
+            }
+            step += 1;
+            if (listener != null) {
+                listener.onStep(step, grid.toState(node.id));
+            }
+            if (node.id == goal) {
+                if (listener != null) {
+                    listener.onGoalReached(grid.toState(node.id));
+                }
+                return getPath(node);
+            }
+            expansions += 1;
+            if (expanded.contains(node.id)) {
+                reExpansions += 1;
+            } else if (expanded.size() < nodeBudget) {
+                expanded.add(node.id);
+            }
+            if (sink != null) {
+                sink.onExpand(node.id);
+            }
+
+            // generate the children, or only the forgotten ones if the node was expanded before
+            for (int k = 0; k < PolarGrid.MAX_NEIGHBOURS; k++) {
+                int child = grid.getNeighbour(node.id, k);
+                if (child == PolarGrid.NO_NODE) {
+                    break;
+                }
+                double g = node.g + grid.getDistance(node.id, child);
+                Node known = best.get(child);
+                if (known != null && known.g <= g) {
+                    continue;
+                }
+                // path-max: a child is never estimated cheaper than its parent, nor than its backed-up F-score
+                double f = Math.max(node.f, g + grid.getDistance(child, goal));
+                if (node.forgotten != null && node.forgotten.containsKey(child)) {
+                    f = Math.max(f, node.forgotten.get(child));
+                }
+                // a child that can't reach the goal within the depth the budget allows is hopeless
+                if (node.depth + 1 + grid.getHops(child, goal) >= nodeBudget) {
+                    f = Double.POSITIVE_INFINITY;
+                }
+                if (f == Double.POSITIVE_INFINITY) {
+                    // a child beyond the budget or leading nowhere would only be forgotten again: remember it as such
+                    if (node.forgotten == null) {
+                        node.forgotten = new HashMap<>();
+                    }
+                    if (node.forgotten.put(child, f) == null) {
+                        forgottenScores += 1;
+                    }
+                    continue;
+                }
+                Node childNode = new Node(child, g, f, node, order++);
+                best.put(child, childNode);
+                frontier.add(childNode);
+                node.children += 1;
+                nodes += 1;
+            }
+            if (node.forgotten != null) {
+                // the children regenerated are back in memory; only the hopeless ones stay forgotten
+                forgottenScores -= node.forgotten.size();
+                node.forgotten.values().removeIf(f -> f != Double.POSITIVE_INFINITY);
+                forgottenScores += node.forgotten.size();
+                if (node.forgotten.isEmpty()) {
+                    node.forgotten = null;
+                }
+            }
+            if (node.children == 0) {
+                // a dead end, or a node whose missing children are all hopeless, is forgotten right away
+                node.f = Double.POSITIVE_INFINITY;
+                forget(node, frontier, best);
+                nodes -= 1;
+            }
+            peakNodes = Math.max(peakNodes, nodes + best.size() + forgottenScores + expanded.size());
+
+            // forget the worst leaves until the tree fits in the budget again
+            while (nodes > nodeBudget) {
+                Node worst = null;
+                for (Node candidate : frontier.descendingSet()) {
+                    if (candidate.children == 0 && candidate.parent != null) {
+                        worst = candidate;
+                        break;
+                    }
+                }
+                if (worst == null) {
+                    break;
+                }
+                forget(worst, frontier, best);
+                nodes -= 1;
+            }
+        }
+        return new int[0];
+    }
+
+    private void forget(Node node, TreeSet<Node> frontier, Map<Integer, Node> best) {
+        /**
+         * Remove a leaf from the tree and back its F-score up into its parent, which goes (back) on the frontier.
+         */
+        frontier.remove(node);
+        if (best.get(node.id) == node) {
+            best.remove(node.id);
+        }
+        if (node.forgotten != null) {
+            forgottenScores -= node.forgotten.size();
+        }
+        Node parent = node.parent;
+        if (parent == null) {
+            return;
+        }
+        frontier.remove(parent);
+        parent.children -= 1;
+        if (parent.forgotten == null) {
+            parent.forgotten = new HashMap<>();
+        }
+        if (parent.forgotten.put(node.id, node.f) == null) {
+            forgottenScores += 1;
+        }
+        double lowest = Double.POSITIVE_INFINITY;
+        for (double f : parent.forgotten.values()) {
+            lowest = Math.min(lowest, f);
+        }
+        parent.f = lowest;
+        frontier.add(parent);
+    }
+
+    private static int[] getPath(Node end) {
+        int[] path = new int[end.depth + 1];
+        for (Node node = end; node != null; node = node.parent) {
+            path[node.depth] = node.id;
+        }
+        return path;
+    }
+}
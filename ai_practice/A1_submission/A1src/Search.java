@@ -8,5 +8,22 @@ public interface Search {
      * @return a list of all the explored states, whether they contribute to the actual path or not.
      */
     public List<State> search(State source, State goal);
+
+    /**
+     * Compact variant of search() on the packed grid: nodes are PolarGrid ids and all per-query state lives in the
+     * scratch, so no State objects are allocated while searching.
+     * @param grid is the packed grid.
+     * @param source is the id of the source node.
+     * @param goal is the id of the goal node.
+     * @param scratch holds the per-query arrays; it is reset by the search.
+     * @return the ids on the path from source to goal, or an empty array if the goal can't be reached.
+     */
+    public int[] search(PolarGrid grid, int source, int goal, SearchScratch scratch);
+
+    /**
+     * Set the listener receiving the step-by-step trace of search(State, State); a ConsoleTraceListener by default.
+     * @param listener is the new listener, or null to search quietly without building any trace.
+     */
+    public void setListener(SearchListener listener);
 }
 
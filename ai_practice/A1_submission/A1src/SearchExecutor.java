@@ -0,0 +1,121 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+
+public class SearchExecutor implements AutoCloseable {
+    /**
+     * Thread-safe executor running many queries at once on a fork-join pool.
+     * The object-mode searches keep their state in instance fields and in the State objects themselves, so queries
+     * are answered with the packed search mode instead: the PolarGrid of a query is immutable and shared, and all
+     * mutable state lives in a SearchScratch borrowed for the duration of that query only. Idle scratches are
+     * pooled per grid size, so a steady stream of queries allocates no new arrays. With a RouteCache, repeated
+     * queries are answered from the cache without searching.
+     */
+    private final ForkJoinPool pool;
+    private final Map<Integer, Queue<SearchScratch>> idleScratches = new ConcurrentHashMap<>();
+    private final RouteCache cache;
+    // whether the metrics of every search include the bytes it allocated
+    private volatile boolean measureAllocation = false;
+
+    public SearchExecutor(int parallelism) {
+        this(parallelism, null);
+    }
+
+    public SearchExecutor(int parallelism, RouteCache cache) {
+        this.pool = new ForkJoinPool(parallelism);
+        this.cache = cache;
+    }
+
+    public RouteCache getCache() {
+        return cache;
+    }
+
+    public void setMeasureAllocation(boolean measureAllocation) {
+        this.measureAllocation = measureAllocation;
+    }
+
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    public Route solve(Query query) {
+        /**
+         * Solve a query on the calling thread, with scratch arrays borrowed from the pool, unless it is cached.
+         */
+        if (cache != null) {
+            Route cached = cache.get(query);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        SearchScratch scratch = borrow(query.noOfCircles);
+        SearchScratch goalScratch = query.algorithm.equals("Bidirec") ? borrow(query.noOfCircles) : null;
+        try {
+            Route route = query.solve(scratch, goalScratch, measureAllocation);
+            if (cache != null) {
+                cache.put(route);
+            }
+            return route;
+        } finally {
+            release(scratch);
+            if (goalScratch != null) {
+                release(goalScratch);
+            }
+        }
+    }
+
+    public CompletableFuture<Route> submit(Query query) {
+        /**
+         * Solve a query asynchronously on the pool.
+         */
+        return CompletableFuture.supplyAsync(() -> solve(query), pool);
+    }
+
+    public List<Route> solveAll(List<Query> queries) {
+        /**
+         * Solve all queries in parallel and wait for them.
+         * @return the routes, in the same order as the queries.
+         */
+        List<CompletableFuture<Route>> futures = new ArrayList<>(queries.size());
+        for (Query query : queries) {
+            futures.add(submit(query));
+        }
+        List<Route> routes = new ArrayList<>(queries.size());
+        for (CompletableFuture<Route> future : futures) {
+            routes.add(future.join());
+        }
+        return routes;
+    }
+
+    public void solveAll(List<Query> queries, Consumer<Route> onRoute) {
+        /**
+         * Solve all queries in parallel, handing every route to "onRoute" as soon as it is found (possibly from
+         * several threads at once), and wait for them.
+         */
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[queries.size()];
+        for (int i = 0; i < futures.length; i++) {
+            futures[i] = submit(queries.get(i)).thenAccept(onRoute);
+        }
+        CompletableFuture.allOf(futures).join();
+    }
+
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    private SearchScratch borrow(int noOfCircles) {
+        SearchScratch scratch = idleScratches.computeIfAbsent(noOfCircles, n -> new ConcurrentLinkedQueue<>()).poll();
+        return scratch != null ? scratch : new SearchScratch(PolarGrid.forCircles(noOfCircles));
+    }
+
+    private void release(SearchScratch scratch) {
+        idleScratches.get(scratch.getGrid().getNoOfCircles()).offer(scratch);
+    }
+}
@@ -0,0 +1,33 @@
+import java.util.Collection;
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+
+public interface SearchListener {
+    /**
+     * Receives the trace of a search in object mode, one event per step. The searches only build the data for
+     * these events when a listener is set, so a search without one (setListener(null)) does no tracing work at all.
+     */
+
+    /**
+     * A new step starts by taking "state" off the frontier.
+     */
+    public void onStep(int step, State state);
+
+    /**
+     * The state taken off the frontier is the goal; the search ends.
+     */
+    public void onGoalReached(State goal);
+
+    /**
+     * The state of the current step is about to be expanded.
+     * @param expanded_states are the states expanded in the previous steps.
+     */
+    public void onExpand(State state, List<State> expanded_states);
+
+    /**
+     * The children of the current state have been added to the frontier.
+     * @param scoreName names the score the frontier is ordered on, or is null if it isn't ordered on a score.
+     * @param score computes that score for a state of the frontier, or is null.
+     */
+    public void onFrontier(Collection<State> frontier, String scoreName, ToDoubleFunction<State> score);
+}
@@ -0,0 +1,123 @@
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+public class SearchMetrics {
+    /**
+     * Measurements of one packed search run, exported as one line of JSON per run (see A1main --metrics) so that
+     * the behaviour of the algorithms can be charted across many queries.
+     * Counters come from the SearchScratch of the run; bidirectional search adds up both sides, so its peaks are an
+     * upper bound. IDA*, SMA* and the oracle don't use the scratch structures and only report their expansions.
+     */
+    public final Query query;
+    public final boolean found;
+    public final int pathLength;
+    public final double pathCost;
+    // nodes put on the frontier, including improvements of nodes already on it
+    public final long generated;
+    public final long expanded;
+    public final long reopened;
+    public final long peakFrontier;
+    public final long peakClosed;
+    public final long nanos;
+    // bytes allocated by the thread during the run, or -1 if they weren't measured
+    public final long allocatedBytes;
+    // b such that a uniform tree of the path's depth with branching factor b has "generated" nodes
+    public final double branchingFactor;
+    // polar distance from source to goal over the cost of the path found: 1 for a perfect heuristic
+    public final double heuristicRatio;
+
+    public SearchMetrics(Query query, PolarGrid grid, int[] path, SearchScratch scratch, SearchScratch goalScratch,
+                         long nanos, long allocatedBytes) {
+        /**
+         * @param goalScratch is the scratch of the search from the goal, or null.
+         */
+        this.query = query;
+        this.found = path.length > 0;
+        this.pathLength = Math.max(path.length - 1, 0);
+        this.pathCost = grid.getPathCost(path);
+        this.expanded = scratch.expanded + (goalScratch == null ? 0 : goalScratch.expanded);
+        this.generated = scratch.getGenerated() + (goalScratch == null ? 0 : goalScratch.getGenerated());
+        this.reopened = scratch.getReopened() + (goalScratch == null ? 0 : goalScratch.getReopened());
+        this.peakFrontier = scratch.getPeakFrontier() + (goalScratch == null ? 0 : goalScratch.getPeakFrontier());
+        this.peakClosed = scratch.getPeakClosed() + (goalScratch == null ? 0 : goalScratch.getPeakClosed());
+        this.nanos = nanos;
+        this.allocatedBytes = allocatedBytes;
+        this.branchingFactor = getBranchingFactor(generated, pathLength);
+        if (!found) {
+            this.heuristicRatio = 0;
+        } else {
+            this.heuristicRatio = pathCost == 0 ? 1 : grid.getDistance(path[0], path[path.length - 1]) / pathCost;
+        }
+    }
+
+    public static long allocatedBytes() {
+        /**
+         * Bytes allocated so far by the current thread, or -1 if the JVM doesn't support measuring it.
+         */
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    public static double getBranchingFactor(long generated, int depth) {
+        /**
+         * Effective branching factor: the b solving b + b^2 + ... + b^depth = generated, by bisection.
+         * @return 0 if nothing was generated beyond the root or the path is empty.
+         */
+        if (depth == 0 || generated <= 1) {
+            return 0;
+        }
+        double low = 0;
+        double high = generated;
+        for (int i = 0; i < 100 && high - low > 1e-9; i++) {
+            double b = (low + high) / 2;
+            double nodes = 0;
+            double power = 1;
+            for (int d = 0; d < depth && nodes <= generated; d++) {
+                power *= b;
+                nodes += power;
+            }
+            if (nodes > generated) {
+                high = b;
+            } else {
+                low = b;
+            }
+        }
+        return (low + high) / 2;
+    }
+
+    public String toJson() {
+        /**
+         * One line of JSON with the query and all measurements.
+         */
+        StringBuilder json = new StringBuilder("{");
+        json.append("\"id\":").append(query.id);
+        json.append(",\"algorithm\":\"").append(query.algorithm).append('"');
+        if (query.bidirec_algo != null) {
+            json.append(",\"bidirecAlgorithm\":\"").append(query.bidirec_algo).append('"');
+        }
+        json.append(",\"circles\":").append(query.noOfCircles + 1);
+        json.append(",\"source\":[").append(query.sourceCircle).append(',').append(query.sourceMeridian).append(']');
+        json.append(",\"goal\":[").append(query.goalCircle).append(',').append(query.goalMeridian).append(']');
+        json.append(",\"found\":").append(found);
+        json.append(",\"pathLength\":").append(pathLength);
+        json.append(",\"pathCost\":").append(pathCost);
+        json.append(",\"generated\":").append(generated);
+        json.append(",\"expanded\":").append(expanded);
+        json.append(",\"reopened\":").append(reopened);
+        json.append(",\"peakFrontier\":").append(peakFrontier);
+        json.append(",\"peakClosed\":").append(peakClosed);
+        json.append(",\"nanos\":").append(nanos);
+        json.append(",\"allocatedBytes\":").append(allocatedBytes);
+        json.append(",\"branchingFactor\":").append(branchingFactor);
+        json.append(",\"heuristicRatio\":").append(heuristicRatio);
+        return json.append('}').toString();
+    }
+
+    @Override
+    public String toString() {
+        return toJson();
+    }
+}
@@ -0,0 +1,208 @@
+import java.util.Arrays;
+
+public class SearchScratch {
+    /**
+     * Per-query working memory of the packed search mode: g/h/f-scores and parent ids live in flat primitive arrays
+     * sized to a PolarGrid instead of in State objects. Slots are invalidated between queries by bumping a
+     * generation stamp, so reset() is O(1) and a scratch can be reused for any number of queries on its grid.
+     */
+    private final PolarGrid grid;
+    public final double[] gscore;
+    public final double[] hscore;
+    public final double[] fscore;
+    public final int[] parent;
+    // generation in which a node was last reached (visited) or expanded (closed)
+    private final int[] visitedStamp;
+    private final int[] closedStamp;
+    private int generation = 0;
+    // generation of the closed set, which can be emptied on its own (see clearClosed())
+    private int closedGeneration = 0;
+    // frontier structures shared by the different algorithms
+    public final IndexedMinHeap frontier;
+    private int[] deque;
+    private int head = 0;
+    private int tail = 0;
+    // number of states expanded by the last query
+    public long expanded = 0;
+    // counters of the last query for SearchMetrics, besides those of the frontier heap
+    private long dequePushes = 0;
+    private int peakDeque = 0;
+    private long closedCount = 0;
+    private long peakClosed = 0;
+    private long reopened = 0;
+    // receives every expansion as it happens, if any; kept across queries
+    private ExplorationSink sink = null;
+
+    public SearchScratch(PolarGrid grid) {
+        this.grid = grid;
+        int nodeCount = grid.getNodeCount();
+        gscore = new double[nodeCount];
+        hscore = new double[nodeCount];
+        fscore = new double[nodeCount];
+        parent = new int[nodeCount];
+        visitedStamp = new int[nodeCount];
+        closedStamp = new int[nodeCount];
+        frontier = new IndexedMinHeap(nodeCount);
+        deque = new int[Math.max(nodeCount, 1)];
+    }
+
+    public PolarGrid getGrid() {
+        return grid;
+    }
+
+    public ExplorationSink getSink() {
+        return sink;
+    }
+
+    public void setSink(ExplorationSink sink) {
+        /**
+         * Stream the expansions of the following queries to the sink, or stop streaming if it is null.
+         */
+        this.sink = sink;
+    }
+
+    public void expand(int id) {
+        /**
+         * Count the expansion of a node, and report it to the sink.
+         */
+        expanded += 1;
+        closedCount += 1;
+        peakClosed = Math.max(peakClosed, closedCount);
+        if (sink != null) {
+            sink.onExpand(id);
+        }
+    }
+
+    public void reset() {
+        /**
+         * Forget everything about the previous query.
+         */
+        generation += 1;
+        closedGeneration += 1;
+        if (generation == Integer.MAX_VALUE || closedGeneration == Integer.MAX_VALUE) {
+            // stamps are about to wrap around, so clear them once
+            Arrays.fill(visitedStamp, 0);
+            Arrays.fill(closedStamp, 0);
+            generation = 1;
+            closedGeneration = 1;
+        }
+        frontier.clear();
+        head = 0;
+        tail = 0;
+        expanded = 0;
+        dequePushes = 0;
+        peakDeque = 0;
+        closedCount = 0;
+        peakClosed = 0;
+        reopened = 0;
+    }
+
+    public long getGenerated() {
+        /**
+         * Nodes put on the frontier by the last query, counting every improvement of a node already on it.
+         */
+        return frontier.getPushes() + dequePushes;
+    }
+
+    public long getReopened() {
+        /**
+         * Expanded nodes of the last query put back on the frontier after a cheaper path to them was found.
+         */
+        return reopened;
+    }
+
+    public int getPeakFrontier() {
+        return Math.max(frontier.getPeakSize(), peakDeque);
+    }
+
+    public long getPeakClosed() {
+        /**
+         * Largest number of expanded nodes that weren't re-opened, at any time during the last query.
+         */
+        return peakClosed;
+    }
+
+    public boolean isVisited(int id) {
+        return visitedStamp[id] == generation;
+    }
+
+    public void visit(int id, int parentId) {
+        visitedStamp[id] = generation;
+        parent[id] = parentId;
+    }
+
+    public boolean isClosed(int id) {
+        return closedStamp[id] == closedGeneration;
+    }
+
+    public void close(int id) {
+        closedStamp[id] = closedGeneration;
+    }
+
+    public void clearClosed() {
+        /**
+         * Empty the closed set in O(1), keeping the visited nodes and their scores, e.g. between the iterations of
+         * an anytime search.
+         */
+        closedGeneration += 1;
+        if (closedGeneration == Integer.MAX_VALUE) {
+            Arrays.fill(closedStamp, 0);
+            closedGeneration = 1;
+        }
+        closedCount = 0;
+    }
+
+    public void open(int id) {
+        if (isClosed(id)) {
+            reopened += 1;
+            closedCount -= 1;
+        }
+        closedStamp[id] = 0;
+    }
+
+    public void addLast(int id) {
+        /**
+         * Append to the int deque used as the queue of BFS and the stack of DFS.
+         */
+        if (tail == deque.length) {
+            if (head > 0) {
+                // reclaim the space left behind by pollFirst() before growing
+                System.arraycopy(deque, head, deque, 0, tail - head);
+                tail -= head;
+                head = 0;
+            } else {
+                deque = Arrays.copyOf(deque, deque.length * 2);
+            }
+        }
+        deque[tail++] = id;
+        dequePushes += 1;
+        peakDeque = Math.max(peakDeque, tail - head);
+    }
+
+    public int pollFirst() {
+        return deque[head++];
+    }
+
+    public int pollLast() {
+        return deque[--tail];
+    }
+
+    public boolean isDequeEmpty() {
+        return head == tail;
+    }
+
+    public int[] getPath(int goal) {
+        /**
+         * Trace the path from the source to the goal by following the parent ids of the goal.
+         */
+        int length = 0;
+        for (int id = goal; id != PolarGrid.NO_NODE; id = parent[id]) {
+            length += 1;
+        }
+        int[] path = new int[length];
+        for (int id = goal; id != PolarGrid.NO_NODE; id = parent[id]) {
+            path[--length] = id;
+        }
+        return path;
+    }
+}
@@ -35,6 +35,13 @@ public class State {
         return noOfCircles;
     }
 
+    public int getId() {
+        /**
+         * Unique key of the (circle, meridian) position on the grid, used for hashed and indexed lookups.
+         */
+        return circle * 8 + meridian / 45;
+    }
+
     public void setGScore(double g) {
         this.gscore = g;
     }
@@ -89,13 +96,12 @@ public class State {
         return direction;
     }
 
-    public void initiateSearch(String algorithm, State start, State goal, String bidirec_algo) {
+    public static Search getSearch(String algorithm) {
         /**
-         * Initiate the search based on the algorithm and trace out the path, directions and cost of final solution.
+         * Return the implementation of the "Search" interface for the algorithm, or null for "Bidirec", "Oracle"
+         * and unknown algorithms.
          */
-        // initialize an empty instance of the "Search" interface.
         Search s = null;
-        // Assign the proper implementation of the interface based on the algorithm
         if (algorithm.equals("BFS")) {
             s = new BreadthFirstSearch();
         } else if (algorithm.equals("DFS")) {
@@ -104,17 +110,59 @@ public class State {
             s = new BestFirstSearch();
         } else if (algorithm.equals("AStar")) {
             s = new AStarSearch();
+        } else if (algorithm.equals("IDAStar")) {
+            s = new IDAStarSearch();
+        } else if (algorithm.equals("SMAStar")) {
+            s = new SMAStarSearch();
+        } else if (algorithm.equals("ARAStar")) {
+            s = new ARAStarSearch();
+        } else if (algorithm.equals("BitBFS")) {
+            s = new BitParallelBFS();
+        } else if (algorithm.equals("IDDFS")) {
+            s = new DepthLimitedSearch(DepthLimitedSearch.NO_LIMIT, true);
+        }
+        return s;
+    }
+
+    public void initiateSearch(String algorithm, State start, State goal, String bidirec_algo) {
+        /**
+         * Initiate the search based on the algorithm and trace out the path, directions and cost of final solution.
+         */
+        initiateSearch(algorithm, start, goal, bidirec_algo, new ConsoleTraceListener());
+    }
+
+    public void initiateSearch(String algorithm, State start, State goal, String bidirec_algo,
+                               SearchListener listener) {
+        /**
+         * Same as initiateSearch() but with the given listener receiving the trace of every step of the search,
+         * or without any trace if the listener is null.
+         */
+        // initialize the proper implementation of the "Search" interface based on the algorithm
+        Search s = getSearch(algorithm);
+        if (s != null) {
+            s.setListener(listener);
         }
 
         List<State> path = new ArrayList<>();
         System.out.print(algorithm);
-        if (!algorithm.equals("Bidirec")) {
+        if (algorithm.equals("Oracle")) {
+            // the oracle computes the cheapest route directly, without searching or tracing
+            PolarGrid grid = PolarGrid.forCircles(noOfCircles);
+            path = grid.toStates(new DistanceOracle(grid).getPath(grid.getId(start.getCircle(), start.getMeridian()),
+                    grid.getId(goal.getCircle(), goal.getMeridian())));
+        } else if (!algorithm.equals("Bidirec")) {
             // get a list of all explored states, and trace out the path using the goal node's parents recursively.
             List<State> all_explored_states = s.search(start, goal);
-            path = getPath(all_explored_states, goal);
+            if (s instanceof DepthFirstSearch) {
+                // DFS may have explored the goal several times before reaching it
+                path = tracePath(((DepthFirstSearch) s).getGoalState(), "parent");
+            } else {
+                path = getPath(all_explored_states, goal);
+            }
         } else {
             // a separate instance is used for class BidirectionalSearch since it has a different return type.
             BidirectionalSearch bs = new BidirectionalSearch();
+            bs.setListener(listener);
             // bidirecResult is an instance of class "returnValues"
             ReturnBidirecResults bidirecResult = bs.search(start, goal, bidirec_algo);
             // extract the path traced out by the searches from the source and the goal node
@@ -129,7 +177,96 @@ public class State {
         }
         System.out.print("\n =======      ==========================================================     ========\n");
 
-        // print the final solution details: the path, directions, and the total cost of path
+        printSolution(path);
+        if (s instanceof AStarSearch) {
+            AStarSearch aStar = (AStarSearch) s;
+            System.out.println("States expanded: " + aStar.getExpansions() + "\nExpansions per second: " +
+                    String.format("%.1f", aStar.getExpansionsPerSecond()));
+        } else if (s instanceof MemoryBoundedSearch) {
+            MemoryBoundedSearch bounded = (MemoryBoundedSearch) s;
+            System.out.println("States expanded: " + bounded.getExpansions() + " (" + bounded.getReExpansions() +
+                    " re-expansions)\nPeak nodes and table entries in memory: " + bounded.getPeakNodes() +
+                    " (node budget " + bounded.getNodeBudget() + ")");
+        } else if (s instanceof ARAStarSearch) {
+            for (ARAStarSearch.Solution solution : ((ARAStarSearch) s).getSolutions()) {
+                System.out.println("Solution with " + solution);
+            }
+        } else if (s instanceof DepthLimitedSearch) {
+            DepthLimitedSearch dfs = (DepthLimitedSearch) s;
+            System.out.println("States expanded: " + dfs.getExpansions() + " in " + dfs.getIterations() +
+                    " iterations\nDeepest path: " + dfs.getPeakDepth());
+        }
+    }
+
+    public void initiateCompactSearch(String algorithm, State start, State goal, String bidirec_algo) {
+        /**
+         * Same as initiateSearch() but runs the search on the packed grid (PolarGrid/SearchScratch), without
+         * allocating State objects or tracing every step.
+         */
+        PolarGrid grid = new PolarGrid(noOfCircles);
+        int source = grid.getId(start.getCircle(), start.getMeridian());
+        int target = grid.getId(goal.getCircle(), goal.getMeridian());
+        int[] ids;
+        long expanded;
+        System.out.print(algorithm + " (compact)");
+        if (algorithm.equals("Oracle")) {
+            ids = new DistanceOracle(grid).getPath(source, target);
+            expanded = 0;
+        } else if (!algorithm.equals("Bidirec")) {
+            SearchScratch scratch = new SearchScratch(grid);
+            ids = getSearch(algorithm).search(grid, source, target, scratch);
+            expanded = scratch.expanded;
+        } else {
+            SearchScratch sourceScratch = new SearchScratch(grid);
+            SearchScratch goalScratch = new SearchScratch(grid);
+            ids = new BidirectionalSearch().search(grid, source, target, bidirec_algo, sourceScratch, goalScratch);
+            expanded = sourceScratch.expanded + goalScratch.expanded;
+        }
+        System.out.print("\n =======      ==========================================================     ========\n");
+
+        List<State> path = new ArrayList<>();
+        for (int id : ids) {
+            path.add(grid.toState(id));
+        }
+        printSolution(path);
+        System.out.println("States expanded: " + expanded);
+    }
+
+    public void initiateStreamingSearch(String algorithm, State start, State goal, String bidirec_algo,
+                                        ExplorationSink sink) {
+        /**
+         * Same as initiateCompactSearch() but every expansion goes to the sink as it happens, followed by the nodes
+         * of the path, so no list of explored states is ever built.
+         */
+        PolarGrid grid = PolarGrid.forCircles(noOfCircles);
+        int source = grid.getId(start.getCircle(), start.getMeridian());
+        int target = grid.getId(goal.getCircle(), goal.getMeridian());
+        SearchScratch scratch = new SearchScratch(grid);
+        scratch.setSink(sink);
+        int[] ids;
+        long expanded;
+        if (algorithm.equals("Oracle")) {
+            ids = new DistanceOracle(grid).getPath(source, target);
+            expanded = 0;
+        } else if (!algorithm.equals("Bidirec")) {
+            ids = getSearch(algorithm).search(grid, source, target, scratch);
+            expanded = scratch.expanded;
+        } else {
+            SearchScratch goalScratch = new SearchScratch(grid);
+            goalScratch.setSink(sink);
+            ids = new BidirectionalSearch().search(grid, source, target, bidirec_algo, scratch, goalScratch);
+            expanded = scratch.expanded + goalScratch.expanded;
+        }
+        for (int id : ids) {
+            sink.onPathNode(id);
+        }
+        sink.onFinished(ids.length > 0, expanded);
+    }
+
+    public void printSolution(List<State> path) {
+        /**
+         * Print the final solution details: the path, directions, and the total cost of path.
+         */
         List<String> directions = new ArrayList<>();
         double totalPathCost = 0;
         BidirectionalSearch polarDistance = new BidirectionalSearch();
@@ -166,20 +303,10 @@ public class State {
     public static List<State> getPath(List<State> all_states, State goal) {
         /**
          * Uses the "parent" attribute to trace out the path of traversal starting from the "goal" state.
+         * Only the goal itself is looked up in the list of explored states; every other hop follows the parent link
+         * directly, so tracing costs O(explored + path) instead of O(explored * path).
          */
-        List<State> path = new ArrayList<>();
-        for (State state = goal; state != null; ) {
-            State goal_state = findState(all_states, state);
-            path.add(goal_state);
-            try {
-                state = goal_state.parent;
-            } catch (NullPointerException e) {
-                state = null;
-            }
-        }
-        // reverse the traced path to begin with the source node.
-        Collections.reverse(path);
-        return path;
+        return tracePath(findState(all_states, goal), "parent");
     }
 
     public static List<State> getPath(List<State> all_states, State goal, String mode) {
@@ -187,22 +314,29 @@ public class State {
          * Overloads the getPath() method based on no. of parameters; is called only for Bidirectional search.
          * Additional param. "mode" signifies the search from "source" or "goal" for bidirectional search.
          */
+        return tracePath(findState(all_states, goal), mode);
+    }
+
+    public static List<State> tracePath(State end, String mode) {
+        /**
+         * Follow the parent links of "end" back to the state with no parent.
+         * @param mode selects the link: "parent", or "source"/"goal" for the source_parent/goal_parent links of
+         *             bidirectional search.
+         * @return the path starting at the root, except for "goal" mode where it starts at "end".
+         */
         List<State> path = new ArrayList<>();
-        for (State state = goal; state != null; ) {
-            State goal_state = findState(all_states, state);
-            path.add(goal_state);
-            try {
-                if (mode == "source") {
-                    state = goal_state.source_parent;
-                } else if (mode == "goal") {
-                    state = goal_state.goal_parent;
-                }
-            } catch (NullPointerException e) {
-                state = null;
+        for (State state = end; state != null; ) {
+            path.add(state);
+            if (mode.equals("source")) {
+                state = state.source_parent;
+            } else if (mode.equals("goal")) {
+                state = state.goal_parent;
+            } else {
+                state = state.parent;
             }
         }
-        if (mode == "source") {
-            // reverse the path traced from source to get the source node as first element.
+        if (!mode.equals("goal")) {
+            // reverse the traced path to begin with the source node.
             Collections.reverse(path);
         }
         return path;
@@ -0,0 +1,170 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Plays batches of silent games on generated boards in parallel and reports statistics for every agent, run from the
+ * command line:
+ * java A2batch [games] [size] [threads]
+ * Game i of a batch is played on the board generated with seed i, by an agent whose random guesses are seeded with i,
+ * so a batch gives the same games on any number of threads.
+ */
+public class A2batch {
+    // result of a game
+    static final int WON = 0;
+    static final int RANDOM_PROBES = 1;
+    static final int DECISIONS = 2;
+    static final int NANOS = 3;
+
+    interface Agent {
+        /**
+         * Start a silent game.
+         *
+         * @param map is the board
+         * @return the agent of the game
+         */
+        RPX newGame(char[][] map);
+    }
+
+    /**
+     * Totals of a batch of games of an agent.
+     */
+    static class Statistics {
+        private int games = 0;
+        private int won = 0;
+        private long randomProbes = 0;
+        private long decisions = 0;
+        private long nanos = 0;
+        private long wallNanos = 0;
+
+        void add(long[] result) {
+            games += 1;
+            won += result[WON];
+            randomProbes += result[RANDOM_PROBES];
+            decisions += result[DECISIONS];
+            nanos += result[NANOS];
+        }
+
+        public int getGames() {
+            return games;
+        }
+
+        public double getWinRate() {
+            return (double) won / games;
+        }
+
+        public double getMeanRandomProbes() {
+            return (double) randomProbes / games;
+        }
+
+        /**
+         * Get the mean time the agent took for every cell it chose to probe or flag, over all the games.
+         *
+         * @return the time in microseconds
+         */
+        public double getMeanDecisionMicros() {
+            return nanos / 1e3 / decisions;
+        }
+
+        /**
+         * Get the games played per second of wall time, with all the threads.
+         *
+         * @return the games per second
+         */
+        public double getGamesPerSecond() {
+            return games * 1e9 / wallNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%6d games, %5.1f%% won, %6.2f random probes per game, %8.2f us per decision, " +
+                            "%9.1f games/s", games, 100 * getWinRate(), getMeanRandomProbes(), getMeanDecisionMicros(),
+                    getGamesPerSecond());
+        }
+    }
+
+    /**
+     * Play a game.
+     *
+     * @param agent is the agent
+     * @param size  is the length of the board
+     * @param game  is the number of the game, which seeds the board and the random guesses
+     * @return the result of the game: whether it was won, its random probes, its decisions and its time
+     */
+    static long[] playGame(Agent agent, int size, int game) {
+        char[][] map = BoardGenerator.generate(size, BoardGenerator.getDefaultNumOfTornadoes(size), game);
+        RPX player = agent.newGame(map);
+        player.setSeed(game);
+        long start = System.nanoTime();
+        player.play();
+        long nanos = System.nanoTime() - start;
+        return new long[]{player.isWon() ? 1 : 0, player.getNumOfRandomProbes(), player.getNumOfDecisions(), nanos};
+    }
+
+    /**
+     * Play a batch of games, one task per game on a pool of threads.
+     *
+     * @param agent   is the agent
+     * @param size    is the length of the boards
+     * @param games   is the number of games
+     * @param threads is the number of threads
+     * @return the result of every game, in the order of the games
+     */
+    static long[][] playGames(Agent agent, int size, int games, int threads) {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<long[]>> futures = new ArrayList<>();
+            for (int game = 0; game < games; game++) {
+                int seed = game;
+                futures.add(pool.submit(() -> playGame(agent, size, seed)));
+            }
+            long[][] results = new long[games][];
+            for (int game = 0; game < games; game++) {
+                results[game] = futures.get(game).get();
+            }
+            return results;
+        } catch (InterruptedException | ExecutionException e) {
+            throw new IllegalStateException("Batch of games failed", e);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Play a batch of games and add up their results.
+     *
+     * @param agent   is the agent
+     * @param size    is the length of the boards
+     * @param games   is the number of games
+     * @param threads is the number of threads
+     * @return the statistics of the batch
+     */
+    public static Statistics run(Agent agent, int size, int games, int threads) {
+        long start = System.nanoTime();
+        long[][] results = playGames(agent, size, games, threads);
+        Statistics statistics = new Statistics();
+        statistics.wallNanos = System.nanoTime() - start;
+        for (long[] result : results) {
+            statistics.add(result);
+        }
+        return statistics;
+    }
+
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int size = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        System.out.println(String.format("%d games on %d x %d boards with %d tornadoes, %d threads:", games, size,
+                size, BoardGenerator.getDefaultNumOfTornadoes(size), threads));
+        // a short batch first, to let the JIT settle
+        Agent[] agents = {map -> new RPX(map, null), map -> new SPX(map, null), map -> new SATX(map, null, true)};
+        String[] names = {"RPX", "SPX", "SATX"};
+        for (int i = 0; i < agents.length; i++) {
+            run(agents[i], size, Math.min(games, 100), threads);
+            System.out.println(String.format("%-4s %s", names[i], run(agents[i], size, games, threads)));
+        }
+    }
+}
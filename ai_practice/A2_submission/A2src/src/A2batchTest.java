@@ -0,0 +1,40 @@
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit tests for A2batch
+ */
+public class A2batchTest {
+
+    @Test
+    public static void testParallelMatchesSequential() {
+        A2batch.Agent[] agents = {map -> new RPX(map, null), map -> new SPX(map, null), map -> new SATX(map, null, true)};
+        for (A2batch.Agent agent : agents) {
+            // the games share no state, so they play the same on one thread and on four
+            long[][] sequential = A2batch.playGames(agent, 11, 60, 1);
+            long[][] parallel = A2batch.playGames(agent, 11, 60, 4);
+            for (int game = 0; game < sequential.length; game++) {
+                Assert.assertEquals("Test 1 passed for games won in parallel", sequential[game][A2batch.WON],
+                        parallel[game][A2batch.WON]);
+                Assert.assertEquals("Test 2 passed for random probes in parallel",
+                        sequential[game][A2batch.RANDOM_PROBES], parallel[game][A2batch.RANDOM_PROBES]);
+                Assert.assertEquals("Test 3 passed for decisions in parallel", sequential[game][A2batch.DECISIONS],
+                        parallel[game][A2batch.DECISIONS]);
+            }
+        }
+    }
+
+    @Test
+    public static void testStatistics() {
+        A2batch.Statistics statistics = A2batch.run(map -> new SPX(map, null), 11, 40, 2);
+        Assert.assertEquals("Test 4 passed for the number of games", 40, statistics.getGames());
+        Assert.assertTrue("Test 5 passed for the win rate",
+                statistics.getWinRate() >= 0 && statistics.getWinRate() <= 1);
+        Assert.assertTrue("Test 6 passed for the decision latency", statistics.getMeanDecisionMicros() > 0);
+    }
+
+    public static void main(String[] args) {
+        testParallelMatchesSequential();
+        testStatistics();
+    }
+}
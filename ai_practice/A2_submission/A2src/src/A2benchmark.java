@@ -0,0 +1,267 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Micro-benchmarks for the game state, run from the command line:
+ * java A2benchmark board [size...]
+ * java A2benchmark game [size...]
+ * java A2benchmark sat [size...]
+ * java A2benchmark guess [size...]
+ * The board mode prints the median wall time of its variants over a few repetitions, the game modes the
+ * mean time of the games played in a fixed time, both after a warm-up, and the guess mode the win rate of the same
+ * boards with random and with the safest guesses.
+ */
+public class A2benchmark {
+    static final int REPETITIONS = 5;
+    static final long WARMUP_NANOS = 200_000_000L;
+    static final long MEASUREMENT_NANOS = 1_000_000_000L;
+
+    interface Task {
+        Object run();
+    }
+
+    /**
+     * Run the task for at least WARMUP_NANOS to let the JIT settle, then REPETITIONS times.
+     *
+     * @param task is the code to time
+     * @return the median wall time in milliseconds
+     */
+    public static double medianMillis(Task task) {
+        long warmupStart = System.nanoTime();
+        do {
+            task.run();
+        } while (System.nanoTime() - warmupStart < WARMUP_NANOS);
+        double[] times = new double[REPETITIONS];
+        for (int i = 0; i < REPETITIONS; i++) {
+            long start = System.nanoTime();
+            task.run();
+            times[i] = (System.nanoTime() - start) / 1e6;
+        }
+        Arrays.sort(times);
+        return times[REPETITIONS / 2];
+    }
+
+    /**
+     * The order in which a game would probe the safe cells of a board: a random permutation of them.
+     *
+     * @param map is the board
+     * @param seed is the seed of the permutation
+     * @return the indices of the safe cells
+     */
+    static int[] getProbeOrder(char[][] map, long seed) {
+        int size = map.length;
+        int[] order = new int[size * size];
+        int count = 0;
+        for (int i = 0; i < size * size; i++) {
+            if (map[i / size][i % size] != 't') {
+                order[count++] = i;
+            }
+        }
+        Random random = new Random(seed);
+        for (int i = count - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = order[i];
+            order[i] = order[j];
+            order[j] = swap;
+        }
+        return Arrays.copyOf(order, count);
+    }
+
+    /**
+     * Compare the game state kept in lists of cells, as TornadoSweeper did before BitBoard, with BitBoard, on a game
+     * probing every safe cell of a random board: every probe checks whether the cell and each of its neighbours was
+     * probed, and moves the cell from the cells to be visited to the visited ones. The lists are skipped on boards
+     * longer than 100 cells, where a game takes minutes.
+     *
+     * @param sizes are the lengths of the boards
+     */
+    public static void benchmarkBoard(int[] sizes) {
+        for (int size : sizes) {
+            char[][] map = BoardGenerator.generate(size, BoardGenerator.getDefaultNumOfTornadoes(size), 11);
+            int[] order = getProbeOrder(map, 13);
+            double lists = size > 100 ? Double.NaN : medianMillis(() -> {
+                List<Cell> visited = new ArrayList<>();
+                List<Cell> toBeVisited = new ArrayList<>();
+                for (int i = 0; i < size * size; i++) {
+                    toBeVisited.add(new Cell(i / size, i % size));
+                }
+                int found = 0;
+                for (int index : order) {
+                    Cell cell = new Cell(index / size, index % size);
+                    for (Cell neighbour : cell.getNeighbours(size)) {
+                        if (visited.stream().anyMatch(o -> o.getRow() == neighbour.getRow() &&
+                                o.getCol() == neighbour.getCol())) {
+                            found += 1;
+                        }
+                    }
+                    visited.add(cell);
+                    toBeVisited.removeIf(o -> o.getRow() == cell.getRow() && o.getCol() == cell.getCol());
+                }
+                return found + toBeVisited.size();
+            });
+            double bits = medianMillis(() -> {
+                BitBoard board = new BitBoard(size);
+                int found = 0;
+                for (int index : order) {
+                    for (int k = 0; k < board.getNeighbourCount(index); k++) {
+                        if (board.isProbed(board.getNeighbour(index, k))) {
+                            found += 1;
+                        }
+                    }
+                    board.probe(index, map[index / size][index % size]);
+                }
+                return found + board.getCoveredCount();
+            });
+            System.out.println(String.format("%4d x %-4d (%d probes): lists %10.2f ms   BitBoard %8.2f ms   (%.0fx)",
+                    size, size, order.length, lists, bits, lists / bits));
+        }
+    }
+
+    interface Game {
+        /**
+         * Play a game.
+         *
+         * @param map is the board
+         * @return the number of cells probed or flagged
+         */
+        int play(char[][] map);
+    }
+
+    /**
+     * Play silent games on random boards with the density of the large boards of World, for MEASUREMENT_NANOS after
+     * as long a warm-up. Games end at the first tornado probed by a random guess, so they are averaged over many
+     * boards.
+     *
+     * @param size is the length of the boards
+     * @param game plays a game
+     * @return the number of games played, the number of moves (probes or flags) and the time in nanoseconds
+     */
+    static long[] measureGames(int size, Game game) {
+        int numOfTornadoes = BoardGenerator.getDefaultNumOfTornadoes(size);
+        long seed = 0;
+        for (long start = System.nanoTime(); System.nanoTime() - start < WARMUP_NANOS; ) {
+            game.play(BoardGenerator.generate(size, numOfTornadoes, seed++));
+        }
+        long games = 0;
+        long moves = 0;
+        long nanos = 0;
+        while (nanos < MEASUREMENT_NANOS) {
+            char[][] map = BoardGenerator.generate(size, numOfTornadoes, seed++);
+            long start = System.nanoTime();
+            moves += game.play(map);
+            nanos += System.nanoTime() - start;
+            games += 1;
+        }
+        return new long[]{games, moves, nanos};
+    }
+
+    static String formatGames(long[] measure) {
+        return String.format("%5d games, %9.1f games/s, %9.1f moves per game, %8.2f us per move", measure[0],
+                measure[0] * 1e9 / measure[2], (double) measure[1] / measure[0], measure[2] / 1e3 / measure[1]);
+    }
+
+    /**
+     * Play SPX games on boards of increasing size, and report the time per game and per move. With the worklist,
+     * the time per move should stay flat as the boards grow.
+     *
+     * @param sizes are the lengths of the boards
+     */
+    public static void benchmarkGame(int[] sizes) {
+        for (int size : sizes) {
+            System.out.println(String.format("%4d x %-4d SPX: %s", size, size,
+                    formatGames(measureGames(size, A2benchmark::playSinglePoint))));
+        }
+    }
+
+    /**
+     * Play SATX games on boards of increasing size, with one knowledge base for the whole game and with a new
+     * knowledge base for every entailment check, and report the games per second of both. The incremental solver
+     * entails more, from all the clues rather than the ones around the cell, so its games tend to last longer: the
+     * time per move is the fairer comparison.
+     *
+     * @param sizes are the lengths of the boards
+     */
+    public static void benchmarkSatisfiability(int[] sizes) {
+        for (int size : sizes) {
+            long[] fresh = measureGames(size, map -> playSatisfiability(map, false));
+            long[] incremental = measureGames(size, map -> playSatisfiability(map, true));
+            System.out.println(String.format("%4d x %-4d SATX fresh solver:       %s", size, size,
+                    formatGames(fresh)));
+            System.out.println(String.format("%4d x %-4d SATX incremental solver: %s   (%.1fx per move)", size, size,
+                    formatGames(incremental), (double) fresh[2] / fresh[1] / incremental[2] * incremental[1]));
+        }
+    }
+
+    /**
+     * Play SPX games on the same boards guessing at random and guessing the safest cell (see ProbabilityEngine) when
+     * it gets stuck, and report the games won and the time per game of both.
+     *
+     * @param sizes are the lengths of the boards
+     * @param games is the number of boards of every size
+     */
+    public static void benchmarkGuess(int[] sizes, int games) {
+        for (int size : sizes) {
+            int numOfTornadoes = BoardGenerator.getDefaultNumOfTornadoes(size);
+            for (boolean safest : new boolean[]{false, true}) {
+                int won = 0;
+                long nanos = 0;
+                for (int seed = 0; seed < games; seed++) {
+                    SPX agent = new SPX(BoardGenerator.generate(size, numOfTornadoes, seed), null);
+                    agent.setSafestGuess(safest);
+                    long start = System.nanoTime();
+                    agent.singlePointProbe();
+                    nanos += System.nanoTime() - start;
+                    if (agent.isWon()) {
+                        won += 1;
+                    }
+                }
+                System.out.println(String.format("%4d x %-4d SPX %-7s guesses: %4d / %d games won (%5.1f%%), " +
+                                "%8.2f ms per game", size, size, safest ? "safest" : "random", won, games,
+                        100.0 * won / games, nanos / 1e6 / games));
+            }
+        }
+    }
+
+    static int playSinglePoint(char[][] map) {
+        SPX agent = new SPX(map, null);
+        agent.singlePointProbe();
+        BitBoard board = agent.getBitBoard();
+        return board.getProbedCount() + board.getFlaggedCount();
+    }
+
+    static int playSatisfiability(char[][] map, boolean incrementalSolver) {
+        SATX agent = new SATX(map, null, incrementalSolver);
+        agent.checkSatisfiabilityAndMove();
+        BitBoard board = agent.getBitBoard();
+        return board.getProbedCount() + board.getFlaggedCount();
+    }
+
+    public static void main(String[] args) {
+        String mode = args.length > 0 ? args[0] : "board";
+        if (mode.equals("board")) {
+            int[] sizes = args.length > 1 ? Arrays.stream(args, 1, args.length).mapToInt(Integer::parseInt).toArray() :
+                    new int[]{11, 50, 100, 1000};
+            benchmarkBoard(sizes);
+        } else if (mode.equals("game")) {
+            int[] sizes = args.length > 1 ? Arrays.stream(args, 1, args.length).mapToInt(Integer::parseInt).toArray() :
+                    new int[]{11, 50, 100, 200, 400};
+            benchmarkGame(sizes);
+        } else if (mode.equals("sat")) {
+            int[] sizes = args.length > 1 ? Arrays.stream(args, 1, args.length).mapToInt(Integer::parseInt).toArray() :
+                    new int[]{11, 30, 50, 100};
+            benchmarkSatisfiability(sizes);
+        } else if (mode.equals("guess")) {
+            int[] sizes = args.length > 1 ? Arrays.stream(args, 1, args.length).mapToInt(Integer::parseInt).toArray() :
+                    new int[]{11, 30, 50, 100};
+            benchmarkGuess(sizes, 200);
+        } else {
+            System.out.println("How to run the benchmarks:\n");
+            System.out.println("java A2benchmark board [size...]");
+            System.out.println("java A2benchmark game [size...]");
+            System.out.println("java A2benchmark sat [size...]");
+            System.out.println("java A2benchmark guess [size...]");
+        }
+    }
+}
@@ -5,29 +5,38 @@ public class A2main {
     /**
      * Function to call.
      *
-     * @param args : args[0] is algorithm <SPX|SATX|RPX> while args[1] is the board ID
+     * @param args : args[0] is algorithm <SPX|SATX|RPX> while args[1] is the board ID, or the length of a random
+     *             board followed by its number of tornadoes and the seed of the generator, both optional
      */
     public static void main(String[] args) {
         String alogrithm = args[0];
         String worldName = args[1];
 
-        char[][] world = World.valueOf(worldName).map;
+        char[][] world;
+        if (worldName.matches("\\d+")) {
+            int size = Integer.parseInt(worldName);
+            int numOfTornadoes = args.length > 2 ? Integer.parseInt(args[2]) :
+                    BoardGenerator.getDefaultNumOfTornadoes(size);
+            long seed = args.length > 3 ? Long.parseLong(args[3]) : System.nanoTime();
+            world = BoardGenerator.generate(size, numOfTornadoes, seed);
+        } else {
+            world = World.valueOf(worldName).map;
+        }
 
         // print the original world
         Board board = new Board(world);
         System.out.print("Original world: ");
         board.printBoard();
 
-        // call the superclass to initialize the states of the game
-        TornadoSweeper ts = new TornadoSweeper(world);
+        // every agent initializes the states of its game
         if (alogrithm.equals("RPX")) {
-            RPX randomAgent = new RPX();
+            RPX randomAgent = new RPX(world);
             randomAgent.randomProbe();
         } else if (alogrithm.equals("SPX")) {
-            SPX singlePointAgent = new SPX();
+            SPX singlePointAgent = new SPX(world);
             singlePointAgent.singlePointProbe();
         } else if (alogrithm.equals("SATX")) {
-            SATX satAgent = new SATX();
+            SATX satAgent = new SATX(world);
             satAgent.checkSatisfiabilityAndMove();
         }
     }
@@ -9,13 +9,11 @@ public class AgentTests {
     @Test
     public static void RPXTest() {
         char[][] world = World.TEST1.map;
-        TornadoSweeper ts = new TornadoSweeper(world);
-
-        RPX randomAgent = new RPX();
+        RPX randomAgent = new RPX(world);
         // probe top-left corner in first step
-        Cell cell1 = ts.getFirstCellsToProbe();
+        Cell cell1 = randomAgent.getFirstCellsToProbe();
         boolean res = randomAgent.unCoverandMarkCell(cell1.getRow(), cell1.getCol());
-        ts.step += 1;
+        randomAgent.step += 1;
 
         for (int i = 0; i < 50; i++) {
             // Since [0,0] has been probed, a randomly generated cell must not be [0,0]
@@ -28,47 +26,43 @@ public class AgentTests {
     @Test
     public static void SPXTest() {
         char[][] world = World.TEST1.map;
-        TornadoSweeper ts = new TornadoSweeper(world);
-
-        SPX singlePointAgent = new SPX();
+        SPX singlePointAgent = new SPX(world);
         // visit [0,0], [1,1] and [2,2]
-        Cell cell1 = ts.getFirstCellsToProbe();
-        ts.updateAgentWorld(cell1);
-        ts.step += 1;
+        Cell cell1 = singlePointAgent.getFirstCellsToProbe();
+        singlePointAgent.updateAgentWorld(cell1);
+        singlePointAgent.step += 1;
 
-        Cell cell2 = ts.getFirstCellsToProbe();
-        ts.updateAgentWorld(cell2);
-        ts.step += 1;
+        Cell cell2 = singlePointAgent.getFirstCellsToProbe();
+        singlePointAgent.updateAgentWorld(cell2);
+        singlePointAgent.step += 1;
 
         Cell cell3 = new Cell(2, 2);
-        ts.updateAgentWorld(cell3);
-        ts.step += 1;
+        singlePointAgent.updateAgentWorld(cell3);
+        singlePointAgent.step += 1;
 
         // AMN should now hold for [1,0]
         boolean isVisited = singlePointAgent.checkSatisfiabilityInNeighbours(1, 0);
         Assert.assertTrue("Test 1 passed for SPX agent", isVisited);
         // also, tornado cells should be updated to denote the flagged cell
-        Assert.assertTrue("Test 2 passed for SPX agent", ts.tornadoCells.contains(new Cell(1, 0)));
+        Assert.assertTrue("Test 2 passed for SPX agent", singlePointAgent.tornadoCells.contains(new Cell(1, 0)));
     }
 
     @Test
     public static void SATXTest() {
         char[][] world = World.TEST1.map;
-        TornadoSweeper ts = new TornadoSweeper(world);
-
-        SATX satxAgent = new SATX();
+        SATX satxAgent = new SATX(world);
         // visit [0,0], middle cell and [2,2]
-        Cell cell1 = ts.getFirstCellsToProbe();
-        ts.updateAgentWorld(cell1);
-        ts.step += 1;
+        Cell cell1 = satxAgent.getFirstCellsToProbe();
+        satxAgent.updateAgentWorld(cell1);
+        satxAgent.step += 1;
 
-        Cell cell2 = ts.getFirstCellsToProbe();
-        ts.updateAgentWorld(cell2);
-        ts.step += 1;
+        Cell cell2 = satxAgent.getFirstCellsToProbe();
+        satxAgent.updateAgentWorld(cell2);
+        satxAgent.step += 1;
 
         Cell cell3 = new Cell(2, 2);
-        ts.updateAgentWorld(cell3);
-        ts.step += 1;
+        satxAgent.updateAgentWorld(cell3);
+        satxAgent.step += 1;
 
         // KB && !D1,0 should be unsatisfiable
         boolean isVisited = satxAgent.checkAndVisitNeighbours(1, 0);
@@ -78,9 +72,31 @@ public class AgentTests {
         Assert.assertTrue("Test 4 passed for SATX agent", satxAgent.checkAndVisitNeighbours(2, 0));
     }
 
+    @Test
+    public static void SATXGuessTest() {
+        for (int seed = 0; seed < 30; seed++) {
+            char[][] world = BoardGenerator.generate(11, BoardGenerator.getDefaultNumOfTornadoes(11), seed);
+            SATX satxAgent = new SATX(world, null, true) {
+                @Override
+                public Cell selectGuess() {
+                    // nothing the knowledge base of the whole game entails may be left when SATX guesses
+                    KnowledgeBase kb = KnowledgeBase.of(bitBoard);
+                    for (int i = bitBoard.nextCovered(0); i >= 0; i = bitBoard.nextCovered(i + 1)) {
+                        Assert.assertFalse("Test 5 passed for guessing only when SATX is stuck",
+                                !bitBoard.isFlagged(i) && (kb.isSafe(i) || kb.isTornado(i)));
+                    }
+                    return super.selectGuess();
+                }
+            };
+            satxAgent.setSeed(seed);
+            satxAgent.play();
+        }
+    }
+
     public static void main(String[] args) {
         RPXTest();
         SPXTest();
         SATXTest();
+        SATXGuessTest();
     }
 }
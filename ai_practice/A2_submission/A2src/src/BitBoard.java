@@ -0,0 +1,240 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Agent's view of a square board in primitive arrays, so that probing, flagging and membership checks are O(1)
+ * whatever the size of the board. Cells are numbered row by row (index = row * size + col), and the probed, flagged
+ * and covered cells are bitsets over these indices, 64 cells to a long. A covered cell is one that hasn't been
+ * probed; flagged cells stay covered. Clue values of probed cells are kept in a byte per cell.
+ * The neighbours of every cell are computed once, in the order of Cell.getNeighbours(), and stored back to back in
+ * one array with the offset of every cell's first neighbour, so iterating over them is a plain loop.
+ */
+public class BitBoard {
+    public static final int MAX_NEIGHBOURS = 6;
+    // clue of a cell that hasn't been probed
+    public static final byte NO_CLUE = -1;
+    // clue of a probed cell containing a tornado
+    public static final byte TORNADO = -2;
+    // row and column offsets of the neighbours, in the order of Cell.getNeighbours()
+    private static final int[][] NEIGHBOUR_OFFSETS = {{-1, -1}, {-1, 0}, {0, -1}, {0, 1}, {1, 0}, {1, 1}};
+
+    private final int size;
+    private final int cellCount;
+    private final long[] probed;
+    private final long[] flagged;
+    private final long[] covered;
+    private final byte[] clues;
+    private int probedCount = 0;
+    private int flaggedCount = 0;
+    // neighbours of cell i are neighbours[neighbourStart[i]] up to, excluding, neighbours[neighbourStart[i + 1]]
+    private final int[] neighbourStart;
+    private final int[] neighbours;
+
+    /**
+     * Constructor for a board of size x size cells, all of them covered.
+     *
+     * @param size is the length of the board
+     */
+    public BitBoard(int size) {
+        this.size = size;
+        this.cellCount = size * size;
+        int words = (cellCount + 63) >>> 6;
+        probed = new long[words];
+        flagged = new long[words];
+        covered = new long[words];
+        for (int i = 0; i < cellCount; i++) {
+            covered[i >>> 6] |= 1L << i;
+        }
+        clues = new byte[cellCount];
+        Arrays.fill(clues, NO_CLUE);
+
+        neighbourStart = new int[cellCount + 1];
+        int[] all = new int[cellCount * MAX_NEIGHBOURS];
+        int count = 0;
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                neighbourStart[getIndex(row, col)] = count;
+                for (int[] offset : NEIGHBOUR_OFFSETS) {
+                    int r = row + offset[0];
+                    int c = col + offset[1];
+                    if (r >= 0 && r < size && c >= 0 && c < size) {
+                        all[count++] = getIndex(r, c);
+                    }
+                }
+            }
+        }
+        neighbourStart[cellCount] = count;
+        neighbours = Arrays.copyOf(all, count);
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getCellCount() {
+        return cellCount;
+    }
+
+    public int getIndex(int row, int col) {
+        return row * size + col;
+    }
+
+    public int getRow(int index) {
+        return index / size;
+    }
+
+    public int getCol(int index) {
+        return index % size;
+    }
+
+    public Cell toCell(int index) {
+        return new Cell(getRow(index), getCol(index));
+    }
+
+    public boolean isProbed(int index) {
+        return (probed[index >>> 6] & (1L << index)) != 0;
+    }
+
+    public boolean isFlagged(int index) {
+        return (flagged[index >>> 6] & (1L << index)) != 0;
+    }
+
+    public boolean isCovered(int index) {
+        return (covered[index >>> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * Clue of a probed cell: the number of tornadoes around it, TORNADO if it is one, or NO_CLUE if not probed.
+     *
+     * @param index is the index of the cell
+     * @return the clue
+     */
+    public byte getClue(int index) {
+        return clues[index];
+    }
+
+    public int getProbedCount() {
+        return probedCount;
+    }
+
+    public int getFlaggedCount() {
+        return flaggedCount;
+    }
+
+    public int getCoveredCount() {
+        return cellCount - probedCount;
+    }
+
+    /**
+     * Uncover a cell with its content from the original world, removing its flag if it had one.
+     *
+     * @param index   is the index of the cell
+     * @param content is the content of the cell: a clue from '0' to '6', or 't' for a tornado
+     * @return false if the cell was already probed
+     */
+    public boolean probe(int index, char content) {
+        if (isProbed(index)) {
+            return false;
+        }
+        long bit = 1L << index;
+        probed[index >>> 6] |= bit;
+        covered[index >>> 6] &= ~bit;
+        if (isFlagged(index)) {
+            flagged[index >>> 6] &= ~bit;
+            flaggedCount -= 1;
+        }
+        clues[index] = content == 't' ? TORNADO : (byte) (content - '0');
+        probedCount += 1;
+        return true;
+    }
+
+    /**
+     * Flag a covered cell as a tornado.
+     *
+     * @param index is the index of the cell
+     * @return false if the cell was already flagged or probed
+     */
+    public boolean flag(int index) {
+        if (isFlagged(index) || isProbed(index)) {
+            return false;
+        }
+        flagged[index >>> 6] |= 1L << index;
+        flaggedCount += 1;
+        return true;
+    }
+
+    public int getNeighbourCount(int index) {
+        return neighbourStart[index + 1] - neighbourStart[index];
+    }
+
+    /**
+     * The k-th neighbour of a cell, in the order of Cell.getNeighbours().
+     *
+     * @param index is the index of the cell
+     * @param k     is from 0 to getNeighbourCount(index) - 1
+     * @return the index of the neighbour
+     */
+    public int getNeighbour(int index, int k) {
+        return neighbours[neighbourStart[index] + k];
+    }
+
+    public int countFlaggedNeighbours(int index) {
+        int count = 0;
+        for (int k = neighbourStart[index]; k < neighbourStart[index + 1]; k++) {
+            int n = neighbours[k];
+            count += (int) (flagged[n >>> 6] >>> n) & 1;
+        }
+        return count;
+    }
+
+    /**
+     * Count the covered neighbours of a cell, including the flagged ones.
+     *
+     * @param index is the index of the cell
+     * @return the count
+     */
+    public int countCoveredNeighbours(int index) {
+        int count = 0;
+        for (int k = neighbourStart[index]; k < neighbourStart[index + 1]; k++) {
+            int n = neighbours[k];
+            count += (int) (covered[n >>> 6] >>> n) & 1;
+        }
+        return count;
+    }
+
+    /**
+     * Index of the first covered cell from a given index on, scanning a word of 64 cells at a time.
+     *
+     * @param from is the first index to look at
+     * @return the index of the cell, or -1 if there is none
+     */
+    public int nextCovered(int from) {
+        if (from >= cellCount) {
+            return -1;
+        }
+        int w = from >>> 6;
+        long word = covered[w] & (-1L << from);
+        while (word == 0) {
+            w += 1;
+            if (w == covered.length) {
+                return -1;
+            }
+            word = covered[w];
+        }
+        return (w << 6) + Long.numberOfTrailingZeros(word);
+    }
+
+    /**
+     * Covered cells in row-major order.
+     *
+     * @return the list of cells
+     */
+    public List<Cell> getCoveredCells() {
+        List<Cell> cells = new ArrayList<>(getCoveredCount());
+        for (int i = nextCovered(0); i >= 0; i = nextCovered(i + 1)) {
+            cells.add(toCell(i));
+        }
+        return cells;
+    }
+}
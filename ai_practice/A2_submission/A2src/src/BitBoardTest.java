@@ -0,0 +1,82 @@
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+
+/**
+ * Unit tests for BitBoard and BoardGenerator
+ */
+public class BitBoardTest {
+
+    @Test
+    public static void testNeighboursMatchCell() {
+        BitBoard board = new BitBoard(70);
+        for (int index = 0; index < board.getCellCount(); index++) {
+            List<Cell> expected = board.toCell(index).getNeighbours(70);
+            Assert.assertEquals("Test 1 passed for number of neighbours", expected.size(),
+                    board.getNeighbourCount(index));
+            for (int k = 0; k < expected.size(); k++) {
+                Assert.assertEquals("Test 2 passed for order of neighbours", expected.get(k),
+                        board.toCell(board.getNeighbour(index, k)));
+            }
+        }
+    }
+
+    @Test
+    public static void testProbeAndFlag() {
+        BitBoard board = new BitBoard(9);
+        int cell = board.getIndex(4, 7);
+        // a cell in the second word of the bitsets
+        int farCell = board.getIndex(8, 8);
+        Assert.assertTrue("Test 3 passed for covered cells", board.isCovered(cell) && board.isCovered(farCell));
+
+        Assert.assertTrue(board.flag(farCell));
+        Assert.assertFalse("Test 4 passed for flagging twice", board.flag(farCell));
+        Assert.assertTrue("Test 5 passed for flagged cells staying covered",
+                board.isFlagged(farCell) && board.isCovered(farCell));
+
+        Assert.assertTrue(board.probe(cell, '3'));
+        Assert.assertFalse("Test 6 passed for probing twice", board.probe(cell, '3'));
+        Assert.assertTrue("Test 7 passed for probed cells", board.isProbed(cell) && !board.isCovered(cell));
+        Assert.assertEquals("Test 8 passed for clues", 3, board.getClue(cell));
+        Assert.assertEquals("Test 9 passed for counts", 80, board.getCoveredCount());
+        Assert.assertEquals(1, board.getFlaggedCount());
+
+        // [8,8] is a neighbour of [7,7]
+        Assert.assertEquals("Test 10 passed for flagged neighbours", 1,
+                board.countFlaggedNeighbours(board.getIndex(7, 7)));
+        Assert.assertEquals("Test 11 passed for covered neighbours", 5,
+                board.countCoveredNeighbours(board.getIndex(3, 6)));
+        Assert.assertEquals("Test 12 passed for the next covered cell", cell + 1, board.nextCovered(cell));
+    }
+
+    @Test
+    public static void testGeneratedBoard() {
+        char[][] map = BoardGenerator.generate(60, 800, 3);
+        TornadoSweeper ts = new TornadoSweeper(map);
+        Assert.assertEquals("Test 13 passed for no. of tornadoes on a generated board", 800,
+                ts.getNumOfTornadoes());
+        Assert.assertTrue("Test 14 passed for the hints", map[0][0] != 't' && map[30][30] != 't');
+        BitBoard board = new BitBoard(60);
+        for (int index = 0; index < board.getCellCount(); index++) {
+            char content = map[index / 60][index % 60];
+            if (content == 't') {
+                continue;
+            }
+            int tornadoes = 0;
+            for (int k = 0; k < board.getNeighbourCount(index); k++) {
+                int n = board.getNeighbour(index, k);
+                if (map[n / 60][n % 60] == 't') {
+                    tornadoes += 1;
+                }
+            }
+            Assert.assertEquals("Test 15 passed for the clues of a generated board", tornadoes, content - '0');
+        }
+    }
+
+    public static void main(String[] args) {
+        testNeighboursMatchCell();
+        testProbeAndFlag();
+        testGeneratedBoard();
+    }
+}
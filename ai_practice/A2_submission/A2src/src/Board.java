@@ -12,6 +12,8 @@
  *
  */
 
+import java.io.PrintStream;
+
 public class Board {
 
     char[][] board;
@@ -22,41 +24,46 @@ public class Board {
 
     // method to print the board
     public void printBoard() {
-        System.out.println();
+        printBoard(System.out);
+    }
+
+    // method to print the board to another stream
+    public void printBoard(PrintStream out) {
+        out.println();
         // first line
         for (int l = 0; l < board.length + 5; l++) {
-            System.out.print(" ");// shift to start
+            out.print(" ");// shift to start
         }
         for (int j = 0; j < board[0].length; j++) {
-            System.out.print(j);// x indexes
+            out.print(j);// x indexes
             if (j < 10) {
-                System.out.print(" ");
+                out.print(" ");
             }
         }
-        System.out.println();
+        out.println();
         // second line
         for (int l = 0; l < board.length + 3; l++) {
-            System.out.print(" ");
+            out.print(" ");
         }
         for (int j = 0; j < board[0].length; j++) {
-            System.out.print(" -");// separator
+            out.print(" -");// separator
         }
-        System.out.println();
+        out.println();
         // the board
         for (int i = 0; i < board.length; i++) {
             for (int l = i; l < board.length - 1; l++) {
-                System.out.print(" ");// fill with left-hand spaces
+                out.print(" ");// fill with left-hand spaces
             }
             if (i < 10) {
-                System.out.print(" ");
+                out.print(" ");
             }
 
-            System.out.print(i + "/ ");// index+separator
+            out.print(i + "/ ");// index+separator
             for (int j = 0; j < board[0].length; j++) {
-                System.out.print(board[i][j] + " ");// value in the board
+                out.print(board[i][j] + " ");// value in the board
             }
-            System.out.println();
+            out.println();
         }
-        System.out.println();
+        out.println();
     }
 }
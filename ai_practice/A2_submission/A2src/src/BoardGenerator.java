@@ -0,0 +1,72 @@
+import java.util.Random;
+
+/**
+ * Generates random boards of any size in the format of World: 't' for a tornado, and for every other cell the
+ * number of tornadoes among its neighbours (see Cell.getNeighbours()). As on the boards of World, the cells at
+ * [0,0] and in the centre are never tornadoes, since they are given as hints.
+ */
+public class BoardGenerator {
+    // proportion of tornadoes on the large boards of World (28 of 121 cells)
+    public static final double DEFAULT_DENSITY = 28.0 / 121;
+
+    /**
+     * Number of tornadoes on a board of the given size with the density of the large boards of World.
+     *
+     * @param size is the length of the board
+     * @return the number of tornadoes
+     */
+    public static int getDefaultNumOfTornadoes(int size) {
+        return (int) Math.round(size * size * DEFAULT_DENSITY);
+    }
+
+    public static char[][] generate(int size, int numOfTornadoes, long seed) {
+        return generate(size, numOfTornadoes, new Random(seed));
+    }
+
+    /**
+     * Place the tornadoes uniformly at random on the cells other than the hints, and fill in the clues.
+     *
+     * @param size           is the length of the board
+     * @param numOfTornadoes is the number of tornadoes to place
+     * @param random         is the source of randomness
+     * @return the board
+     */
+    public static char[][] generate(int size, int numOfTornadoes, Random random) {
+        int middle = size / 2;
+        int[] candidates = new int[size * size];
+        int count = 0;
+        for (int i = 0; i < size * size; i++) {
+            if (i != 0 && i != middle * size + middle) {
+                candidates[count++] = i;
+            }
+        }
+        if (size < 1 || numOfTornadoes < 0 || numOfTornadoes > count) {
+            throw new IllegalArgumentException("can't place " + numOfTornadoes + " tornadoes on a board of length " +
+                    size);
+        }
+        char[][] map = new char[size][size];
+        // partial Fisher-Yates shuffle: the first numOfTornadoes candidates become tornadoes
+        for (int i = 0; i < numOfTornadoes; i++) {
+            int j = i + random.nextInt(count - i);
+            int swap = candidates[i];
+            candidates[i] = candidates[j];
+            candidates[j] = swap;
+            map[candidates[i] / size][candidates[i] % size] = 't';
+        }
+        BitBoard board = new BitBoard(size);
+        for (int i = 0; i < size * size; i++) {
+            if (map[i / size][i % size] == 't') {
+                continue;
+            }
+            int clue = 0;
+            for (int k = 0; k < board.getNeighbourCount(i); k++) {
+                int n = board.getNeighbour(i, k);
+                if (map[n / size][n % size] == 't') {
+                    clue += 1;
+                }
+            }
+            map[i / size][i % size] = (char) ('0' + clue);
+        }
+        return map;
+    }
+}
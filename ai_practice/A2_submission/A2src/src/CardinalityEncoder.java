@@ -0,0 +1,132 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntSupplier;
+
+/**
+ * Encodes cardinality constraints ("at most / at least / exactly k of these literals are true") straight into
+ * clauses in DIMACS form, i.e. arrays of non-zero ints where -v is the negation of variable v.
+ * At most k of n literals is encoded either by forbidding every combination of k + 1 of them, in C(n, k + 1) clauses,
+ * or with a sequential counter (Sinz, 2005), where auxiliary variable s[i][j] is true if at least j + 1 of the first
+ * i + 1 literals are true, in about 2nk clauses over (n - 1)k auxiliary variables. Whichever takes fewer clauses and
+ * variables is used: the combinations for the six neighbours of a cell, the counter for longer constraints, where the
+ * combinations blow up. At least k of n literals is at most n - k of their negations, and exactly k is both.
+ */
+public class CardinalityEncoder {
+    private final IntSupplier newVariable;
+
+    /**
+     * Constructor.
+     *
+     * @param newVariable gives a fresh variable for every auxiliary variable the encoding needs
+     */
+    public CardinalityEncoder(IntSupplier newVariable) {
+        this.newVariable = newVariable;
+    }
+
+    /**
+     * Encode "at most k of the literals are true".
+     *
+     * @param literals are the literals, with no variable twice
+     * @param k        is the bound
+     * @return the clauses, with an empty clause if k is negative
+     */
+    public List<int[]> atMost(int[] literals, int k) {
+        List<int[]> clauses = new ArrayList<>();
+        int n = literals.length;
+        if (k < 0) {
+            clauses.add(new int[0]);
+            return clauses;
+        }
+        if (k >= n) {
+            return clauses;
+        }
+        if (k == 0) {
+            for (int literal : literals) {
+                clauses.add(new int[]{-literal});
+            }
+            return clauses;
+        }
+        if (countCombinations(n, k + 1) <= k + 1 + (n - 2) * (2 * k + 1) + (n - 1) * k) {
+            addCombinations(literals, k + 1, 0, new int[k + 1], 0, clauses);
+            return clauses;
+        }
+        int[][] s = new int[n - 1][k];
+        for (int i = 0; i < n - 1; i++) {
+            for (int j = 0; j < k; j++) {
+                s[i][j] = newVariable.getAsInt();
+            }
+        }
+        clauses.add(new int[]{-literals[0], s[0][0]});
+        for (int j = 1; j < k; j++) {
+            clauses.add(new int[]{-s[0][j]});
+        }
+        for (int i = 1; i < n - 1; i++) {
+            clauses.add(new int[]{-literals[i], s[i][0]});
+            clauses.add(new int[]{-s[i - 1][0], s[i][0]});
+            for (int j = 1; j < k; j++) {
+                clauses.add(new int[]{-literals[i], -s[i - 1][j - 1], s[i][j]});
+                clauses.add(new int[]{-s[i - 1][j], s[i][j]});
+            }
+            clauses.add(new int[]{-literals[i], -s[i - 1][k - 1]});
+        }
+        clauses.add(new int[]{-literals[n - 1], -s[n - 2][k - 1]});
+        return clauses;
+    }
+
+    static long countCombinations(int n, int r) {
+        long count = 1;
+        for (int i = 1; i <= r; i++) {
+            count = count * (n - r + i) / i;
+        }
+        return count;
+    }
+
+    /**
+     * Add a clause "not all of them are true" for every combination of r literals, choosing from the first one left.
+     *
+     * @param literals are the literals
+     * @param r        is the size of the combinations
+     * @param from     is the first literal left to choose
+     * @param chosen   are the negations of the literals chosen so far
+     * @param count    is the number of literals chosen so far
+     * @param clauses  are the clauses found so far
+     */
+    private static void addCombinations(int[] literals, int r, int from, int[] chosen, int count, List<int[]> clauses) {
+        if (count == r) {
+            clauses.add(chosen.clone());
+            return;
+        }
+        for (int i = from; i <= literals.length - (r - count); i++) {
+            chosen[count] = -literals[i];
+            addCombinations(literals, r, i + 1, chosen, count + 1, clauses);
+        }
+    }
+
+    /**
+     * Encode "at least k of the literals are true".
+     *
+     * @param literals are the literals, with no variable twice
+     * @param k        is the bound
+     * @return the clauses, with an empty clause if k is more than the number of literals
+     */
+    public List<int[]> atLeast(int[] literals, int k) {
+        int[] negations = new int[literals.length];
+        for (int i = 0; i < literals.length; i++) {
+            negations[i] = -literals[i];
+        }
+        return atMost(negations, literals.length - k);
+    }
+
+    /**
+     * Encode "exactly k of the literals are true".
+     *
+     * @param literals are the literals, with no variable twice
+     * @param k        is the number of true literals
+     * @return the clauses
+     */
+    public List<int[]> exactly(int[] literals, int k) {
+        List<int[]> clauses = atMost(literals, k);
+        clauses.addAll(atLeast(literals, k));
+        return clauses;
+    }
+}
@@ -0,0 +1,95 @@
+import org.junit.Assert;
+import org.junit.Test;
+import org.sat4j.core.VecInt;
+import org.sat4j.minisat.SolverFactory;
+import org.sat4j.specs.ContradictionException;
+import org.sat4j.specs.ISolver;
+import org.sat4j.specs.TimeoutException;
+
+import java.util.List;
+
+/**
+ * Unit tests for CardinalityEncoder
+ */
+public class CardinalityEncoderTest {
+
+    /**
+     * Check if the clauses are satisfiable when the first n variables take the values of the bits of an assignment.
+     */
+    static boolean isSatisfiable(List<int[]> clauses, int n, int assignment) {
+        ISolver solver = SolverFactory.newDefault();
+        try {
+            for (int[] clause : clauses) {
+                solver.addClause(new VecInt(clause));
+            }
+            int[] assumptions = new int[n];
+            for (int i = 0; i < n; i++) {
+                assumptions[i] = (assignment >> i & 1) == 1 ? i + 1 : -(i + 1);
+            }
+            return solver.isSatisfiable(new VecInt(assumptions));
+        } catch (ContradictionException e) {
+            return false;
+        } catch (TimeoutException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Test
+    public static void testEveryAssignment() {
+        // up to the lengths where the sequential counter is used
+        for (int n = 1; n <= 9; n++) {
+            int[] literals = new int[n];
+            for (int i = 0; i < n; i++) {
+                literals[i] = i + 1;
+            }
+            for (int k = -1; k <= n + 1; k++) {
+                int[] nextVariable = {n + 1};
+                CardinalityEncoder encoder = new CardinalityEncoder(() -> nextVariable[0]++);
+                List<int[]> atMost = encoder.atMost(literals, k);
+                List<int[]> atLeast = encoder.atLeast(literals, k);
+                List<int[]> exactly = encoder.exactly(literals, k);
+                for (int assignment = 0; assignment < 1 << n; assignment++) {
+                    int count = Integer.bitCount(assignment);
+                    Assert.assertEquals("Test 1 passed for at most " + k + " of " + n, count <= k,
+                            isSatisfiable(atMost, n, assignment));
+                    Assert.assertEquals("Test 2 passed for at least " + k + " of " + n, count >= k,
+                            isSatisfiable(atLeast, n, assignment));
+                    Assert.assertEquals("Test 3 passed for exactly " + k + " of " + n, count == k,
+                            isSatisfiable(exactly, n, assignment));
+                }
+            }
+        }
+    }
+
+    @Test
+    public static void testNegatedLiterals() {
+        int[] nextVariable = {4};
+        CardinalityEncoder encoder = new CardinalityEncoder(() -> nextVariable[0]++);
+        // exactly one of ~1, ~2, 3
+        List<int[]> clauses = encoder.exactly(new int[]{-1, -2, 3}, 1);
+        Assert.assertTrue("Test 4 passed for negated literals", isSatisfiable(clauses, 3, 0b111));
+        Assert.assertTrue(isSatisfiable(clauses, 3, 0b010));
+        Assert.assertFalse(isSatisfiable(clauses, 3, 0b000));
+        Assert.assertFalse(isSatisfiable(clauses, 3, 0b011));
+        Assert.assertFalse(isSatisfiable(clauses, 3, 0b110));
+    }
+
+    @Test
+    public static void testEncodingSize() {
+        int[] nextVariable = {13};
+        CardinalityEncoder encoder = new CardinalityEncoder(() -> nextVariable[0]++);
+        int[] literals = {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12};
+        List<int[]> neighbours = encoder.atMost(new int[]{1, 2, 3, 4, 5, 6}, 3);
+        Assert.assertEquals("Test 5 passed for combinations on a neighbourhood", 15, neighbours.size());
+        Assert.assertEquals(13, nextVariable[0]);
+        List<int[]> clauses = encoder.atMost(literals, 6);
+        Assert.assertTrue("Test 6 passed for the counter on long constraints",
+                clauses.size() < CardinalityEncoder.countCombinations(12, 7) && nextVariable[0] == 13 + 11 * 6);
+    }
+
+    public static void main(String[] args) {
+        testEveryAssignment();
+        testNegatedLiterals();
+        testEncodingSize();
+    }
+}
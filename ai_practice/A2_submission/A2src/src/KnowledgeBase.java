@@ -0,0 +1,379 @@
+import org.sat4j.core.VecInt;
+import org.sat4j.minisat.SolverFactory;
+import org.sat4j.specs.ContradictionException;
+import org.sat4j.specs.ISolver;
+import org.sat4j.specs.TimeoutException;
+
+import java.util.Arrays;
+
+/**
+ * Knowledge base of a game in a SAT4J solver that is kept from one check to the next, with constraints added as
+ * cells are probed and flagged. The variable of a cell is true if the cell contains a tornado, and only the covered
+ * cells next to a clue have one. When a clue is revealed, exactly clue minus the flagged neighbours of its covered,
+ * unflagged neighbours are tornadoes, in the clauses of a CardinalityEncoder; when a cell with a variable is probed or
+ * flagged, the variable is fixed.
+ * Entailment is checked with assumptions (KB && Dx,y and KB && ~Dx,y), which leave the constraints and the clauses
+ * learned by the solver in place for the following checks.
+ * Every check that fails finds a model of the knowledge base, which shows for each cell that it can be a tornado or
+ * safe, whichever it is in the model. The last few models are kept and repaired as constraints are added (see
+ * repairModels()), and a check whose answer is shown by one of them is answered without calling the solver.
+ * SAT4J goes over all its variables and fixed literals on every check, so once most variables are fixed the solver
+ * is rebuilt with the constraints of the clues that still have covered neighbours (see compact()). Each cell keeps
+ * its variable until then.
+ */
+public class KnowledgeBase {
+    // fewest fixed variables that make the solver worth rebuilding
+    static final int MIN_FIXED_TO_COMPACT = 256;
+    static final int NUMBER_OF_MODELS = 4;
+    // value of a cell in a model
+    private static final byte SAFE = 1;
+    private static final byte TORNADO = 2;
+
+    private final BitBoard board;
+    private ISolver solver;
+    private final CardinalityEncoder encoder = new CardinalityEncoder(() -> newVariable(-1));
+    // variable of every cell, or 0 for the cells that don't have one
+    private final int[] variables;
+    // cell of every variable from variable 1, or -1 for the auxiliary variables of the encoder
+    private int[] cells = new int[64];
+    private int lastVariable = 0;
+    private int numberOfVariables = 0;
+    private int numberOfFixedVariables = 0;
+    private boolean consistent = true;
+    private boolean compacting = false;
+    private int compactions = 0;
+    private int solverCalls = 0;
+    // value of every cell with a variable in the models kept, and which of them are still models
+    private final byte[][] models;
+    private final boolean[] valid = new boolean[NUMBER_OF_MODELS];
+    private int nextModel = 0;
+
+    /**
+     * Constructor for an empty knowledge base.
+     *
+     * @param board is the agent's view of the board
+     */
+    public KnowledgeBase(BitBoard board) {
+        this.board = board;
+        this.variables = new int[board.getCellCount()];
+        this.models = new byte[NUMBER_OF_MODELS][board.getCellCount()];
+        this.solver = newSolver();
+    }
+
+    /**
+     * Knowledge base with the clues revealed so far.
+     *
+     * @param board is the agent's view of the board
+     * @return the knowledge base
+     */
+    public static KnowledgeBase of(BitBoard board) {
+        KnowledgeBase kb = new KnowledgeBase(board);
+        for (int i = 0; i < board.getCellCount(); i++) {
+            if (board.getClue(i) >= 0) {
+                kb.addClue(i);
+            }
+        }
+        return kb;
+    }
+
+    /**
+     * Knowledge base with only the clues around a cell, as SATX built it for every check before it kept one for the
+     * whole game.
+     *
+     * @param board is the agent's view of the board
+     * @param index is the index of the cell
+     * @return the knowledge base
+     */
+    public static KnowledgeBase around(BitBoard board, int index) {
+        KnowledgeBase kb = new KnowledgeBase(board);
+        for (int k = 0; k < board.getNeighbourCount(index); k++) {
+            int neighbour = board.getNeighbour(index, k);
+            if (board.getClue(neighbour) >= 0) {
+                kb.addClue(neighbour);
+            }
+        }
+        return kb;
+    }
+
+    private static ISolver newSolver() {
+        ISolver solver = SolverFactory.newDefault();
+        // a timeout in seconds starts a timer thread on every check
+        solver.setTimeoutOnConflicts(Integer.MAX_VALUE);
+        return solver;
+    }
+
+    public boolean isConsistent() {
+        return consistent;
+    }
+
+    public int getNumberOfVariables() {
+        return numberOfVariables;
+    }
+
+    public int getCompactions() {
+        return compactions;
+    }
+
+    public int getSolverCalls() {
+        return solverCalls;
+    }
+
+    /**
+     * Get the variable of a cell, giving it the next free variable of the solver if it doesn't have one.
+     *
+     * @param index is the index of the cell
+     * @return the variable
+     */
+    public int getVariable(int index) {
+        if (variables[index] == 0) {
+            numberOfVariables += 1;
+            variables[index] = newVariable(index);
+        }
+        return variables[index];
+    }
+
+    /**
+     * Get the covered, unflagged cells that have a variable, i.e. the only cells the knowledge base can decide.
+     *
+     * @return the indices of the cells, in the order of their variables
+     */
+    public int[] getOpenCells() {
+        int[] open = new int[numberOfVariables];
+        int count = 0;
+        for (int variable = 1; variable <= lastVariable; variable++) {
+            int index = cells[variable];
+            if (index >= 0 && board.isCovered(index) && !board.isFlagged(index)) {
+                open[count++] = index;
+            }
+        }
+        return Arrays.copyOf(open, count);
+    }
+
+    private int newVariable(int index) {
+        lastVariable = solver.nextFreeVarId(true);
+        if (lastVariable >= cells.length) {
+            cells = Arrays.copyOf(cells, Math.max(cells.length * 2, lastVariable + 1));
+        }
+        cells[lastVariable] = index;
+        return lastVariable;
+    }
+
+    /**
+     * Add what became known when a cell was probed or flagged: its variable is fixed if it has one, and the
+     * constraint of its clue is added if it was probed.
+     *
+     * @param index is the index of the cell
+     */
+    public void add(int index) {
+        if (variables[index] != 0) {
+            int variable = variables[index];
+            boolean tornado = board.isFlagged(index);
+            addClause(new int[]{tornado ? variable : -variable});
+            for (int m = 0; m < NUMBER_OF_MODELS; m++) {
+                valid[m] &= models[m][index] == (tornado ? TORNADO : SAFE);
+            }
+            numberOfFixedVariables += 1;
+        }
+        if (board.getClue(index) >= 0) {
+            addClue(index);
+        }
+        if (numberOfFixedVariables >= Math.max(MIN_FIXED_TO_COMPACT, numberOfVariables / 2)) {
+            compact();
+        }
+    }
+
+    /**
+     * Add the constraint of a clue on its covered, unflagged neighbours, if it has any.
+     *
+     * @param index is the index of the probed cell
+     */
+    private void addClue(int index) {
+        int[] neighbours = new int[BitBoard.MAX_NEIGHBOURS];
+        int[] literals = new int[BitBoard.MAX_NEIGHBOURS];
+        int count = 0;
+        int newVariables = 0;
+        int tornadoes = board.getClue(index);
+        for (int k = 0; k < board.getNeighbourCount(index); k++) {
+            int neighbour = board.getNeighbour(index, k);
+            if (board.isFlagged(neighbour)) {
+                tornadoes -= 1;
+            } else if (board.isCovered(neighbour)) {
+                if (variables[neighbour] == 0) {
+                    // the new variables go first, for repairModels()
+                    neighbours[count] = neighbours[newVariables];
+                    neighbours[newVariables++] = neighbour;
+                } else {
+                    neighbours[count] = neighbour;
+                }
+                count += 1;
+            }
+        }
+        if (count == 0) {
+            return;
+        }
+        for (int k = 0; k < count; k++) {
+            literals[k] = getVariable(neighbours[k]);
+        }
+        for (int[] clause : encoder.exactly(Arrays.copyOf(literals, count), tornadoes)) {
+            addClause(clause);
+        }
+        if (!compacting) {
+            repairModels(neighbours, count, newVariables, tornadoes);
+        }
+    }
+
+    /**
+     * Keep the models that can be extended to a new constraint. The variables that are new in the constraint aren't
+     * in any other constraint, so a model can be extended if it has at most the number of tornadoes required among
+     * the other cells, and enough new cells to make up the difference, which become tornadoes in the model.
+     *
+     * @param neighbours   are the cells of the constraint, the new ones first
+     * @param count        is the number of cells of the constraint
+     * @param newVariables is the number of new cells of the constraint
+     * @param tornadoes    is the number of tornadoes required among them
+     */
+    private void repairModels(int[] neighbours, int count, int newVariables, int tornadoes) {
+        for (int m = 0; m < NUMBER_OF_MODELS; m++) {
+            if (!valid[m]) {
+                continue;
+            }
+            byte[] model = models[m];
+            int missing = tornadoes;
+            for (int k = newVariables; k < count; k++) {
+                if (model[neighbours[k]] == TORNADO) {
+                    missing -= 1;
+                }
+            }
+            if (missing < 0 || missing > newVariables) {
+                valid[m] = false;
+                continue;
+            }
+            for (int k = 0; k < newVariables; k++) {
+                model[neighbours[k]] = k < missing ? TORNADO : SAFE;
+            }
+        }
+    }
+
+    private void addClause(int[] clause) {
+        try {
+            solver.addClause(new VecInt(clause));
+        } catch (ContradictionException e) {
+            consistent = false;
+        }
+    }
+
+    /**
+     * Rebuild the solver without the fixed variables. The clues that still have covered, unflagged neighbours are
+     * the clues around the cells whose variables aren't fixed, so this takes time in the size of the knowledge base
+     * and not of the board. Learned clauses are dropped with the old solver; the models stay models.
+     */
+    public void compact() {
+        int[] open = new int[numberOfVariables];
+        int count = 0;
+        for (int variable = 1; variable <= lastVariable; variable++) {
+            int index = cells[variable];
+            if (index < 0) {
+                continue;
+            }
+            variables[index] = 0;
+            if (board.isCovered(index) && !board.isFlagged(index)) {
+                open[count++] = index;
+            }
+        }
+        solver = newSolver();
+        lastVariable = 0;
+        numberOfVariables = 0;
+        numberOfFixedVariables = 0;
+        consistent = true;
+        compactions += 1;
+        compacting = true;
+        for (int i = 0; i < count; i++) {
+            int index = open[i];
+            for (int k = 0; k < board.getNeighbourCount(index); k++) {
+                int neighbour = board.getNeighbour(index, k);
+                // every clue is added once, from the first of its covered, unflagged neighbours
+                if (board.getClue(neighbour) >= 0 && getFirstOpenNeighbour(neighbour) == index) {
+                    addClue(neighbour);
+                }
+            }
+        }
+        compacting = false;
+    }
+
+    private int getFirstOpenNeighbour(int index) {
+        for (int k = 0; k < board.getNeighbourCount(index); k++) {
+            int neighbour = board.getNeighbour(index, k);
+            if (board.isCovered(neighbour) && !board.isFlagged(neighbour)) {
+                return neighbour;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Check if the knowledge base entails that a cell is safe, i.e. KB && Dx,y is unsatisfiable.
+     *
+     * @param index is the index of the cell
+     * @return true if the cell is safe for sure
+     */
+    public boolean isSafe(int index) {
+        return variables[index] != 0 && !isInModel(index, TORNADO) && !isSatisfiable(variables[index]);
+    }
+
+    /**
+     * Check if the knowledge base entails that a cell is a tornado, i.e. KB && ~Dx,y is unsatisfiable.
+     *
+     * @param index is the index of the cell
+     * @return true if the cell is a tornado for sure
+     */
+    public boolean isTornado(int index) {
+        return variables[index] != 0 && !isInModel(index, SAFE) && !isSatisfiable(-variables[index]);
+    }
+
+    private boolean isInModel(int index, byte value) {
+        for (int m = 0; m < NUMBER_OF_MODELS; m++) {
+            if (valid[m] && models[m][index] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Solve the knowledge base under the assumption of a literal. An inconsistent knowledge base, or one the solver
+     * gives up on, is reported as satisfiable so that nothing is inferred from it. The model found, if any, is kept
+     * in place of the oldest or an invalid one.
+     *
+     * @param literal is the literal assumed to hold
+     * @return false if the literal contradicts the knowledge base
+     */
+    private boolean isSatisfiable(int literal) {
+        if (!consistent) {
+            return true;
+        }
+        solverCalls += 1;
+        try {
+            if (!solver.isSatisfiable(new VecInt(new int[]{literal}))) {
+                return false;
+            }
+            int m = nextModel;
+            for (int i = 0; i < NUMBER_OF_MODELS; i++) {
+                if (!valid[i]) {
+                    m = i;
+                    break;
+                }
+            }
+            nextModel = (m + 1) % NUMBER_OF_MODELS;
+            for (int modelLiteral : solver.model()) {
+                int variable = Math.abs(modelLiteral);
+                if (variable <= lastVariable && cells[variable] >= 0) {
+                    models[m][cells[variable]] = modelLiteral > 0 ? TORNADO : SAFE;
+                }
+            }
+            valid[m] = true;
+            return true;
+        } catch (TimeoutException e) {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit tests for KnowledgeBase
+ */
+public class KnowledgeBaseTest {
+
+    @Test
+    public static void testEntailment() {
+        char[][] map = World.TEST1.map;
+        BitBoard board = new BitBoard(3);
+        KnowledgeBase kb = new KnowledgeBase(board);
+        // probe [0,0], the middle cell and [2,2] with its neighbours
+        int[][] probes = {{0, 0}, {1, 1}, {2, 2}, {1, 2}, {2, 1}};
+        for (int[] probe : probes) {
+            int index = board.getIndex(probe[0], probe[1]);
+            board.probe(index, map[probe[0]][probe[1]]);
+            kb.add(index);
+        }
+        int tornado = board.getIndex(1, 0);
+        int safe = board.getIndex(0, 1);
+        Assert.assertTrue("Test 1 passed for entailing a tornado", kb.isTornado(tornado));
+        Assert.assertFalse(kb.isSafe(tornado));
+        Assert.assertTrue("Test 2 passed for entailing a safe cell", kb.isSafe(safe));
+        Assert.assertFalse(kb.isTornado(safe));
+
+        board.flag(tornado);
+        kb.add(tornado);
+        // [2,0] is the second tornado next to the '2' in [2,1]
+        Assert.assertTrue("Test 3 passed for entailing after a flag", kb.isTornado(board.getIndex(2, 0)));
+    }
+
+    @Test
+    public static void testIncrementalMatchesRebuilt() {
+        int size = 40;
+        char[][] map = BoardGenerator.generate(size, BoardGenerator.getDefaultNumOfTornadoes(size), 5);
+        int[] order = A2benchmark.getProbeOrder(map, 7);
+        BitBoard board = new BitBoard(size);
+        KnowledgeBase kb = new KnowledgeBase(board);
+        for (int i = 0; i < order.length; i++) {
+            board.probe(order[i], map[order[i] / size][order[i] % size]);
+            kb.add(order[i]);
+            if (i % 100 != 99) {
+                continue;
+            }
+            // the knowledge base kept since the start and one built from the board must entail the same
+            KnowledgeBase rebuilt = KnowledgeBase.of(board);
+            for (int index = board.nextCovered(0); index >= 0; index = board.nextCovered(index + 1)) {
+                Assert.assertEquals("Test 4 passed for safe cells", rebuilt.isSafe(index), kb.isSafe(index));
+                Assert.assertEquals("Test 5 passed for tornadoes", rebuilt.isTornado(index), kb.isTornado(index));
+            }
+        }
+        Assert.assertTrue("Test 6 passed for compacting the knowledge base", kb.getCompactions() > 0);
+    }
+
+    public static void main(String[] args) {
+        testEntailment();
+        testIncrementalMatchesRebuilt();
+    }
+}
@@ -0,0 +1,649 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Probability that each covered, unflagged cell contains a tornado, over all the placements of the remaining
+ * tornadoes that agree with the clues, each placement being equally likely.
+ * The frontier (the cells next to a clue) is split into components, cells being connected if they are next to the
+ * same clue. Components don't constrain each other except through the total number of tornadoes, so each one is
+ * enumerated on its own (see enumerate()), giving for every number t of tornadoes in it the number of its placements
+ * with t tornadoes, and for each of its cells the number of those where the cell is a tornado. The other cells,
+ * away from every clue, hold the remaining tornadoes in any of C(rest, remaining) ways, which weighs the components
+ * against each other (see combine()).
+ * Counts are kept as doubles scaled by a common factor per component and per cell position, since only their ratios
+ * matter, and would overflow a long on large components.
+ */
+public class ProbabilityEngine {
+    // most states over all the cells of a component before its enumeration is given up for an estimate
+    static final int MAX_STATES = 200_000;
+    // most multiplications to combine the components exactly, before the others are approximated (see combine())
+    static final long MAX_EXACT_COMBINATION = 4_000_000L;
+
+    private final BitBoard board;
+    private final int tornadoesLeft;
+    // frontier cells, their position in the frontier, and their probabilities
+    private int[] frontier = new int[64];
+    private int frontierSize = 0;
+    private final Map<Integer, Integer> frontierPositions = new HashMap<>();
+    private double[] probabilities;
+    // covered, unflagged cells away from every clue, the one of them with the fewest neighbours, and its probability
+    private int restSize = 0;
+    private int restCell = -1;
+    private double restProbability = 0;
+    // constraints: the frontier positions next to each clue and the number of tornadoes among them
+    private final List<int[]> constraintCells = new ArrayList<>();
+    private final List<Integer> constraintTornadoes = new ArrayList<>();
+    private int[][] cellConstraints;
+    // position of every frontier cell in the enumeration of its component
+    private int[] order;
+    private boolean exact = true;
+
+    /**
+     * Compute the probabilities of all covered, unflagged cells.
+     *
+     * @param board          is the agent's view of the board
+     * @param numOfTornadoes is the number of tornadoes on the board, flagged or not
+     */
+    public ProbabilityEngine(BitBoard board, int numOfTornadoes) {
+        this.board = board;
+        this.tornadoesLeft = numOfTornadoes - board.getFlaggedCount();
+        findFrontier();
+        findConstraints();
+        probabilities = new double[frontierSize];
+        order = new int[frontierSize];
+        List<Component> components = findComponents();
+        for (Component component : components) {
+            enumerate(component);
+        }
+        combine(components);
+    }
+
+    /**
+     * Polynomial in the number of tornadoes: weights[i] is the weight of min + i tornadoes.
+     */
+    static final class Poly {
+        static final Poly ONE = new Poly(0, new double[]{1});
+        final int min;
+        final double[] weights;
+
+        Poly(int min, double[] weights) {
+            this.min = min;
+            this.weights = weights;
+        }
+
+        int max() {
+            return min + weights.length - 1;
+        }
+
+        double get(int t) {
+            return t < min || t > max() ? 0 : weights[t - min];
+        }
+
+        Poly shift(int t) {
+            return t == 0 ? this : new Poly(min + t, weights);
+        }
+
+        Poly plus(Poly other) {
+            if (other == null) {
+                return this;
+            }
+            int low = Math.min(min, other.min);
+            double[] sum = new double[Math.max(max(), other.max()) - low + 1];
+            for (int i = 0; i < weights.length; i++) {
+                sum[min - low + i] += weights[i];
+            }
+            for (int i = 0; i < other.weights.length; i++) {
+                sum[other.min - low + i] += other.weights[i];
+            }
+            return new Poly(low, sum);
+        }
+
+        Poly times(Poly other) {
+            double[] product = new double[weights.length + other.weights.length - 1];
+            for (int i = 0; i < weights.length; i++) {
+                if (weights[i] != 0) {
+                    for (int j = 0; j < other.weights.length; j++) {
+                        product[i + j] += weights[i] * other.weights[j];
+                    }
+                }
+            }
+            return new Poly(min + other.min, product);
+        }
+
+        double maxWeight() {
+            double max = 0;
+            for (double weight : weights) {
+                max = Math.max(max, weight);
+            }
+            return max;
+        }
+
+        Poly scale(double factor) {
+            double[] scaled = new double[weights.length];
+            for (int i = 0; i < weights.length; i++) {
+                scaled[i] = weights[i] * factor;
+            }
+            return new Poly(min, scaled);
+        }
+
+        Poly normalise() {
+            double max = maxWeight();
+            return max == 0 || max == 1 ? this : scale(1 / max);
+        }
+    }
+
+    /**
+     * Frontier cells in the order they are enumerated in, their constraints, and the result of the enumeration.
+     */
+    static final class Component {
+        int[] cells;
+        int[] constraints;
+        // weight of every number of tornadoes in the component, or null if it wasn't enumerated
+        Poly tornadoes;
+        // for every cell, the weight of every number of tornadoes over all placements, and over those where the cell
+        // is a tornado, at the same scale
+        Poly[] all;
+        Poly[] withTornado;
+        // weight of every number of tornadoes in the component given the rest of the board
+        Poly others;
+    }
+
+    public int getFrontierSize() {
+        return frontierSize;
+    }
+
+    public int getRestSize() {
+        return restSize;
+    }
+
+    public double getRestProbability() {
+        return restProbability;
+    }
+
+    /**
+     * Check if the components were weighed against each other exactly. Counts of placements are exact either way,
+     * up to rounding.
+     *
+     * @return false if the combination or a component was approximated
+     */
+    public boolean isExact() {
+        return exact;
+    }
+
+    /**
+     * Probability that a covered, unflagged cell contains a tornado.
+     *
+     * @param index is the index of the cell
+     * @return the probability
+     */
+    public double getProbability(int index) {
+        Integer position = frontierPositions.get(index);
+        return position == null ? restProbability : probabilities[position];
+    }
+
+    /**
+     * Get the covered, unflagged cell least likely to contain a tornado. Away from the clues, the cell with the fewest
+     * neighbours is taken, as it is the most likely to reveal a '0'.
+     *
+     * @return the index of the cell, or -1 if there is no covered, unflagged cell
+     */
+    public int getSafestCell() {
+        int safest = restCell;
+        double lowest = restCell >= 0 ? restProbability : Double.POSITIVE_INFINITY;
+        for (int i = 0; i < frontierSize; i++) {
+            if (probabilities[i] < lowest) {
+                lowest = probabilities[i];
+                safest = frontier[i];
+            }
+        }
+        return safest;
+    }
+
+    private void findFrontier() {
+        for (int i = board.nextCovered(0); i >= 0; i = board.nextCovered(i + 1)) {
+            if (board.isFlagged(i)) {
+                continue;
+            }
+            boolean nextToClue = false;
+            for (int k = 0; k < board.getNeighbourCount(i) && !nextToClue; k++) {
+                nextToClue = board.getClue(board.getNeighbour(i, k)) >= 0;
+            }
+            if (nextToClue) {
+                if (frontierSize == frontier.length) {
+                    frontier = Arrays.copyOf(frontier, frontierSize * 2);
+                }
+                frontierPositions.put(i, frontierSize);
+                frontier[frontierSize++] = i;
+            } else {
+                restSize += 1;
+                if (restCell < 0 || board.getNeighbourCount(i) < board.getNeighbourCount(restCell)) {
+                    restCell = i;
+                }
+            }
+        }
+    }
+
+    /**
+     * Find the clues next to the frontier: each one says how many of its covered, unflagged neighbours, all in the
+     * frontier, are tornadoes.
+     */
+    private void findConstraints() {
+        Map<Integer, Integer> clues = new HashMap<>();
+        int[] counts = new int[frontierSize];
+        for (int p = 0; p < frontierSize; p++) {
+            int cell = frontier[p];
+            for (int k = 0; k < board.getNeighbourCount(cell); k++) {
+                int clue = board.getNeighbour(cell, k);
+                if (board.getClue(clue) < 0 || clues.containsKey(clue)) {
+                    continue;
+                }
+                clues.put(clue, constraintCells.size());
+                int[] cells = new int[board.getNeighbourCount(clue)];
+                int size = 0;
+                int tornadoes = board.getClue(clue);
+                for (int l = 0; l < board.getNeighbourCount(clue); l++) {
+                    int neighbour = board.getNeighbour(clue, l);
+                    if (board.isFlagged(neighbour)) {
+                        tornadoes -= 1;
+                    } else if (board.isCovered(neighbour)) {
+                        cells[size++] = frontierPositions.get(neighbour);
+                        counts[cells[size - 1]] += 1;
+                    }
+                }
+                constraintCells.add(Arrays.copyOf(cells, size));
+                constraintTornadoes.add(tornadoes);
+            }
+        }
+        cellConstraints = new int[frontierSize][];
+        for (int p = 0; p < frontierSize; p++) {
+            cellConstraints[p] = new int[counts[p]];
+            counts[p] = 0;
+        }
+        for (int c = 0; c < constraintCells.size(); c++) {
+            for (int p : constraintCells.get(c)) {
+                cellConstraints[p][counts[p]++] = c;
+            }
+        }
+    }
+
+    /**
+     * Split the frontier into components, with the cells of each in breadth-first order from its first cell, so that
+     * the clues of a component are only open over a short stretch of the enumeration.
+     */
+    private List<Component> findComponents() {
+        List<Component> components = new ArrayList<>();
+        boolean[] seenCell = new boolean[frontierSize];
+        boolean[] seenConstraint = new boolean[constraintCells.size()];
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int start = 0; start < frontierSize; start++) {
+            if (seenCell[start]) {
+                continue;
+            }
+            List<Integer> cells = new ArrayList<>();
+            List<Integer> constraints = new ArrayList<>();
+            seenCell[start] = true;
+            queue.add(start);
+            while (!queue.isEmpty()) {
+                int p = queue.poll();
+                cells.add(p);
+                for (int c : cellConstraints[p]) {
+                    if (seenConstraint[c]) {
+                        continue;
+                    }
+                    seenConstraint[c] = true;
+                    constraints.add(c);
+                    for (int q : constraintCells.get(c)) {
+                        if (!seenCell[q]) {
+                            seenCell[q] = true;
+                            queue.add(q);
+                        }
+                    }
+                }
+            }
+            Component component = new Component();
+            component.cells = cells.stream().mapToInt(Integer::intValue).toArray();
+            component.constraints = constraints.stream().mapToInt(Integer::intValue).toArray();
+            components.add(component);
+        }
+        return components;
+    }
+
+    /**
+     * Count the placements of tornadoes in a component that agree with its clues, cell by cell, with memoisation:
+     * after the first i cells are decided, the placements of the others only depend on how many tornadoes each clue
+     * that is still open (with cells on both sides of i) is missing. Those residuals are the state of the
+     * enumeration, and placements reaching the same state are counted together. A forward pass counts the ways to
+     * reach each state, a backward pass the ways to complete it, and together they give the counts of every cell.
+     *
+     * @param component is the component
+     */
+    private void enumerate(Component component) {
+        int n = component.cells.length;
+        int m = component.constraints.length;
+        // constraints renumbered within the component, with their first and last cell in the enumeration
+        for (int i = 0; i < n; i++) {
+            order[component.cells[i]] = i;
+        }
+        int[] target = new int[m];
+        int[] first = new int[m];
+        int[][] positions = new int[m][];
+        Map<Integer, Integer> local = new HashMap<>();
+        for (int j = 0; j < m; j++) {
+            int c = component.constraints[j];
+            local.put(c, j);
+            target[j] = constraintTornadoes.get(c);
+            positions[j] = Arrays.stream(constraintCells.get(c)).map(p -> order[p]).sorted().toArray();
+            first[j] = positions[j][0];
+        }
+        int[][] incident = new int[n][];
+        for (int i = 0; i < n; i++) {
+            int[] constraints = cellConstraints[component.cells[i]];
+            incident[i] = new int[constraints.length];
+            for (int k = 0; k < constraints.length; k++) {
+                incident[i][k] = local.get(constraints[k]);
+            }
+        }
+        // constraints open before deciding cell i: started before it and not finished
+        int[][] open = new int[n + 1][];
+        List<Integer> current = new ArrayList<>();
+        open[0] = new int[0];
+        for (int i = 1; i <= n; i++) {
+            for (int j : incident[i - 1]) {
+                if (first[j] == i - 1) {
+                    current.add(j);
+                }
+            }
+            final int position = i;
+            current.removeIf(j -> positions[j][positions[j].length - 1] < position);
+            open[i] = current.stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        Transition transition = new Transition(target, first, positions, incident, open);
+        List<Map<String, Poly>> forward = new ArrayList<>();
+        Map<String, Poly> start = new HashMap<>();
+        start.put("", Poly.ONE);
+        forward.add(start);
+        int states = 0;
+        for (int i = 0; i < n; i++) {
+            Map<String, Poly> next = new HashMap<>();
+            for (Map.Entry<String, Poly> entry : forward.get(i).entrySet()) {
+                for (int v = 0; v <= 1; v++) {
+                    String key = transition.apply(i, entry.getKey(), v);
+                    if (key != null) {
+                        next.merge(key, entry.getValue().shift(v), Poly::plus);
+                    }
+                }
+            }
+            states += next.size();
+            if (states > MAX_STATES) {
+                estimate(component);
+                return;
+            }
+            forward.add(normalise(next));
+        }
+
+        component.all = new Poly[n];
+        component.withTornado = new Poly[n];
+        Map<String, Poly> backward = new HashMap<>();
+        backward.put("", Poly.ONE);
+        for (int i = n - 1; i >= 0; i--) {
+            Map<String, Poly> previous = new HashMap<>();
+            Poly all = null;
+            Poly withTornado = null;
+            for (Map.Entry<String, Poly> entry : forward.get(i).entrySet()) {
+                for (int v = 0; v <= 1; v++) {
+                    String key = transition.apply(i, entry.getKey(), v);
+                    Poly completions = key == null ? null : backward.get(key);
+                    if (completions == null) {
+                        continue;
+                    }
+                    previous.merge(entry.getKey(), completions.shift(v), Poly::plus);
+                    Poly placements = entry.getValue().times(completions).shift(v);
+                    all = placements.plus(all);
+                    if (v == 1) {
+                        withTornado = placements.plus(withTornado);
+                    }
+                }
+            }
+            if (all == null) {
+                // no placement agrees with the clues
+                estimate(component);
+                return;
+            }
+            component.all[i] = all;
+            component.withTornado[i] = withTornado == null ? new Poly(all.min, new double[1]) : withTornado;
+            backward = normalise(previous);
+        }
+        component.tornadoes = backward.get("");
+    }
+
+    private static Map<String, Poly> normalise(Map<String, Poly> polys) {
+        double max = 0;
+        for (Poly poly : polys.values()) {
+            max = Math.max(max, poly.maxWeight());
+        }
+        if (max > 0 && max != 1) {
+            double factor = 1 / max;
+            polys.replaceAll((key, poly) -> poly.scale(factor));
+        }
+        return polys;
+    }
+
+    /**
+     * Moves of the enumeration from one state to the next, the states being strings of the residuals of the open
+     * constraints.
+     */
+    static final class Transition {
+        private final int[] target;
+        private final int[] first;
+        private final int[][] positions;
+        private final int[][] incident;
+        private final int[][] open;
+        private final int[] residual;
+        private final char[] key;
+
+        Transition(int[] target, int[] first, int[][] positions, int[][] incident, int[][] open) {
+            this.target = target;
+            this.first = first;
+            this.positions = positions;
+            this.incident = incident;
+            this.open = open;
+            this.residual = new int[target.length];
+            this.key = new char[target.length];
+        }
+
+        /**
+         * Decide cell i.
+         *
+         * @param i     is the position of the cell
+         * @param state is the state before the cell
+         * @param v     is 1 if the cell is a tornado, 0 otherwise
+         * @return the state after the cell, or null if a clue can no longer be met
+         */
+        String apply(int i, String state, int v) {
+            for (int s = 0; s < open[i].length; s++) {
+                residual[open[i][s]] = state.charAt(s);
+            }
+            for (int j : incident[i]) {
+                if (first[j] == i) {
+                    residual[j] = target[j];
+                }
+                residual[j] -= v;
+                int later = 0;
+                for (int p : positions[j]) {
+                    if (p > i) {
+                        later += 1;
+                    }
+                }
+                if (residual[j] < 0 || residual[j] > later) {
+                    return null;
+                }
+            }
+            for (int s = 0; s < open[i + 1].length; s++) {
+                key[s] = (char) residual[open[i + 1][s]];
+            }
+            return new String(key, 0, open[i + 1].length);
+        }
+    }
+
+    /**
+     * Estimate the probabilities of a component too large to enumerate, or whose clues contradict each other: each
+     * cell gets the mean over its clues of the share of tornadoes missing.
+     *
+     * @param component is the component
+     */
+    private void estimate(Component component) {
+        exact = false;
+        double total = 0;
+        for (int p : component.cells) {
+            double sum = 0;
+            for (int c : cellConstraints[p]) {
+                sum += Math.max(0, Math.min(1, (double) constraintTornadoes.get(c) / constraintCells.get(c).length));
+            }
+            probabilities[p] = sum / cellConstraints[p].length;
+            total += probabilities[p];
+        }
+        component.tornadoes = new Poly((int) Math.round(total), new double[]{1});
+        component.all = null;
+    }
+
+    /**
+     * Weigh the numbers of tornadoes of every component by the number of ways to place the remaining tornadoes on
+     * the other components and away from the clues, and compute the probability of every cell from it.
+     * The weights of component c come from the product of the polynomials of the other components, computed from
+     * the products of the components before and after c. When that would take too long, the other components are
+     * taken to hold their expected number of tornadoes, which is close on large boards with many components.
+     *
+     * @param components are the enumerated components
+     */
+    private void combine(List<Component> components) {
+        int size = components.size();
+        Poly[] before = new Poly[size + 1];
+        Poly[] after = new Poly[size + 1];
+        before[0] = Poly.ONE;
+        after[size] = Poly.ONE;
+        for (int c = 0; c < size; c++) {
+            before[c + 1] = before[c].times(components.get(c).tornadoes).normalise();
+        }
+        for (int c = size - 1; c >= 0; c--) {
+            after[c] = components.get(c).tornadoes.times(after[c + 1]).normalise();
+        }
+        Poly total = before[size];
+        // weight of every number of tornadoes on the frontier, from the ways to place the others away from the clues
+        double[] rest = new double[total.max() + 1];
+        double maxLog = Double.NEGATIVE_INFINITY;
+        for (int t = total.min; t <= total.max(); t++) {
+            maxLog = Math.max(maxLog, logChoose(restSize, tornadoesLeft - t));
+        }
+        for (int t = total.min; t <= total.max(); t++) {
+            rest[t] = Math.exp(logChoose(restSize, tornadoesLeft - t) - maxLog);
+        }
+        double weight = 0;
+        double tornadoesAway = 0;
+        double tornadoesOnFrontier = 0;
+        for (int t = total.min; t <= total.max(); t++) {
+            double w = total.get(t) * rest[t];
+            weight += w;
+            tornadoesAway += w * (tornadoesLeft - t);
+            tornadoesOnFrontier += w * t;
+        }
+        if (weight == 0) {
+            // the clues can't be met with the tornadoes left: weigh nothing
+            exact = false;
+            Arrays.fill(rest, 1);
+            weight = 1;
+            tornadoesAway = tornadoesLeft;
+        }
+        restProbability = restSize == 0 ? 1 : Math.min(1, tornadoesAway / weight / restSize);
+        double expectedOnFrontier = tornadoesOnFrontier / weight;
+
+        long cost = 0;
+        for (int c = 0; c < size; c++) {
+            cost += (long) before[c].weights.length * after[c + 1].weights.length +
+                    (long) total.weights.length * components.get(c).tornadoes.weights.length;
+        }
+        boolean exactCombination = cost <= MAX_EXACT_COMBINATION;
+        exact &= exactCombination;
+        for (int c = 0; c < size; c++) {
+            Component component = components.get(c);
+            Poly tornadoes = component.tornadoes;
+            double[] weights = new double[tornadoes.weights.length];
+            if (exactCombination) {
+                Poly others = before[c].times(after[c + 1]);
+                for (int t = tornadoes.min; t <= tornadoes.max(); t++) {
+                    for (int u = others.min; u <= others.max(); u++) {
+                        if (t + u >= 0 && t + u < rest.length) {
+                            weights[t - tornadoes.min] += others.get(u) * rest[t + u];
+                        }
+                    }
+                }
+            } else {
+                double others = expectedOnFrontier - mean(tornadoes);
+                for (int t = tornadoes.min; t <= tornadoes.max(); t++) {
+                    weights[t - tornadoes.min] = logChoose(restSize, tornadoesLeft - others - t);
+                }
+                double max = Arrays.stream(weights).max().orElse(0);
+                for (int i = 0; i < weights.length; i++) {
+                    weights[i] = max == Double.NEGATIVE_INFINITY ? 1 : Math.exp(weights[i] - max);
+                }
+            }
+            component.others = new Poly(tornadoes.min, weights);
+            if (component.all == null) {
+                continue;
+            }
+            for (int i = 0; i < component.cells.length; i++) {
+                double withTornado = 0;
+                double all = 0;
+                for (int t = component.all[i].min; t <= component.all[i].max(); t++) {
+                    withTornado += component.withTornado[i].get(t) * component.others.get(t);
+                    all += component.all[i].get(t) * component.others.get(t);
+                }
+                probabilities[component.cells[i]] = all > 0 ? withTornado / all : 1;
+            }
+        }
+    }
+
+    private static double mean(Poly poly) {
+        double weight = 0;
+        double sum = 0;
+        for (int t = poly.min; t <= poly.max(); t++) {
+            weight += poly.get(t);
+            sum += poly.get(t) * t;
+        }
+        return weight == 0 ? poly.min : sum / weight;
+    }
+
+    /**
+     * Logarithm of the binomial coefficient C(n, k), for real k.
+     *
+     * @return the logarithm, or negative infinity if k is out of [0, n]
+     */
+    static double logChoose(double n, double k) {
+        if (k < 0 || k > n) {
+            return Double.NEGATIVE_INFINITY;
+        }
+        return logGamma(n + 1) - logGamma(k + 1) - logGamma(n - k + 1);
+    }
+
+    // coefficients of the Lanczos approximation with g = 7
+    private static final double[] LANCZOS = {0.99999999999980993, 676.5203681218851, -1259.1392167224028,
+            771.32342877765313, -176.61502916214059, 12.507343278686905, -0.13857109526572012,
+            9.9843695780195716e-6, 1.5056327351493116e-7};
+
+    /**
+     * Logarithm of the gamma function for x >= 1, with the Lanczos approximation.
+     */
+    static double logGamma(double x) {
+        x -= 1;
+        double sum = LANCZOS[0];
+        for (int i = 1; i < LANCZOS.length; i++) {
+            sum += LANCZOS[i] / (x + i);
+        }
+        double t = x + 7.5;
+        return 0.5 * Math.log(2 * Math.PI) + (x + 0.5) * Math.log(t) - t + Math.log(sum);
+    }
+}
@@ -0,0 +1,136 @@
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit tests for ProbabilityEngine
+ */
+public class ProbabilityEngineTest {
+
+    @Test
+    public static void testCertainCells() {
+        char[][] map = World.TEST1.map;
+        BitBoard board = new BitBoard(3);
+        // probe [0,0], the middle cell and [2,2] with its neighbours
+        int[][] probes = {{0, 0}, {1, 1}, {2, 2}, {1, 2}, {2, 1}};
+        for (int[] probe : probes) {
+            board.probe(board.getIndex(probe[0], probe[1]), map[probe[0]][probe[1]]);
+        }
+        ProbabilityEngine engine = new ProbabilityEngine(board, 3);
+        Assert.assertEquals("Test 1 passed for a certain tornado", 1.0,
+                engine.getProbability(board.getIndex(1, 0)), 1e-12);
+        Assert.assertEquals("Test 2 passed for a certain safe cell", 0.0,
+                engine.getProbability(board.getIndex(0, 1)), 1e-12);
+        Assert.assertEquals("Test 3 passed for the safest cell", 0.0,
+                engine.getProbability(engine.getSafestCell()), 1e-12);
+    }
+
+    @Test
+    public static void testMatchesEnumeration() {
+        int size = 6;
+        for (int seed = 0; seed < 30; seed++) {
+            int numOfTornadoes = 6 + seed % 4;
+            char[][] map = BoardGenerator.generate(size, numOfTornadoes, seed);
+            int[] order = A2benchmark.getProbeOrder(map, seed);
+            BitBoard board = new BitBoard(size);
+            for (int i = 0; i < 8 + seed % 10; i++) {
+                board.probe(order[i], map[order[i] / size][order[i] % size]);
+            }
+            if (seed % 3 == 0) {
+                for (int i = 0; i < size * size; i++) {
+                    if (map[i / size][i % size] == 't') {
+                        board.flag(i);
+                        break;
+                    }
+                }
+            }
+            // count the placements of the tornadoes left on the covered, unflagged cells that match every clue
+            int[] covered = new int[size * size];
+            int count = 0;
+            for (int i = board.nextCovered(0); i >= 0; i = board.nextCovered(i + 1)) {
+                if (!board.isFlagged(i)) {
+                    covered[count++] = i;
+                }
+            }
+            long[] tornadoCounts = new long[size * size];
+            long total = countPlacements(board, covered, count, 0, numOfTornadoes - board.getFlaggedCount(),
+                    new boolean[size * size], tornadoCounts);
+            ProbabilityEngine engine = new ProbabilityEngine(board, numOfTornadoes);
+            Assert.assertTrue(engine.isExact());
+            double safest = 1;
+            for (int k = 0; k < count; k++) {
+                double probability = (double) tornadoCounts[covered[k]] / total;
+                Assert.assertEquals("Test 4 passed for exact probabilities", probability,
+                        engine.getProbability(covered[k]), 1e-9);
+                safest = Math.min(safest, probability);
+            }
+            Assert.assertEquals("Test 5 passed for the safest cell", safest,
+                    (double) tornadoCounts[engine.getSafestCell()] / total, 1e-9);
+        }
+    }
+
+    /**
+     * Count the placements of tornadoes on the covered cells from the k-th that match every clue, and how many of them
+     * have a tornado in each cell.
+     *
+     * @return the number of placements
+     */
+    private static long countPlacements(BitBoard board, int[] covered, int count, int k, int left, boolean[] tornado,
+                                        long[] tornadoCounts) {
+        if (left < 0 || left > count - k) {
+            return 0;
+        }
+        if (k == count) {
+            for (int i = 0; i < board.getCellCount(); i++) {
+                if (board.getClue(i) < 0) {
+                    continue;
+                }
+                int tornadoes = 0;
+                for (int n = 0; n < board.getNeighbourCount(i); n++) {
+                    int neighbour = board.getNeighbour(i, n);
+                    if (tornado[neighbour] || board.isFlagged(neighbour)) {
+                        tornadoes += 1;
+                    }
+                }
+                if (tornadoes != board.getClue(i)) {
+                    return 0;
+                }
+            }
+            for (int i = 0; i < count; i++) {
+                if (tornado[covered[i]]) {
+                    tornadoCounts[covered[i]] += 1;
+                }
+            }
+            return 1;
+        }
+        tornado[covered[k]] = true;
+        long placements = countPlacements(board, covered, count, k + 1, left - 1, tornado, tornadoCounts);
+        tornado[covered[k]] = false;
+        return placements + countPlacements(board, covered, count, k + 1, left, tornado, tornadoCounts);
+    }
+
+    @Test
+    public static void testLargeBoard() {
+        int size = 60;
+        int numOfTornadoes = BoardGenerator.getDefaultNumOfTornadoes(size);
+        char[][] map = BoardGenerator.generate(size, numOfTornadoes, 3);
+        int[] order = A2benchmark.getProbeOrder(map, 3);
+        BitBoard board = new BitBoard(size);
+        for (int i = 0; i < order.length / 3; i++) {
+            board.probe(order[i], map[order[i] / size][order[i] % size]);
+        }
+        ProbabilityEngine engine = new ProbabilityEngine(board, numOfTornadoes);
+        int safest = engine.getSafestCell();
+        Assert.assertTrue("Test 6 passed for a guess on a large board",
+                board.isCovered(safest) && !board.isFlagged(safest));
+        for (int i = board.nextCovered(0); i >= 0; i = board.nextCovered(i + 1)) {
+            double probability = engine.getProbability(i);
+            Assert.assertTrue(probability >= 0 && probability <= 1);
+        }
+    }
+
+    public static void main(String[] args) {
+        testCertainCells();
+        testMatchesEnumeration();
+        testLargeBoard();
+    }
+}
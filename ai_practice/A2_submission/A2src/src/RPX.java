@@ -1,8 +1,25 @@
+import java.io.PrintStream;
 import java.util.Random;
 
 public class RPX extends TornadoSweeper {
+    // random guesses of the game, seeded to replay it
+    protected final Random random = new Random();
 
-    public RPX() {
+    public RPX(char[][] map) {
+        super(map);
+    }
+
+    public RPX(char[][] map, PrintStream out) {
+        super(map, out);
+    }
+
+    /**
+     * Set the seed of the random guesses, so that the game can be played again with the same guesses.
+     *
+     * @param seed is the seed
+     */
+    public void setSeed(long seed) {
+        random.setSeed(seed);
     }
 
     /**
@@ -11,10 +28,8 @@ public class RPX extends TornadoSweeper {
      * @param limit is the range in which to generate
      * @return the random no.
      */
-    public static int generateRandomNumberInRange(int limit) {
-        Random rand = new Random();
-        int num = rand.nextInt(limit);
-        return num;
+    public int generateRandomNumberInRange(int limit) {
+        return random.nextInt(limit);
     }
 
     /**
@@ -49,6 +64,24 @@ public class RPX extends TornadoSweeper {
         }
     }
 
+    /**
+     * Select the cell to probe when SPX or SATX can't infer any: the covered, unflagged cell least likely to contain
+     * a tornado given the clues and the number of tornadoes left (see ProbabilityEngine), or a random one if the games
+     * are set to guess at random.
+     *
+     * @return the cell
+     */
+    public Cell selectGuess() {
+        if (!safestGuess) {
+            return selectRandomUnprobedAndUnflaggedCell();
+        }
+        ProbabilityEngine engine = new ProbabilityEngine(bitBoard, numOfTornadoes);
+        int index = engine.getSafestCell();
+        log("\nSafest cell to probe: [" + bitBoard.getRow(index) + "," + bitBoard.getCol(index) + "], with a " +
+                "probability of " + engine.getProbability(index) + " of containing a tornado");
+        return bitBoard.toCell(index);
+    }
+
     /**
      * Uncover a cell, mark it if tornado else update the agentWorld
      *
@@ -59,9 +92,10 @@ public class RPX extends TornadoSweeper {
     public boolean unCoverandMarkCell(int rowToProbe, int colToProbe) {
         boolean isTornado = false;
         char cellContent = super.getContentOfCell(rowToProbe, colToProbe);
-        System.out.print("\nUncovering the cell in [" + rowToProbe + "," + colToProbe
+        log("\nUncovering the cell in [" + rowToProbe + "," + colToProbe
                 + "] coordinates with content: '" + cellContent + "'");
         if (isTornado(cellContent)) {
+            numOfDecisions += 1;
             super.agentWorld[rowToProbe][colToProbe] = cellContent;
             isTornado = true;
         } else {
@@ -71,6 +105,13 @@ public class RPX extends TornadoSweeper {
         return isTornado;
     }
 
+    /**
+     * Play the game with the strategy of the agent.
+     */
+    public void play() {
+        randomProbe();
+    }
+
     /**
      * Play the game for RPX agent.
      */
@@ -78,15 +119,14 @@ public class RPX extends TornadoSweeper {
         int rowToProbe;
         int colToProbe;
         Cell cellToProbe = null;
-        int noOfRandomProbes = 0;
 
         gameLoop:
-        while (super.toBeVisited.size() > super.numOfTornadoes) {
-            System.out.print("\nStep: " + super.step);
-            System.out.print("\nNumber of visited cells: " + super.visited.size() +
-                    "\nNumber of cells to be visited: " + super.toBeVisited.size());
+        while (super.getNumOfCellsToBeVisited() > super.numOfTornadoes) {
+            log("\nStep: " + super.step);
+            log("\nNumber of visited cells: " + super.visited.size() +
+                    "\nNumber of cells to be visited: " + super.getNumOfCellsToBeVisited());
             if (super.step > 0 && midCellProbed) {
-                noOfRandomProbes += 1;
+                numOfRandomProbes += 1;
                 cellToProbe = selectRandomUnprobedCell();
             } else {
                 cellToProbe = super.getFirstCellsToProbe();
@@ -101,15 +141,15 @@ public class RPX extends TornadoSweeper {
             }
         }
         // condition for losing or winning the game
-        if (super.toBeVisited.size() > super.numOfTornadoes) {
-            System.out.println("\n\nGame lost after " + step + " steps!");
-        } else if (super.toBeVisited.size() == super.numOfTornadoes) {
-            System.out.print("\n\nGame won in " + step + " steps!");
+        if (super.getNumOfCellsToBeVisited() > super.numOfTornadoes) {
+            log("\n\nGame lost after " + step + " steps!\n");
+        } else if (super.getNumOfCellsToBeVisited() == super.numOfTornadoes) {
+            log("\n\nGame won in " + step + " steps!");
             makeFinalBoard();
         } else {
-            System.out.print("\nCode showing anomalous behaviour!");
+            log("\nCode showing anomalous behaviour!");
         }
-        System.out.print("\nTotal no of random probes: " + noOfRandomProbes);
+        log("\nTotal no of random probes: " + numOfRandomProbes);
     }
 
 }
@@ -1,9 +1,18 @@
+import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.List;
 
-public class SPX extends TornadoSweeper {
+/**
+ * Sub-class to implement the spx agent, which guesses as RPX when it gets stuck.
+ */
+public class SPX extends RPX {
 
-    public SPX() {
+    public SPX(char[][] map) {
+        super(map);
+    }
+
+    public SPX(char[][] map, PrintStream out) {
+        super(map, out);
     }
 
     /**
@@ -42,7 +51,7 @@ public class SPX extends TornadoSweeper {
         boolean conditionSatisfied = false;
         if (dangersMarked == clueValue) {
             step += 1;
-            System.out.print("\nCell [" + row + "," + col + "] satisfies AFN condition. Probing it!");
+            log("\nCell [" + row + "," + col + "] satisfies AFN condition. Probing it!");
             conditionSatisfied = true;
             Cell cellToProbe = new Cell(row, col);
             updateAgentWorld(cellToProbe);
@@ -64,9 +73,10 @@ public class SPX extends TornadoSweeper {
         boolean conditionSatisfied = false;
         if (clueValue - dangersMarked == coveredCells) { // AMN
             step += 1;
-            System.out.print("\nCell [" + row + "," + col + "] satisfies AMN condition.");
-            System.out.print("\nFlagging the cell with SPX in [" + row + "," + col + "] coordinates for danger!");
+            log("\nCell [" + row + "," + col + "] satisfies AMN condition.");
+            log("\nFlagging the cell with SPX in [" + row + "," + col + "] coordinates for danger!");
             agentWorld[row][col] = 'F';
+            recordFlag(row, col);
             conditionSatisfied = true;
         }
         return conditionSatisfied;
@@ -84,17 +94,17 @@ public class SPX extends TornadoSweeper {
         List<Cell> allNeighbours = cellToProbe.getNeighbours(originalWorld.length);
 
         for (Cell cell : allNeighbours) {
-            System.out.print("\n\nConsidering neighbour: [" + cell.getRow() + "," + cell.getCol() + "]");
+            log("\n\nConsidering neighbour: [" + cell.getRow() + "," + cell.getCol() + "]");
             char clue = agentWorld[cell.getRow()][cell.getCol()];
             if (clue != '?') {
                 int clueValue = clue - '0';
-                System.out.print("\nClue received from this neighbour: " + clueValue);
+                log("\nClue received from this neighbour: " + clueValue);
                 // count no. of flagged and covered cells in the neighbours
                 List<Integer> cellCounts = checkNeighboursOfNeighbour(cell);
                 int dangersMarked = cellCounts.get(0);
                 int coveredCells = cellCounts.get(1);
-                System.out.print("\nTotal count of dangers for this neighbour: " + dangersMarked);
-                System.out.print("\nToal count of covered cells for this neighbour: " + coveredCells);
+                log("\nTotal count of dangers for this neighbour: " + dangersMarked);
+                log("\nToal count of covered cells for this neighbour: " + coveredCells);
 
                 boolean isAllMarked = allMarkedNeighbours(row, col, dangersMarked, clueValue, coveredCells); // AFN
                 boolean isAllFree = allFreeNeighbours(row, col, dangersMarked, clueValue); // AMN
@@ -109,18 +119,22 @@ public class SPX extends TornadoSweeper {
         return false;
     }
 
+    @Override
+    public void play() {
+        singlePointProbe();
+    }
+
     /**
      * Play the game with single point strategy.
      */
     public void singlePointProbe() {
-        int noOfRandomProbes = 0;
         // break gameloop if condition satisfied or tornado found
         gameloop:
-        while (toBeVisited.size() > numOfTornadoes) {
+        while (getNumOfCellsToBeVisited() > numOfTornadoes) {
             boolean boardChanged = false;
-            System.out.print("Step: " + step);
-            System.out.print("\nNumber of visited cells: " + visited.size() +
-                    "\nNumber of cells to be visited: " + toBeVisited.size());
+            log("Step: " + step);
+            log("\nNumber of visited cells: " + visited.size() +
+                    "\nNumber of cells to be visited: " + getNumOfCellsToBeVisited());
             // get [0,0] or the centre cell to probe
             if (super.step == 0 || !midCellProbed) {
                 Cell cellToProbe = super.getFirstCellsToProbe();
@@ -129,34 +143,33 @@ public class SPX extends TornadoSweeper {
                 super.printBoard();
                 boardChanged = true;
             } else {
-                // move through the board to find and check next covered cell
-                for (int i = 0; i < originalWorld.length; i++) {
-                    for (int j = 0; j < originalWorld.length; j++) {
-                        if (agentWorld[i][j] == '?') {
-                            System.out.print("\nConsidering single point strategy to probe the cell in [" + i + ","
-                                    + j + "] coordinates");
-                            boolean visitedCondition = checkSatisfiabilityInNeighbours(i, j);
-                            if (visitedCondition) {
-                                System.out.print("\n No of nodes to be visited: " + toBeVisited.size() +
-                                        "\nVisited nodes: " + visited.size());
-                                printBoard();
-                                // mark board as changed
-                                boardChanged = true;
-                                break;
-                            }
+                // check only the covered cells whose neighbouring clues changed since they were last checked
+                while (!worklist.isEmpty()) {
+                    int index = worklist.poll();
+                    int i = bitBoard.getRow(index);
+                    int j = bitBoard.getCol(index);
+                    if (agentWorld[i][j] == '?') {
+                        log("\nConsidering single point strategy to probe the cell in [" + i + ","
+                                + j + "] coordinates");
+                        boolean visitedCondition = checkSatisfiabilityInNeighbours(i, j);
+                        if (visitedCondition) {
+                            log("\n No of nodes to be visited: " + getNumOfCellsToBeVisited() +
+                                    "\nVisited nodes: " + visited.size());
+                            printBoard();
+                            // mark board as changed
+                            boardChanged = true;
                         }
                     }
                 }
             }
-            // if board didn't change, switch to RPX
+            // if board didn't change, switch to RPX for a guess
             if (!boardChanged) {
-                System.out.print("\n\n****** Switching to RPX for finding a random cell! *******");
-                RPX randomGame = new RPX();
-                Cell randomCell = randomGame.selectRandomUnprobedAndUnflaggedCell();
+                log("\n\n****** Switching to RPX for guessing a cell! *******");
+                Cell randomCell = selectGuess();
                 int randomRow = randomCell.getRow();
                 int randomCol = randomCell.getCol();
-                boolean cellContainsTornado = randomGame.unCoverandMarkCell(randomRow, randomCol);
-                noOfRandomProbes += 1;
+                boolean cellContainsTornado = unCoverandMarkCell(randomRow, randomCol);
+                numOfRandomProbes += 1;
                 if (cellContainsTornado) {
                     break gameloop;
                 }
@@ -164,15 +177,15 @@ public class SPX extends TornadoSweeper {
             }
         }
         // condition for losing or winning the game
-        if (toBeVisited.size() > numOfTornadoes) {
-            System.out.println("\n\nGame lost!");
-        } else if (toBeVisited.size() == numOfTornadoes) {
-            System.out.print("\n\nGame won!");
+        if (getNumOfCellsToBeVisited() > numOfTornadoes) {
+            log("\n\nGame lost!\n");
+        } else if (getNumOfCellsToBeVisited() == numOfTornadoes) {
+            log("\n\nGame won!");
             makeFinalBoard();
         } else {
-            System.out.print("\nCode showing anomalous behaviour!");
+            log("\nCode showing anomalous behaviour!");
         }
-        System.out.print("\nTotal no of Random probes required: " + noOfRandomProbes);
+        log("\nTotal no of Random probes required: " + numOfRandomProbes);
     }
 }
 
@@ -1,19 +1,34 @@
+import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Parent class with all attributes defining state of the game.
+ * Every game has its own state, so games on different boards can be played at the same time on different threads.
+ * The probed, flagged and covered cells are kept in a BitBoard alongside the agent's world, so that checking or
+ * updating them doesn't depend on the size of the board. Every probe or flag adds the covered cells around it to the
+ * worklist of cells the agents have to evaluate again.
  */
 public class TornadoSweeper {
-    protected static char[][] originalWorld;
-    protected static char[][] agentWorld;
-    protected static List<Cell> visited = new ArrayList<Cell>();
-    protected static List<Cell> toBeVisited = new ArrayList<Cell>();
-    protected static int numOfTornadoes;
-    protected static int worldLength;
-    protected static int step = 0;
-    protected static boolean midCellProbed;
-    protected static List<Cell> tornadoCells = new ArrayList<Cell>();
+    protected char[][] originalWorld;
+    protected char[][] agentWorld;
+    protected BitBoard bitBoard;
+    protected Worklist worklist;
+    // knowledge base kept by SATX for the whole game, or null until SATX needs it
+    protected KnowledgeBase knowledgeBase;
+    protected List<Cell> visited = new ArrayList<Cell>();
+    protected int numOfTornadoes;
+    protected int worldLength;
+    protected int step = 0;
+    protected boolean midCellProbed;
+    protected List<Cell> tornadoCells = new ArrayList<Cell>();
+    // stream the moves of the game are printed to, or null to play silently
+    protected PrintStream out;
+    // whether agents that get stuck probe the cell least likely to be a tornado, or a random one
+    protected boolean safestGuess = true;
+    // cells probed or flagged by choice, i.e. not uncovered around a '0', and how many of them were guesses
+    protected int numOfDecisions = 0;
+    protected int numOfRandomProbes = 0;
 
     /**
      * Constructor
@@ -21,101 +36,222 @@ public class TornadoSweeper {
      * @param map is the board
      */
     public TornadoSweeper(char[][] map) {
+        this(map, System.out);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param map is the board
+     * @param out is the stream the moves of the game are printed to, or null to play silently
+     */
+    public TornadoSweeper(char[][] map, PrintStream out) {
+        this.out = out;
         resetGame();
         worldLength = map.length;
         // original world is for reference to the board
         originalWorld = new char[worldLength][worldLength];
         // agent world contains the agent's view of board - initialized with '?'
         agentWorld = new char[worldLength][worldLength];
-        setNumOfTornadoes();
-        System.out.print("Setting the agent's world!!");
+        // all cells are to be visited initially
+        bitBoard = new BitBoard(worldLength);
+        worklist = new Worklist(bitBoard);
+        knowledgeBase = null;
+        log("Setting the agent's world!!");
         for (int i = 0; i < worldLength; i++) {
             for (int j = 0; j < worldLength; j++) {
                 originalWorld[i][j] = map[i][j];
                 agentWorld[i][j] = '?';
-                Cell cell = new Cell(i, j);
-                // add all cells to be visited initially
-                toBeVisited.add(cell);
             }
         }
+        setNumOfTornadoes();
     }
 
     /**
-     * reset states of game just to avoid clashes with previous states of static variables
+     * reset states of game
      */
     public void resetGame() {
         step = 0;
         midCellProbed = false;
+        numOfDecisions = 0;
+        numOfRandomProbes = 0;
         visited.clear();
-        toBeVisited.clear();
         tornadoCells.clear();
     }
 
-    public static List<Cell> getVisited() {
+    public List<Cell> getVisited() {
         return visited;
     }
 
-    public static int getStep() {
+    public int getStep() {
         return step;
     }
 
-    public static void setStep(int step) {
-        TornadoSweeper.step = step;
+    public void setStep(int step) {
+        this.step = step;
     }
 
-    public static boolean isMidCellProbed() {
+    public boolean isMidCellProbed() {
         return midCellProbed;
     }
 
-    public static void setMidCellProbed(boolean midCellProbed) {
-        TornadoSweeper.midCellProbed = midCellProbed;
+    public void setMidCellProbed(boolean midCellProbed) {
+        this.midCellProbed = midCellProbed;
     }
 
-    public static char[][] getAgentWorld() {
+    public char[][] getAgentWorld() {
         return agentWorld;
     }
 
-    public static void setAgentWorld(char[][] agentWorld) {
-        TornadoSweeper.agentWorld = agentWorld;
+    public void setAgentWorld(char[][] agentWorld) {
+        this.agentWorld = agentWorld;
+    }
+
+    public void setVisited(List<Cell> visited) {
+        this.visited = visited;
+    }
+
+    /**
+     * Get the cells that haven't been probed yet, flagged or not.
+     *
+     * @return the cells in row-major order
+     */
+    public List<Cell> getToBeVisited() {
+        return bitBoard.getCoveredCells();
+    }
+
+    public int getNumOfCellsToBeVisited() {
+        return bitBoard.getCoveredCount();
+    }
+
+    public BitBoard getBitBoard() {
+        return bitBoard;
+    }
+
+    public Worklist getWorklist() {
+        return worklist;
+    }
+
+    public PrintStream getOut() {
+        return out;
+    }
+
+    /**
+     * Set the stream the moves of the game are printed to from now on.
+     *
+     * @param out is the stream, or null to play silently
+     */
+    public void setOut(PrintStream out) {
+        this.out = out;
+    }
+
+    public boolean isSafestGuess() {
+        return safestGuess;
+    }
+
+    /**
+     * Set how SPX and SATX guess when no cell can be inferred.
+     *
+     * @param safestGuess is true to probe the cell least likely to be a tornado, false to probe a random one
+     */
+    public void setSafestGuess(boolean safestGuess) {
+        this.safestGuess = safestGuess;
     }
 
-    public static void setVisited(List<Cell> visited) {
-        TornadoSweeper.visited = visited;
+    /**
+     * Print a message about the game, unless it is played silently.
+     *
+     * @param message is the message
+     */
+    protected void log(String message) {
+        if (out != null) {
+            out.print(message);
+        }
     }
 
-    public static List<Cell> getToBeVisited() {
-        return toBeVisited;
+    /**
+     * Print the agent's view of the world, unless the game is played silently.
+     */
+    protected void printAgentWorld() {
+        if (out != null) {
+            new Board(agentWorld).printBoard(out);
+        }
     }
 
-    public static void setToBeVisited(List<Cell> toBeVisited) {
-        TornadoSweeper.toBeVisited = toBeVisited;
+    /**
+     * Record the content of a probed cell in the bitboard and in the knowledge base, if there is one, and add the
+     * cells around it to the worklist.
+     *
+     * @param row     is the row of the cell
+     * @param col     is the column of the cell
+     * @param content is the content of the cell
+     */
+    protected void recordProbe(int row, int col, char content) {
+        int index = bitBoard.getIndex(row, col);
+        if (bitBoard.probe(index, content)) {
+            worklist.addAround(index);
+            if (knowledgeBase != null) {
+                knowledgeBase.add(index);
+            }
+        }
     }
 
+    /**
+     * Record a flag in the bitboard and in the knowledge base, if there is one, and add the cells around it to the
+     * worklist.
+     *
+     * @param row is the row of the cell
+     * @param col is the column of the cell
+     */
+    protected void recordFlag(int row, int col) {
+        int index = bitBoard.getIndex(row, col);
+        numOfDecisions += 1;
+        if (bitBoard.flag(index)) {
+            worklist.addAround(index);
+            if (knowledgeBase != null) {
+                knowledgeBase.add(index);
+            }
+        }
+    }
+
+    public int getNumOfDecisions() {
+        return numOfDecisions;
+    }
 
-    public TornadoSweeper() {
+    public int getNumOfRandomProbes() {
+        return numOfRandomProbes;
     }
 
-    public static int getNumOfTornadoes() {
+    /**
+     * Check if the game is won, i.e. only the tornadoes are left covered.
+     *
+     * @return true if the game is won
+     */
+    public boolean isWon() {
+        return getNumOfCellsToBeVisited() == numOfTornadoes;
+    }
+
+    public int getNumOfTornadoes() {
         return numOfTornadoes;
     }
 
-    public static void setNumOfTornadoes(int numOfTornadoes) {
-        TornadoSweeper.numOfTornadoes = numOfTornadoes;
+    public void setNumOfTornadoes(int numOfTornadoes) {
+        this.numOfTornadoes = numOfTornadoes;
     }
 
     /**
-     * Figure out the number of tornadoes.
+     * Figure out the number of tornadoes by counting them on the original world, so boards of any size can be played.
      */
     public void setNumOfTornadoes() {
-        if (worldLength == 5) {
-            this.numOfTornadoes = 5;
-        } else if (worldLength == 7) {
-            this.numOfTornadoes = 10;
-        } else if (worldLength == 11) {
-            this.numOfTornadoes = 28;
-        } else if (worldLength == 3) {
-            this.numOfTornadoes = 3;
+        int count = 0;
+        for (char[] row : originalWorld) {
+            for (char content : row) {
+                if (isTornado(content)) {
+                    count += 1;
+                }
+            }
         }
+        this.numOfTornadoes = count;
     }
 
     /**
@@ -126,8 +262,7 @@ public class TornadoSweeper {
      * @return
      */
     public boolean isCellProbed(final int row, final int col) {
-        return visited.stream().anyMatch(o -> o.getRow() == row
-                && o.getCol() == col);
+        return bitBoard.isProbed(bitBoard.getIndex(row, col));
     }
 
     /**
@@ -159,7 +294,7 @@ public class TornadoSweeper {
      * @param cell is the cell to be probed
      */
     public void recursivelyProbeNeighbours(Cell cell) {
-        System.out.print("\nCell [" + cell.getRow() + "," + cell.getCol() + "] contains '0', now recursively probing" +
+        log("\nCell [" + cell.getRow() + "," + cell.getCol() + "] contains '0', now recursively probing" +
                 " its neighbours!");
         List<Cell> allNeighbours = cell.getNeighbours(originalWorld.length);
         for (int i = 0; i < allNeighbours.size(); i++) {
@@ -167,16 +302,15 @@ public class TornadoSweeper {
             int row = neighbour.getRow();
             int col = neighbour.getCol();
             if (!isCellProbed(row, col)) {
-                System.out.print("\n\nStep: " + step);
+                log("\n\nStep: " + step);
                 char cellContent = getContentOfCell(row, col);
-                System.out.print("\nProbe x y for uncovering the cell in [" + row + "," + col + "] coordinates" +
+                log("\nProbe x y for uncovering the cell in [" + row + "," + col + "] coordinates" +
                         " with content: '" + cellContent + "'");
                 visited.add(neighbour);
-                toBeVisited = removeCell(toBeVisited, neighbour);
                 agentWorld[row][col] = cellContent;
-                Board board = new Board(agentWorld);
-                System.out.print("\nAgent's view of the world at step " + step + ":");
-                board.printBoard();
+                recordProbe(row, col, cellContent);
+                log("\nAgent's view of the world at step " + step + ":");
+                printAgentWorld();
                 if (cellContent == '0') {
                     recursivelyProbeNeighbours(neighbour);
                 }
@@ -216,7 +350,7 @@ public class TornadoSweeper {
      * @param cellContent is the content to be placed
      */
     public void probeCell(int row, int col, char cellContent) {
-        System.out.print("\nProbing cell [" + row + "," + col + "] for uncovering content: " + cellContent);
+        log("\nProbing cell [" + row + "," + col + "] for uncovering content: " + cellContent);
         agentWorld[row][col] = cellContent;
     }
 
@@ -230,8 +364,9 @@ public class TornadoSweeper {
         int col = cellToProbe.getCol();
         char cellContent = getContentOfCell(row, col);
         probeCell(row, col, cellContent);
+        numOfDecisions += 1;
         visited.add(cellToProbe);
-        toBeVisited = removeCell(toBeVisited, cellToProbe);
+        recordProbe(row, col, cellContent);
         if (cellContent == '0') {
             recursivelyProbeNeighbours(cellToProbe);
         }
@@ -245,13 +380,15 @@ public class TornadoSweeper {
      * Prints the tornadoes found by the agent as well as the agent's view of the world.
      */
     public void printBoard() {
-        System.out.print("\nCells that have been flagged as tornadoes so far: ");
+        if (out == null) {
+            return;
+        }
+        log("\nCells that have been flagged as tornadoes so far: ");
         for (Cell cell : tornadoCells) {
-            System.out.print("[" + cell.getRow() + "," + cell.getCol() + "]");
+            log("[" + cell.getRow() + "," + cell.getCol() + "]");
         }
-        Board board = new Board(agentWorld);
-        System.out.print("\nAgent's view of the world at step " + step + ":");
-        board.printBoard();
+        log("\nAgent's view of the world at step " + step + ":");
+        printAgentWorld();
     }
 
     /**
@@ -261,8 +398,9 @@ public class TornadoSweeper {
      * @param col is the column of the cell
      */
     public void flagCell(int row, int col) {
-        System.out.print("\nFlagging cell [" + row + "," + col + "] for danger!");
+        log("\nFlagging cell [" + row + "," + col + "] for danger!");
         agentWorld[row][col] = 'F';
+        recordFlag(row, col);
         Cell cellToProbe = new Cell(row, col);
         tornadoCells.add(cellToProbe);
         printBoard();
@@ -273,15 +411,14 @@ public class TornadoSweeper {
      * Called only when the agent wins the game, to show its full view of the world.
      */
     public void makeFinalBoard() {
-        System.out.print("\n\nNow preparing final board (by placing flags yet to be visited) " +
+        log("\n\nNow preparing final board (by placing flags yet to be visited) " +
                 "to show you what the agent thinks the world looks like..");
-        for (Cell cell : toBeVisited) {
-            if (agentWorld[cell.getRow()][cell.getCol()] == '?') {
-                agentWorld[cell.getRow()][cell.getCol()] = 'F';
+        for (int i = bitBoard.nextCovered(0); i >= 0; i = bitBoard.nextCovered(i + 1)) {
+            if (agentWorld[bitBoard.getRow(i)][bitBoard.getCol(i)] == '?') {
+                agentWorld[bitBoard.getRow(i)][bitBoard.getCol(i)] = 'F';
             }
         }
-        System.out.print("\nFinal view of the agent's world: ");
-        Board board = new Board(agentWorld);
-        board.printBoard();
+        log("\nFinal view of the agent's world: ");
+        printAgentWorld();
     }
 }
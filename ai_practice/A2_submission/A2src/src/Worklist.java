@@ -0,0 +1,102 @@
+/**
+ * Covered cells waiting to be evaluated by an agent, because the clues around them changed since they were last
+ * evaluated. When a covered cell is decided from the clues of its neighbours and the cells around these clues, as by
+ * SPX and by SATX with a knowledge base of the clues around the cell, only the covered cells within two steps of a
+ * probe or flag have to be evaluated again (see addAround()): every other covered cell would get the same answer as
+ * last time. That doesn't hold for the knowledge base of the whole game, which can decide a cell from a change far
+ * away through a chain of clues, so SATX checks the whole frontier again before guessing.
+ * Cells are evaluated in the order they were added, each cell is in the worklist at most once, and all operations
+ * are O(1), so the work per move is proportional to the change on the board, not to its size.
+ */
+public class Worklist {
+    private final BitBoard board;
+    // cells in the worklist, as a bitset and as a circular queue
+    private final long[] queued;
+    private final int[] queue;
+    private int head = 0;
+    private int size = 0;
+
+    /**
+     * Constructor for an empty worklist.
+     *
+     * @param board is the agent's view of the board
+     */
+    public Worklist(BitBoard board) {
+        this.board = board;
+        this.queued = new long[(board.getCellCount() + 63) >>> 6];
+        this.queue = new int[Math.max(board.getCellCount(), 1)];
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(int index) {
+        return (queued[index >>> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * Add a cell at the end of the worklist, unless it is already in it.
+     *
+     * @param index is the index of the cell
+     */
+    public void add(int index) {
+        if (contains(index)) {
+            return;
+        }
+        queued[index >>> 6] |= 1L << index;
+        queue[(head + size) % queue.length] = index;
+        size += 1;
+    }
+
+    /**
+     * Remove the first cell of the worklist.
+     *
+     * @return the index of the cell
+     */
+    public int poll() {
+        int index = queue[head];
+        head = (head + 1) % queue.length;
+        size -= 1;
+        queued[index >>> 6] &= ~(1L << index);
+        return index;
+    }
+
+    public void clear() {
+        while (!isEmpty()) {
+            poll();
+        }
+    }
+
+    /**
+     * Add the covered, unflagged cells whose evaluation may have changed after a cell was probed or flagged: the
+     * neighbours of the cell if it has a clue, and the neighbours of every clue around it, whose counts of flagged
+     * and covered cells changed.
+     *
+     * @param index is the index of the cell that was probed or flagged
+     */
+    public void addAround(int index) {
+        if (board.getClue(index) >= 0) {
+            addCoveredNeighbours(index);
+        }
+        for (int k = 0; k < board.getNeighbourCount(index); k++) {
+            int neighbour = board.getNeighbour(index, k);
+            if (board.getClue(neighbour) >= 0) {
+                addCoveredNeighbours(neighbour);
+            }
+        }
+    }
+
+    private void addCoveredNeighbours(int index) {
+        for (int k = 0; k < board.getNeighbourCount(index); k++) {
+            int neighbour = board.getNeighbour(index, k);
+            if (board.isCovered(neighbour) && !board.isFlagged(neighbour)) {
+                add(neighbour);
+            }
+        }
+    }
+}